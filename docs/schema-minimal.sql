@@ -20,6 +20,19 @@ CREATE TABLE IF NOT EXISTS `task_progress` (
   KEY `idx_table_type_status` (`table_name`, `task_type`, `status`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='Task progress tracking';
 
+-- Shard leases (required when shard.enabled=true)
+CREATE TABLE IF NOT EXISTS `report_shard_lease` (
+  `task_id` varchar(100) NOT NULL COMMENT 'table:dt',
+  `shard_count` int NOT NULL,
+  `shard` int NOT NULL,
+  `status` int NOT NULL DEFAULT 0 COMMENT '0:pending, 1:running, 2:completed',
+  `owner` varchar(100) DEFAULT NULL COMMENT 'shard.instanceId holding the lease',
+  `lease_until` datetime(3) DEFAULT NULL,
+  `created_at` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  `updated_at` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+  PRIMARY KEY (`task_id`, `shard_count`, `shard`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='Shard leases of table/dt partitions';
+
 -- Example event table: page_vidw
 CREATE TABLE IF NOT EXISTS `page_vidw` (
   `id` bigint NOT NULL AUTO_INCREMENT,
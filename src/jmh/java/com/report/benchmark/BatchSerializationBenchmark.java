@@ -0,0 +1,98 @@
+package com.report.benchmark;
+
+import com.report.config.EventTableConfig;
+import com.report.model.EventRow;
+import com.report.model.ReportPayload;
+import com.report.service.DataTransformService;
+import com.report.service.ReportBodyWriter;
+import com.report.util.JsonUtil;
+import com.report.util.LogSanitizer;
+import com.report.util.PooledBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request body serialization of one report batch
+ * <ul>
+ *   <li>toJson - JsonUtil.toJson on transformed payloads (POJO path, still used by reportBatch)</li>
+ *   <li>transformAndToJson - transform every row, then toJson</li>
+ *   <li>streamBody - ReportBodyWriter straight from the rows (pipeline path)</li>
+ *   <li>sanitizeJson - LogSanitizer.sanitizeJson on the batch body</li>
+ * </ul>
+ *
+ * <pre>
+ * mvn -B -Pbenchmark test-compile exec:exec -Djmh.args="BatchSerializationBenchmark -prof gc"
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BatchSerializationBenchmark {
+
+    @Param({"PAGE_VIEW", "ELEMENT_CLICK", "PAY", "PAY_RESULT", "USER_INFO"})
+    public String table;
+
+    @Param({"20", "50"})
+    public int batchSize;
+
+    private final DataTransformService transformService = new DataTransformService();
+    private String tableName;
+    private List<EventRow> rows;
+    private List<ReportPayload> payloads;
+    private String body;
+
+    @Setup
+    public void setUp() {
+        EventTableConfig tableConfig = EventTableConfig.valueOf(table);
+        tableName = tableConfig.getTableName();
+        rows = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            rows.add(SyntheticRows.row(tableConfig, i));
+        }
+        payloads = transformService.transformBatch(tableName, rows);
+        body = JsonUtil.toJson(payloads);
+    }
+
+    @Benchmark
+    public String toJson() {
+        return JsonUtil.toJson(payloads);
+    }
+
+    @Benchmark
+    public String transformAndToJson() {
+        return JsonUtil.toJson(transformService.transformBatch(tableName, rows));
+    }
+
+    @Benchmark
+    public int streamBody() {
+        ReportBodyWriter writer = transformService.newBodyWriter(tableName, false);
+        for (EventRow row : rows) {
+            writer.add(row);
+        }
+        PooledBuffer buffer = writer.finish();
+        int length = buffer.length();
+        buffer.release();
+        return length;
+    }
+
+    @Benchmark
+    public String sanitizeJson() {
+        return LogSanitizer.sanitizeJson(body);
+    }
+}
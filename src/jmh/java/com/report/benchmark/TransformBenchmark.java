@@ -0,0 +1,60 @@
+package com.report.benchmark;
+
+import com.report.config.EventTableConfig;
+import com.report.model.EventRow;
+import com.report.model.ReportPayload;
+import com.report.service.DataTransformService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-record transform: DataTransformService.transform, including buildParamsJson
+ *
+ * <pre>
+ * mvn -B -Pbenchmark test-compile exec:exec -Djmh.args="TransformBenchmark -prof gc"
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransformBenchmark {
+    private static final int ROWS = 1024;
+
+    @Param({"PAGE_VIEW", "ELEMENT_CLICK", "PAY", "PAY_RESULT", "USER_INFO"})
+    public String table;
+
+    private final DataTransformService transformService = new DataTransformService();
+    private EventRow[] rows;
+    private String tableName;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        EventTableConfig tableConfig = EventTableConfig.valueOf(table);
+        tableName = tableConfig.getTableName();
+        rows = new EventRow[ROWS];
+        for (int i = 0; i < ROWS; i++) {
+            rows[i] = SyntheticRows.row(tableConfig, i);
+        }
+    }
+
+    @Benchmark
+    public ReportPayload transform() {
+        EventRow row = rows[next++ & (ROWS - 1)];
+        return transformService.transform(tableName, row);
+    }
+}
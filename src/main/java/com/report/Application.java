@@ -2,12 +2,17 @@ package com.report;
 
 import com.report.config.AppConfig;
 import com.report.config.DataSourceConfig;
+import com.report.health.HealthCheckServer;
 import com.report.schedule.ScheduleConfig;
 import com.report.service.ReportService;
+import com.report.service.StreamingService;
+import com.report.spool.FailedRecordSpool;
 import com.report.util.HttpClientUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+
 /**
  * Main application entry point for Volcano Report Service
  */
@@ -15,6 +20,7 @@ public class Application {
     private static final Logger logger = LoggerFactory.getLogger(Application.class);
 
     private static ScheduleConfig scheduleConfig;
+    private static HealthCheckServer healthCheckServer;
 
     public static void main(String[] args) {
         // Console output for debugging (in case logger fails)
@@ -61,6 +67,25 @@ public class Application {
                     runRetry(date);
                     break;
 
+                case "backfill":
+                    // Process every date of a range in this process
+                    if (args.length < 3) {
+                        printUsage();
+                        System.exit(1);
+                    }
+                    runBackfill(args[1], args[2]);
+                    break;
+
+                case "replay":
+                    // Re-send only the spooled failed requests, of one date if given
+                    runReplay(args.length > 1 ? args[1] : null);
+                    break;
+
+                case "stream":
+                    // Report pending records continuously until stopped
+                    startStreaming();
+                    break;
+
                 case "stats":
                     // Show statistics for specified date
                     showStats(date);
@@ -108,13 +133,43 @@ public class Application {
         logger.info("Running in RETRY mode for date: {}", date);
         try {
             ReportService reportService = new ReportService();
-            reportService.processDate(date);
+            reportService.reprocessDate(date);
             logger.info("Retry completed for {}, exiting", date);
         } finally {
             cleanup();
         }
     }
 
+    /**
+     * Process every date from from to to, inclusive, and exit
+     */
+    private static void runBackfill(String from, String to) {
+        logger.info("Running in BACKFILL mode from {} to {}", from, to);
+        try {
+            ReportService reportService = new ReportService();
+            reportService.backfill(from, to);
+            logger.info("Backfill completed for {} to {}, exiting", from, to);
+        } finally {
+            cleanup();
+        }
+    }
+
+    /**
+     * Re-send the failed requests kept in the spool and exit
+     *
+     * @param date Only replay requests of this date; null for all
+     */
+    private static void runReplay(String date) {
+        logger.info("Running in REPLAY mode for date: {}", date != null ? date : "all");
+        try {
+            ReportService reportService = new ReportService();
+            reportService.replaySpool(date);
+            logger.info("Replay completed, exiting");
+        } finally {
+            cleanup();
+        }
+    }
+
     /**
      * Show statistics for specified date
      */
@@ -137,6 +192,7 @@ public class Application {
         try {
             scheduleConfig = new ScheduleConfig();
             scheduleConfig.start();
+            startHealthCheckServer();
 
             // Add shutdown hook
             Runtime.getRuntime().addShutdownHook(new Thread(() -> {
@@ -159,6 +215,52 @@ public class Application {
         }
     }
 
+    /**
+     * Start continuous streaming of pending records
+     */
+    private static void startStreaming() {
+        logger.info("Running in STREAM mode");
+
+        StreamingService streamingService = new StreamingService();
+        try {
+            streamingService.start();
+            startHealthCheckServer();
+
+            // Drain what was taken and write its status before the pools close
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                logger.info("Shutdown signal received");
+                streamingService.stop();
+                cleanup();
+            }));
+
+            logger.info("========================================");
+            logger.info("  Streaming started successfully!");
+            logger.info("  Press Ctrl+C to stop");
+            logger.info("========================================");
+
+            // Keep main thread alive
+            Thread.currentThread().join();
+
+        } catch (Exception e) {
+            logger.error("Failed to start streaming: {}", e.getMessage(), e);
+            streamingService.stop();
+            cleanup();
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Serve /health, /ready and /metrics for the long-running modes, unless metrics.enabled is off
+     */
+    private static void startHealthCheckServer() throws IOException {
+        AppConfig config = AppConfig.getInstance();
+        if (!config.isMetricsEnabled()) {
+            return;
+        }
+        healthCheckServer = new HealthCheckServer(config.getMetricsPort());
+        healthCheckServer.start();
+    }
+
     /**
      * Test database connection with retry logic
      *
@@ -199,8 +301,12 @@ public class Application {
             if (scheduleConfig != null) {
                 scheduleConfig.shutdown();
             }
+            if (healthCheckServer != null) {
+                healthCheckServer.stop();
+            }
 
             HttpClientUtil.getInstance().close();
+            FailedRecordSpool.shutdown();
             DataSourceConfig.getInstance().close();
 
             logger.info("Cleanup completed");
@@ -219,6 +325,9 @@ public class Application {
         System.out.println("  schedule  - Start with scheduler (process yesterday daily, default)");
         System.out.println("  once      - Process specified date once and exit (default: yesterday)");
         System.out.println("  retry     - Reprocess specified date (default: yesterday)");
+        System.out.println("  backfill  - Process every date from <from> to <to> (inclusive) and exit");
+        System.out.println("  replay    - Re-send only the spooled failed requests (default: all dates)");
+        System.out.println("  stream    - Report pending records continuously until stopped");
         System.out.println("  stats     - Show statistics for specified date (default: yesterday)");
         System.out.println();
         System.out.println("Date format: YYYY-MM-DD (e.g., 2026-01-25)");
@@ -228,6 +337,9 @@ public class Application {
         System.out.println("  java -jar app.jar stats              # Show stats for yesterday");
         System.out.println("  java -jar app.jar stats 2026-01-20   # Show stats for specific date");
         System.out.println("  java -jar app.jar once 2026-01-20    # Process specific date once");
+        System.out.println("  java -jar app.jar backfill 2026-01-01 2026-01-31  # Process a month of dates");
+        System.out.println("  java -jar app.jar replay 2026-01-20  # Re-send failed requests of a date");
+        System.out.println("  java -jar app.jar stream             # Report new records within seconds");
         System.out.println("  java -jar app.jar schedule           # Run scheduler (process yesterday daily)");
     }
 }
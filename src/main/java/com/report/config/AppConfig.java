@@ -6,9 +6,12 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.management.ManagementFactory;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 
 /**
@@ -17,6 +20,8 @@ import java.util.Properties;
 public class AppConfig {
     private static final Logger logger = LoggerFactory.getLogger(AppConfig.class);
     private static final String CONFIG_FILE = "application.properties";
+    // Pool connections backfill keeps free of readers, for checkpoint and shard lease writes
+    private static final int BACKFILL_RESERVED_CONNECTIONS = 2;
     private static AppConfig instance;
     private final Properties properties;
 
@@ -36,15 +41,77 @@ public class AppConfig {
     // Batch configuration
     private int dbBatchSize;
     private int reportBatchSize;
+    private boolean reportBatchAdaptive;
+    private long reportBatchTargetLatencyMs;
+    private int reportBatchMaxBytes;
+    private ReadMode readMode;
+    private int dbStreamNetWriteTimeout;
+    private int dbReadParallelism;
+    private int dbReadRangesPerReader;
+
+    // Pipeline configuration
+    private int pipelineFetchQueueCapacity;
+    private int pipelineQueueCapacity;
+    private int pipelineTransformThreads;
+    private int pipelineSerializeThreads;
+
+    // Send concurrency configuration
+    private int reportTableParallelism;
+    private int backfillParallelism;
+    private int reportGlobalConcurrency;
+    private int reportConcurrency;
+    private final Map<String, Integer> reportConcurrencyOverrides = new HashMap<>();
 
     // Retry configuration
     private int maxRetryTimes;
     private long retryIntervalMs;
+    private long retryMaxIntervalMs;
 
     // HTTP configuration
     private int httpConnectTimeout;
     private int httpSocketTimeout;
     private int httpConnectionRequestTimeout;
+    private HttpTransport httpTransport;
+    private int httpAsyncIoThreads;
+    private int httpAsyncMaxConnections;
+    private boolean httpLimiterEnabled;
+    private int httpLimiterInitialLimit;
+    private int httpLimiterMinLimit;
+    private int httpLimiterMaxLimit;
+    private double httpLimiterLatencyTolerance;
+    private int httpLimiterMaxQueue;
+    private HttpCompression httpCompression;
+    private int httpCompressionLevel;
+    private int httpCompressionMinBytes;
+    private double httpRateLimitSingleQps;
+    private double httpRateLimitBatchQps;
+    private int httpRateLimitBurst;
+
+    // Failed record spool configuration
+    private boolean spoolEnabled;
+    private String spoolDir;
+    private long spoolSegmentMaxBytes;
+    private long spoolFsyncIntervalMs;
+
+    // Checkpoint configuration
+    private boolean checkpointEnabled;
+    private long checkpointIntervalMs;
+
+    // Sharding configuration
+    private boolean shardEnabled;
+    private int shardCount;
+    private long shardLeaseMs;
+    private String shardInstanceId;
+
+    // Streaming configuration
+    private long streamPollMinMs;
+    private long streamPollMaxMs;
+    private int statusFlushSize;
+    private long statusFlushIntervalMs;
+
+    // Metrics endpoint configuration
+    private boolean metricsEnabled;
+    private int metricsPort;
 
     // Schedule configuration
     private boolean scheduleEnabled;
@@ -99,15 +166,77 @@ public class AppConfig {
         // Batch
         dbBatchSize = getIntProperty("batch.db.size", 1000);
         reportBatchSize = getIntProperty("batch.report.size", 20);
+        reportBatchAdaptive = getBooleanProperty("batch.report.adaptive", true);
+        reportBatchTargetLatencyMs = getLongProperty("batch.report.targetLatencyMs", 1000);
+        reportBatchMaxBytes = getIntProperty("batch.report.maxBytes", 512 * 1024);
+        readMode = ReadMode.fromString(getProperty("db.read.mode"));
+        dbStreamNetWriteTimeout = getIntProperty("db.stream.netWriteTimeout", 600);
+        dbReadParallelism = getIntProperty("db.read.parallelism", 1);
+        dbReadRangesPerReader = getIntProperty("db.read.rangesPerReader", 4);
+
+        // Pipeline
+        pipelineFetchQueueCapacity = getIntProperty("pipeline.fetch.queue.capacity", 4);
+        pipelineQueueCapacity = getIntProperty("pipeline.queue.capacity", 64);
+        pipelineTransformThreads = getIntProperty("pipeline.transform.threads", 1);
+        pipelineSerializeThreads = getIntProperty("pipeline.serialize.threads", 1);
+
+        // Send concurrency
+        reportTableParallelism = getIntProperty("report.table.parallelism", 2);
+        backfillParallelism = getIntProperty("backfill.parallelism", 2);
+        reportGlobalConcurrency = getIntProperty("report.concurrency.global", 16);
+        reportConcurrency = getIntProperty("report.concurrency.default", 4);
 
         // Retry
         maxRetryTimes = getIntProperty("retry.max.times", 3);
         retryIntervalMs = getLongProperty("retry.interval.ms", 1000);
+        retryMaxIntervalMs = getLongProperty("retry.max.interval.ms", 30000);
 
         // HTTP
         httpConnectTimeout = getIntProperty("http.connect.timeout", 10000);
         httpSocketTimeout = getIntProperty("http.socket.timeout", 30000);
         httpConnectionRequestTimeout = getIntProperty("http.connection.request.timeout", 5000);
+        httpTransport = HttpTransport.fromString(getProperty("http.transport"));
+        httpAsyncIoThreads = getIntProperty("http.async.ioThreads", 2);
+        httpAsyncMaxConnections = getIntProperty("http.async.maxConnections", 1000);
+        httpLimiterEnabled = getBooleanProperty("http.limiter.enabled", true);
+        httpLimiterMinLimit = getIntProperty("http.limiter.minLimit", 1);
+        httpLimiterMaxLimit = getIntProperty("http.limiter.maxLimit", reportGlobalConcurrency);
+        httpLimiterInitialLimit = getIntProperty("http.limiter.initialLimit", Math.min(8, httpLimiterMaxLimit));
+        httpLimiterLatencyTolerance = getDoubleProperty("http.limiter.latencyTolerance", 2.0);
+        httpLimiterMaxQueue = getIntProperty("http.limiter.maxQueue", 1000);
+        httpCompression = HttpCompression.fromString(getProperty("http.compression"));
+        httpCompressionLevel = getIntProperty("http.compression.level", 6);
+        httpCompressionMinBytes = getIntProperty("http.compression.minBytes", 1024);
+        httpRateLimitSingleQps = getDoubleProperty("http.rateLimit.single.qps", 0);
+        httpRateLimitBatchQps = getDoubleProperty("http.rateLimit.batch.qps", 0);
+        httpRateLimitBurst = getIntProperty("http.rateLimit.burst", 1);
+
+        // Failed record spool
+        spoolEnabled = getBooleanProperty("spool.enabled", true);
+        spoolDir = getProperty("spool.dir", "spool");
+        spoolSegmentMaxBytes = getLongProperty("spool.segment.maxBytes", 64L * 1024 * 1024);
+        spoolFsyncIntervalMs = getLongProperty("spool.fsync.intervalMs", 1000);
+
+        // Checkpoint
+        checkpointEnabled = getBooleanProperty("checkpoint.enabled", true);
+        checkpointIntervalMs = getLongProperty("checkpoint.intervalMs", 5000);
+
+        // Sharding
+        shardEnabled = getBooleanProperty("shard.enabled", false);
+        shardCount = getIntProperty("shard.count", 8);
+        shardLeaseMs = getLongProperty("shard.leaseMs", 60000);
+        // RuntimeMXBean name is pid@hostname, unique per running instance
+        shardInstanceId = getProperty("shard.instanceId", ManagementFactory.getRuntimeMXBean().getName());
+
+        // Streaming
+        streamPollMinMs = getLongProperty("stream.pollMinMs", 200);
+        streamPollMaxMs = getLongProperty("stream.pollMaxMs", 5000);
+        statusFlushSize = getIntProperty("status.flush.size", 1000);
+        statusFlushIntervalMs = getLongProperty("status.flush.intervalMs", 200);
+
+        // Metrics endpoint
+        metricsEnabled = getBooleanProperty("metrics.enabled", true);
+        metricsPort = getIntProperty("metrics.port", 8080);
 
         // Schedule
         scheduleEnabled = getBooleanProperty("schedule.enabled", true);
@@ -120,6 +249,12 @@ public class AppConfig {
 
         // Load report mode overrides for each table
         loadReportModeOverrides();
+
+        // Load keyset cursor column overrides for each table
+        loadCursorColumnOverrides();
+
+        // Load send concurrency overrides for each table
+        loadReportConcurrencyOverrides();
     }
 
     /**
@@ -143,16 +278,56 @@ public class AppConfig {
         }
     }
 
+    /**
+     * Load keyset cursor column overrides from configuration
+     * Format: cursor.column.{table_name}=column
+     * Example: cursor.column.page_vidw=event_id
+     */
+    private void loadCursorColumnOverrides() {
+        EventTableConfig.clearCursorColumnOverrides();
+
+        for (String tableName : eventTables) {
+            String key = "cursor.column." + tableName;
+            String column = getProperty(key);
+            if (column != null && !column.trim().isEmpty()) {
+                EventTableConfig.setCursorColumnOverride(tableName, column.trim());
+                logger.info("Cursor column override for table '{}': {}", tableName, column.trim());
+            }
+        }
+    }
+
+    /**
+     * Load per-table send concurrency from configuration
+     * Format: report.concurrency.{table_name}=N
+     * Example: report.concurrency.page_vidw=8
+     */
+    private void loadReportConcurrencyOverrides() {
+        reportConcurrencyOverrides.clear();
+
+        for (String tableName : eventTables) {
+            String key = "report.concurrency." + tableName;
+            if (getProperty(key) != null) {
+                int concurrency = getIntProperty(key, reportConcurrency);
+                reportConcurrencyOverrides.put(tableName, concurrency);
+                logger.info("Report concurrency override for table '{}': {}", tableName, concurrency);
+            }
+        }
+    }
+
+    /**
+     * Value of a key; a JVM system property (-Dkey=value) overrides application.properties
+     */
     private String getProperty(String key) {
-        return properties.getProperty(key);
+        return System.getProperty(key, properties.getProperty(key));
     }
 
     private String getProperty(String key, String defaultValue) {
-        return properties.getProperty(key, defaultValue);
+        String value = getProperty(key);
+        return value != null ? value : defaultValue;
     }
 
     private int getIntProperty(String key, int defaultValue) {
-        String value = properties.getProperty(key);
+        String value = getProperty(key);
         if (value == null || value.trim().isEmpty()) {
             return defaultValue;
         }
@@ -165,7 +340,7 @@ public class AppConfig {
     }
 
     private long getLongProperty(String key, long defaultValue) {
-        String value = properties.getProperty(key);
+        String value = getProperty(key);
         if (value == null || value.trim().isEmpty()) {
             return defaultValue;
         }
@@ -177,8 +352,21 @@ public class AppConfig {
         }
     }
 
+    private double getDoubleProperty(String key, double defaultValue) {
+        String value = getProperty(key);
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            logger.warn("Invalid double value for {}: {}, using default: {}", key, value, defaultValue);
+            return defaultValue;
+        }
+    }
+
     private boolean getBooleanProperty(String key, boolean defaultValue) {
-        String value = properties.getProperty(key);
+        String value = getProperty(key);
         if (value == null || value.trim().isEmpty()) {
             return defaultValue;
         }
@@ -199,13 +387,69 @@ public class AppConfig {
 
     public int getDbBatchSize() { return dbBatchSize; }
     public int getReportBatchSize() { return reportBatchSize; }
+    public boolean isReportBatchAdaptive() { return reportBatchAdaptive; }
+    public long getReportBatchTargetLatencyMs() { return reportBatchTargetLatencyMs; }
+    public int getReportBatchMaxBytes() { return reportBatchMaxBytes; }
+    public ReadMode getReadMode() { return readMode; }
+    public int getDbStreamNetWriteTimeout() { return dbStreamNetWriteTimeout; }
+    public int getDbReadParallelism() { return dbReadParallelism; }
+    public int getDbReadRangesPerReader() { return dbReadRangesPerReader; }
+
+    public int getPipelineFetchQueueCapacity() { return pipelineFetchQueueCapacity; }
+    public int getPipelineQueueCapacity() { return pipelineQueueCapacity; }
+    public int getPipelineTransformThreads() { return pipelineTransformThreads; }
+    public int getPipelineSerializeThreads() { return pipelineSerializeThreads; }
+
+    public int getReportTableParallelism() { return reportTableParallelism; }
+    public int getBackfillParallelism() { return backfillParallelism; }
+    public int getReportGlobalConcurrency() { return reportGlobalConcurrency; }
+
+    /**
+     * Maximum number of report requests in flight for a table
+     */
+    public int getReportConcurrency(String tableName) {
+        return reportConcurrencyOverrides.getOrDefault(tableName, reportConcurrency);
+    }
 
     public int getMaxRetryTimes() { return maxRetryTimes; }
     public long getRetryIntervalMs() { return retryIntervalMs; }
+    public long getRetryMaxIntervalMs() { return retryMaxIntervalMs; }
 
     public int getHttpConnectTimeout() { return httpConnectTimeout; }
     public int getHttpSocketTimeout() { return httpSocketTimeout; }
     public int getHttpConnectionRequestTimeout() { return httpConnectionRequestTimeout; }
+    public HttpTransport getHttpTransport() { return httpTransport; }
+    public int getHttpAsyncIoThreads() { return httpAsyncIoThreads; }
+    public int getHttpAsyncMaxConnections() { return httpAsyncMaxConnections; }
+    public boolean isHttpLimiterEnabled() { return httpLimiterEnabled; }
+    public int getHttpLimiterInitialLimit() { return httpLimiterInitialLimit; }
+    public int getHttpLimiterMinLimit() { return httpLimiterMinLimit; }
+    public int getHttpLimiterMaxLimit() { return httpLimiterMaxLimit; }
+    public double getHttpLimiterLatencyTolerance() { return httpLimiterLatencyTolerance; }
+    public int getHttpLimiterMaxQueue() { return httpLimiterMaxQueue; }
+    public HttpCompression getHttpCompression() { return httpCompression; }
+    public int getHttpCompressionLevel() { return httpCompressionLevel; }
+    public int getHttpCompressionMinBytes() { return httpCompressionMinBytes; }
+    public double getHttpRateLimitSingleQps() { return httpRateLimitSingleQps; }
+    public double getHttpRateLimitBatchQps() { return httpRateLimitBatchQps; }
+    public int getHttpRateLimitBurst() { return httpRateLimitBurst; }
+
+    public boolean isSpoolEnabled() { return spoolEnabled; }
+    public String getSpoolDir() { return spoolDir; }
+    public long getSpoolSegmentMaxBytes() { return spoolSegmentMaxBytes; }
+    public long getSpoolFsyncIntervalMs() { return spoolFsyncIntervalMs; }
+    public boolean isCheckpointEnabled() { return checkpointEnabled; }
+    public long getCheckpointIntervalMs() { return checkpointIntervalMs; }
+    public boolean isShardEnabled() { return shardEnabled; }
+    public int getShardCount() { return shardCount; }
+    public long getShardLeaseMs() { return shardLeaseMs; }
+    public String getShardInstanceId() { return shardInstanceId; }
+    public long getStreamPollMinMs() { return streamPollMinMs; }
+    public long getStreamPollMaxMs() { return streamPollMaxMs; }
+    public int getStatusFlushSize() { return statusFlushSize; }
+    public long getStatusFlushIntervalMs() { return statusFlushIntervalMs; }
+    public boolean isMetricsEnabled() { return metricsEnabled; }
+    public int getMetricsPort() { return metricsPort; }
 
     public boolean isScheduleEnabled() { return scheduleEnabled; }
     public String getIncrementCron() { return incrementCron; }
@@ -246,12 +490,148 @@ public class AppConfig {
         if (reportBatchSize < 1 || reportBatchSize > 50) {
             errors.add("batch.report.size must be between 1 and 50, got: " + reportBatchSize);
         }
+        if (reportBatchTargetLatencyMs < 1) {
+            errors.add("batch.report.targetLatencyMs must be positive, got: " + reportBatchTargetLatencyMs);
+        }
+        if (reportBatchMaxBytes < 1024) {
+            errors.add("batch.report.maxBytes must be at least 1024, got: " + reportBatchMaxBytes);
+        }
         if (dbBatchSize < 1 || dbBatchSize > 10000) {
             errors.add("batch.db.size must be between 1 and 10000, got: " + dbBatchSize);
         }
+        if (pipelineFetchQueueCapacity < 1 || pipelineFetchQueueCapacity > 1000) {
+            errors.add("pipeline.fetch.queue.capacity must be between 1 and 1000, got: " + pipelineFetchQueueCapacity);
+        }
+        if (pipelineQueueCapacity < 1 || pipelineQueueCapacity > 10000) {
+            errors.add("pipeline.queue.capacity must be between 1 and 10000, got: " + pipelineQueueCapacity);
+        }
+        if (pipelineTransformThreads < 1 || pipelineTransformThreads > 64) {
+            errors.add("pipeline.transform.threads must be between 1 and 64, got: " + pipelineTransformThreads);
+        }
+        if (pipelineSerializeThreads < 1 || pipelineSerializeThreads > 64) {
+            errors.add("pipeline.serialize.threads must be between 1 and 64, got: " + pipelineSerializeThreads);
+        }
+        if (reportTableParallelism < 1 || reportTableParallelism > dbPoolSize) {
+            errors.add("report.table.parallelism must be between 1 and db.pool.size, got: " + reportTableParallelism);
+        }
+        if (dbReadParallelism < 1 || dbReadParallelism * reportTableParallelism > dbPoolSize) {
+            errors.add("db.read.parallelism must be at least 1 and, times report.table.parallelism, at most db.pool.size, got: "
+                    + dbReadParallelism);
+        }
+        if (dbReadRangesPerReader < 1 || dbReadRangesPerReader > 1000) {
+            errors.add("db.read.rangesPerReader must be between 1 and 1000, got: " + dbReadRangesPerReader);
+        }
+        // Every table of every date may hold db.read.parallelism read connections
+        if (backfillParallelism < 1 || backfillParallelism * reportTableParallelism * dbReadParallelism
+                + BACKFILL_RESERVED_CONNECTIONS > dbPoolSize) {
+            errors.add("backfill.parallelism must be at least 1 and, times report.table.parallelism and db.read.parallelism, "
+                    + "at most db.pool.size - " + BACKFILL_RESERVED_CONNECTIONS + ", got: " + backfillParallelism);
+        }
+        if (httpAsyncIoThreads < 1 || httpAsyncIoThreads > 64) {
+            errors.add("http.async.ioThreads must be between 1 and 64, got: " + httpAsyncIoThreads);
+        }
+        if (httpAsyncMaxConnections < 1 || httpAsyncMaxConnections > 20000) {
+            errors.add("http.async.maxConnections must be between 1 and 20000, got: " + httpAsyncMaxConnections);
+        }
+        // In-flight requests are bounded by the connections the transport can open per route
+        int maxConcurrency = httpTransport == HttpTransport.ASYNC ? httpAsyncMaxConnections : 50;
+        if (reportGlobalConcurrency < 1 || reportGlobalConcurrency > maxConcurrency) {
+            errors.add("report.concurrency.global must be between 1 and " + maxConcurrency + ", got: " + reportGlobalConcurrency);
+        }
+        if (reportConcurrency < 1 || reportConcurrency > maxConcurrency) {
+            errors.add("report.concurrency.default must be between 1 and " + maxConcurrency + ", got: " + reportConcurrency);
+        }
+        for (Map.Entry<String, Integer> entry : reportConcurrencyOverrides.entrySet()) {
+            if (entry.getValue() < 1 || entry.getValue() > maxConcurrency) {
+                errors.add("report.concurrency." + entry.getKey() + " must be between 1 and " + maxConcurrency
+                        + ", got: " + entry.getValue());
+            }
+        }
+        if (httpLimiterMinLimit < 1 || httpLimiterMaxLimit < httpLimiterMinLimit || httpLimiterMaxLimit > maxConcurrency) {
+            errors.add("http.limiter.minLimit and http.limiter.maxLimit must satisfy 1 <= minLimit <= maxLimit <= "
+                    + maxConcurrency + ", got: " + httpLimiterMinLimit + ", " + httpLimiterMaxLimit);
+        }
+        if (httpLimiterInitialLimit < httpLimiterMinLimit || httpLimiterInitialLimit > httpLimiterMaxLimit) {
+            errors.add("http.limiter.initialLimit must be between http.limiter.minLimit and http.limiter.maxLimit, got: "
+                    + httpLimiterInitialLimit);
+        }
+        if (httpLimiterLatencyTolerance <= 1.0) {
+            errors.add("http.limiter.latencyTolerance must be greater than 1, got: " + httpLimiterLatencyTolerance);
+        }
+        if (httpLimiterMaxQueue < 0) {
+            errors.add("http.limiter.maxQueue must not be negative, got: " + httpLimiterMaxQueue);
+        }
+        if (httpCompressionLevel < 1 || httpCompressionLevel > 9) {
+            errors.add("http.compression.level must be between 1 and 9, got: " + httpCompressionLevel);
+        }
+        if (httpCompressionMinBytes < 0) {
+            errors.add("http.compression.minBytes must not be negative, got: " + httpCompressionMinBytes);
+        }
+        if (httpRateLimitSingleQps < 0 || httpRateLimitBatchQps < 0) {
+            errors.add("http.rateLimit.single.qps and http.rateLimit.batch.qps must not be negative, got: "
+                    + httpRateLimitSingleQps + ", " + httpRateLimitBatchQps);
+        }
+        if (httpRateLimitBurst < 1) {
+            errors.add("http.rateLimit.burst must be at least 1, got: " + httpRateLimitBurst);
+        }
         if (maxRetryTimes < 0 || maxRetryTimes > 10) {
             errors.add("retry.max.times must be between 0 and 10, got: " + maxRetryTimes);
         }
+        if (retryIntervalMs < 0) {
+            errors.add("retry.interval.ms must not be negative, got: " + retryIntervalMs);
+        }
+        if (retryMaxIntervalMs < retryIntervalMs) {
+            errors.add("retry.max.interval.ms must be at least retry.interval.ms, got: " + retryMaxIntervalMs);
+        }
+
+        if (spoolSegmentMaxBytes < 1024 * 1024 || spoolSegmentMaxBytes > 1024L * 1024 * 1024) {
+            errors.add("spool.segment.maxBytes must be between 1 MB and 1 GB, got: " + spoolSegmentMaxBytes);
+        }
+        if (spoolFsyncIntervalMs < 10) {
+            errors.add("spool.fsync.intervalMs must be at least 10, got: " + spoolFsyncIntervalMs);
+        }
+        if (checkpointIntervalMs < 100) {
+            errors.add("checkpoint.intervalMs must be at least 100, got: " + checkpointIntervalMs);
+        }
+        if (shardCount < 1 || shardCount > 1024) {
+            errors.add("shard.count must be between 1 and 1024, got: " + shardCount);
+        }
+        if (shardLeaseMs < 5000) {
+            errors.add("shard.leaseMs must be at least 5000, got: " + shardLeaseMs);
+        }
+        if (shardEnabled && !checkpointEnabled) {
+            errors.add("shard.enabled requires checkpoint.enabled, so a taken-over shard resumes instead of starting over");
+        }
+        if (shardEnabled && readMode != ReadMode.KEYSET) {
+            errors.add("shard.enabled requires db.read.mode=KEYSET, got: " + readMode);
+        }
+        if (shardEnabled) {
+            for (String tableName : eventTables) {
+                EventTableConfig tableConfig = EventTableConfig.getByTableName(tableName);
+                if (tableConfig != null && !tableConfig.hasCursorColumn()) {
+                    errors.add("shard.enabled requires cursor.column." + tableName
+                            + ", a numeric column unique within a dt partition");
+                }
+            }
+        }
+        if (shardInstanceId.length() > 100) {
+            errors.add("shard.instanceId must be at most 100 characters, got: " + shardInstanceId);
+        }
+        if (streamPollMinMs < 10) {
+            errors.add("stream.pollMinMs must be at least 10, got: " + streamPollMinMs);
+        }
+        if (streamPollMaxMs < streamPollMinMs) {
+            errors.add("stream.pollMaxMs must be at least stream.pollMinMs, got: " + streamPollMaxMs);
+        }
+        if (statusFlushSize < 1 || statusFlushSize > 100000) {
+            errors.add("status.flush.size must be between 1 and 100000, got: " + statusFlushSize);
+        }
+        if (statusFlushIntervalMs < 10) {
+            errors.add("status.flush.intervalMs must be at least 10, got: " + statusFlushIntervalMs);
+        }
+        if (metricsPort < 1 || metricsPort > 65535) {
+            errors.add("metrics.port must be between 1 and 65535, got: " + metricsPort);
+        }
 
         // Validate timeouts
         if (httpConnectTimeout < 0) {
@@ -1,9 +1,13 @@
 package com.report.config;
 
+import com.report.model.RowSchema;
+
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.regex.Pattern;
 
 /**
  * Event table configuration
@@ -33,6 +37,16 @@ public enum EventTableConfig {
     private final ReportMode defaultReportMode;
     private final boolean hasEtField;  // Whether table has 'et' field for event time
     private final boolean needsReportType;  // Whether to add 'report_type' parameter
+    private final RowSchema rowSchema;  // Column positions of buildSelectFields(), resolved once
+
+    // Default ordering key for keyset queries (must be a numeric, indexed column, unique
+    // within a dt partition: pages continue with cursor > last value, so rows sharing the
+    // boundary value of a page would be skipped). The Hive dt tables have no such column,
+    // so keyset reads are only used for tables with a configured cursor column.
+    public static final String DEFAULT_CURSOR_COLUMN = "id";
+
+    // Plain SQL identifier, used to validate configured cursor columns
+    private static final Pattern COLUMN_NAME_PATTERN = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*");
 
     // Static map for quick lookup by table name
     private static final Map<String, EventTableConfig> TABLE_MAP = new HashMap<>();
@@ -40,6 +54,9 @@ public enum EventTableConfig {
     // Runtime report mode overrides (from configuration file)
     private static final Map<String, ReportMode> REPORT_MODE_OVERRIDES = new HashMap<>();
 
+    // Runtime cursor column overrides (from configuration file)
+    private static final Map<String, String> CURSOR_COLUMN_OVERRIDES = new HashMap<>();
+
     static {
         for (EventTableConfig config : values()) {
             TABLE_MAP.put(config.tableName, config);
@@ -54,6 +71,7 @@ public enum EventTableConfig {
         this.defaultReportMode = defaultReportMode;
         this.hasEtField = hasEtField;
         this.needsReportType = needsReportType;
+        this.rowSchema = new RowSchema(tableName, buildSelectFields(), paramFields);
     }
 
     public String getTableName() {
@@ -96,6 +114,43 @@ public enum EventTableConfig {
         REPORT_MODE_OVERRIDES.clear();
     }
 
+    /**
+     * Get the ordering key used for keyset pagination
+     * Returns override value if set, otherwise returns the default cursor column
+     */
+    public String getCursorColumn() {
+        String override = CURSOR_COLUMN_OVERRIDES.get(tableName);
+        return override != null ? override : DEFAULT_CURSOR_COLUMN;
+    }
+
+    /**
+     * Whether a cursor column is configured for this table, i.e. whether it can be read with keyset pagination
+     */
+    public boolean hasCursorColumn() {
+        return CURSOR_COLUMN_OVERRIDES.containsKey(tableName);
+    }
+
+    /**
+     * Set cursor column override for a table
+     *
+     * @throws IllegalArgumentException if the column name is not a plain SQL identifier
+     */
+    public static void setCursorColumnOverride(String tableName, String column) {
+        if (column == null || !COLUMN_NAME_PATTERN.matcher(column).matches()) {
+            throw new IllegalArgumentException("Invalid cursor column for table " + tableName + ": " + column);
+        }
+        if (TABLE_MAP.containsKey(tableName)) {
+            CURSOR_COLUMN_OVERRIDES.put(tableName, column);
+        }
+    }
+
+    /**
+     * Clear all cursor column overrides
+     */
+    public static void clearCursorColumnOverrides() {
+        CURSOR_COLUMN_OVERRIDES.clear();
+    }
+
     /**
      * Get event name for API reporting
      * For most tables this is the same as table name,
@@ -119,6 +174,13 @@ public enum EventTableConfig {
         return needsReportType;
     }
 
+    /**
+     * Get positional row layout of buildSelectFields()
+     */
+    public RowSchema getRowSchema() {
+        return rowSchema;
+    }
+
     /**
      * Get configuration by table name
      */
@@ -160,12 +222,96 @@ public enum EventTableConfig {
         return sb.toString();
     }
 
+    /**
+     * Build keyset (seek) query SQL for a date partition
+     * Returns: cursor column first, followed by the regular select fields.
+     * Pages on the cursor column so each page is an index range scan instead of
+     * re-reading every earlier row like LIMIT/OFFSET does.
+     * Parameters: dt, last seen cursor value, limit
+     */
+    public String buildKeysetQuery() {
+        return buildKeysetQuery(false, false);
+    }
+
+    /**
+     * Build keyset query SQL for a key range of a date partition, optionally of one shard
+     * A shard keeps only the rows whose user_unique_id hashes to it, so every user's records
+     * stay in one shard and in cursor order; rows without a user id all hash to the same shard.
+     * Parameters: dt, last seen cursor value, [last cursor value of the range,]
+     * [shard count, shard,] limit
+     *
+     * @param bounded Whether the range has an upper key (inclusive)
+     * @param sharded Whether only one shard of the partition is read
+     */
+    public String buildKeysetQuery(boolean bounded, boolean sharded) {
+        String cursorColumn = getCursorColumn();
+        StringBuilder where = new StringBuilder("dt = ? AND ").append(cursorColumn).append(" > ?");
+        if (bounded) {
+            where.append(" AND ").append(cursorColumn).append(" <= ?");
+        }
+        if (sharded) {
+            where.append(" AND CRC32(COALESCE(user_unique_id, '')) % ? = ?");
+        }
+        return String.format(
+                "SELECT %s, %s FROM %s WHERE %s ORDER BY %s LIMIT ?",
+                cursorColumn,
+                buildSelectFields(),
+                tableName,
+                where,
+                cursorColumn
+        );
+    }
+
+    /**
+     * Build SQL for the lowest and highest cursor value of a date partition after a key
+     * Both come off the ends of the (dt, cursor) index range.
+     * Parameters: dt, key to start after
+     */
+    public String buildKeyBoundsQuery() {
+        String cursorColumn = getCursorColumn();
+        return String.format(
+                "SELECT MIN(%s), MAX(%s) FROM %s WHERE dt = ? AND %s > ?",
+                cursorColumn,
+                cursorColumn,
+                tableName,
+                cursorColumn
+        );
+    }
+
+    /**
+     * Build streaming query SQL for a whole date partition
+     * Read once, forward-only, so no ordering or paging is needed
+     * Parameters: dt
+     */
+    public String buildPartitionQuery() {
+        return String.format(
+                "SELECT %s FROM %s WHERE dt = ?",
+                buildSelectFields(),
+                tableName
+        );
+    }
+
     /**
      * Build query SQL for pending records
+     * Returns: id first, followed by the regular select fields.
+     * Parameters: last processed id, limit
      */
     public String buildPendingQuery() {
         return String.format(
-                "SELECT %s FROM %s WHERE id > ? AND report_status = 0 ORDER BY id LIMIT ?",
+                "SELECT id, %s FROM %s WHERE id > ? AND report_status = 0 ORDER BY id LIMIT ?",
+                buildSelectFields(),
+                tableName
+        );
+    }
+
+    /**
+     * Build query SQL for failed records that may be retried
+     * Returns: id first, followed by the regular select fields.
+     * Parameters: last retried id, max retry count (exclusive), limit
+     */
+    public String buildFailedQuery() {
+        return String.format(
+                "SELECT id, %s FROM %s WHERE id > ? AND report_status = 3 AND retry_count < ? ORDER BY id LIMIT ?",
                 buildSelectFields(),
                 tableName
         );
@@ -182,13 +328,25 @@ public enum EventTableConfig {
     }
 
     /**
-     * Build update status SQL
+     * Build update status SQL for a fixed number of ids
+     * Parameters: status, inListSize ids
      */
-    public String buildUpdateStatusQuery() {
+    public String buildUpdateStatusQuery(int inListSize) {
         return String.format(
                 "UPDATE %s SET report_status = ?, updated_at = NOW() WHERE id IN (%s)",
                 tableName,
-                "%s" // placeholder for IN clause
+                String.join(",", Collections.nCopies(inListSize, "?"))
+        );
+    }
+
+    /**
+     * Build SQL marking one record failed, counting the attempt towards retry_count
+     * Parameters: status, error message, id
+     */
+    public String buildMarkFailedQuery() {
+        return String.format(
+                "UPDATE %s SET report_status = ?, error_msg = ?, retry_count = retry_count + 1, updated_at = NOW() WHERE id = ?",
+                tableName
         );
     }
 }
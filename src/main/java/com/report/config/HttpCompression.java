@@ -0,0 +1,49 @@
+package com.report.config;
+
+/**
+ * Content-Encoding applied to report request bodies
+ */
+public enum HttpCompression {
+    /**
+     * Bodies are sent as plain JSON
+     */
+    NONE(null),
+
+    /**
+     * gzip (RFC 1952)
+     */
+    GZIP("gzip"),
+
+    /**
+     * zlib-wrapped deflate (RFC 1950), as HTTP defines "deflate"
+     */
+    DEFLATE("deflate");
+
+    private final String contentEncoding;
+
+    HttpCompression(String contentEncoding) {
+        this.contentEncoding = contentEncoding;
+    }
+
+    /**
+     * Value of the Content-Encoding header; null for NONE
+     */
+    public String getContentEncoding() {
+        return contentEncoding;
+    }
+
+    /**
+     * Parse compression from string
+     */
+    public static HttpCompression fromString(String compression) {
+        if (compression == null || compression.trim().isEmpty()) {
+            return NONE; // default
+        }
+
+        try {
+            return valueOf(compression.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return NONE; // default on parse error
+        }
+    }
+}
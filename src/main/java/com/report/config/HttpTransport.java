@@ -0,0 +1,31 @@
+package com.report.config;
+
+/**
+ * HTTP transport used for Volcano API requests
+ */
+public enum HttpTransport {
+    /**
+     * Pooled blocking client; every in-flight request occupies a thread
+     */
+    BLOCKING,
+
+    /**
+     * Non-blocking client on a few I/O reactor threads; in-flight requests hold no thread
+     */
+    ASYNC;
+
+    /**
+     * Parse transport from string
+     */
+    public static HttpTransport fromString(String transport) {
+        if (transport == null || transport.trim().isEmpty()) {
+            return BLOCKING; // default
+        }
+
+        try {
+            return valueOf(transport.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return BLOCKING; // default on parse error
+        }
+    }
+}
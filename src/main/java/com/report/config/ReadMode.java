@@ -0,0 +1,39 @@
+package com.report.config;
+
+/**
+ * Read mode for date partitions
+ */
+public enum ReadMode {
+    /**
+     * Seek pagination on the table's cursor column (WHERE key > ? ORDER BY key LIMIT ?)
+     * Every page is an index range scan, so page latency stays flat deep into a partition
+     */
+    KEYSET,
+
+    /**
+     * Single forward-only, read-only statement per table/dt with driver-side row streaming
+     * Drains the whole partition over one connection with constant heap use
+     */
+    STREAM,
+
+    /**
+     * Legacy LIMIT/OFFSET pagination
+     * Each page re-scans all earlier rows; only for tables without a usable ordering key
+     */
+    OFFSET;
+
+    /**
+     * Parse read mode from string
+     */
+    public static ReadMode fromString(String mode) {
+        if (mode == null || mode.trim().isEmpty()) {
+            return KEYSET; // default
+        }
+
+        try {
+            return valueOf(mode.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return KEYSET; // default on parse error
+        }
+    }
+}
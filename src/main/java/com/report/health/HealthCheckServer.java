@@ -19,6 +19,8 @@ import java.nio.charset.StandardCharsets;
 public class HealthCheckServer {
     private static final Logger logger = LoggerFactory.getLogger(HealthCheckServer.class);
     private static final int DEFAULT_PORT = 8080;
+    static final String PROMETHEUS_CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    static final String OPENMETRICS_CONTENT_TYPE = "application/openmetrics-text; version=1.0.0; charset=utf-8";
 
     private HttpServer server;
     private final int port;
@@ -106,15 +108,16 @@ public class HealthCheckServer {
 
     /**
      * Metrics endpoint handler
-     * Returns current metrics in plain text format
+     * Returns every meter in the Prometheus text format, or in OpenMetrics when the scraper asks for it
      */
     private static class MetricsHandler implements HttpHandler {
         @Override
         public void handle(HttpExchange exchange) throws IOException {
             try {
-                MetricsService metrics = MetricsService.getInstance();
-                String response = metrics.getMetricsSummary();
-                sendTextResponse(exchange, 200, response);
+                String contentType = metricsContentType(exchange.getRequestHeaders().getFirst("Accept"));
+                String response = MetricsService.getInstance().scrape(contentType);
+                exchange.getResponseHeaders().set("Content-Type", contentType);
+                sendResponse(exchange, 200, response);
             } catch (Exception e) {
                 logger.error("Failed to get metrics", e);
                 String response = "Error retrieving metrics: " + e.getMessage();
@@ -123,6 +126,16 @@ public class HealthCheckServer {
         }
     }
 
+    /**
+     * Exposition format for a scrape's Accept header: OpenMetrics if listed, otherwise the Prometheus text format
+     */
+    static String metricsContentType(String accept) {
+        if (accept != null && accept.contains("application/openmetrics-text")) {
+            return OPENMETRICS_CONTENT_TYPE;
+        }
+        return PROMETHEUS_CONTENT_TYPE;
+    }
+
     /**
      * Send JSON response
      */
@@ -0,0 +1,100 @@
+package com.report.model;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compact positional event row
+ * Holds user_unique_id and et as typed fields and param values by param position,
+ * as laid out by the table's {@link RowSchema}. Replaces a per-row HashMap keyed by column name.
+ */
+public final class EventRow {
+    private final RowSchema schema;
+    private final long key;
+    private final String userUniqueId;
+    private final long et;
+    private final boolean etPresent;
+    private final Object[] params;
+
+    /**
+     * @param schema       Table row schema
+     * @param key          Cursor value of the row (0 when not read)
+     * @param userUniqueId User unique ID
+     * @param et           Event time in ms (ignored if etPresent is false)
+     * @param etPresent    Whether et was read and not null
+     * @param params       Param values, indexed like schema params
+     */
+    public EventRow(RowSchema schema, long key, String userUniqueId, long et, boolean etPresent, Object[] params) {
+        this.schema = schema;
+        this.key = key;
+        this.userUniqueId = userUniqueId;
+        this.et = et;
+        this.etPresent = etPresent;
+        this.params = params;
+    }
+
+    public RowSchema getSchema() {
+        return schema;
+    }
+
+    /**
+     * Cursor value of the row
+     */
+    public long getKey() {
+        return key;
+    }
+
+    public String getUserUniqueId() {
+        return userUniqueId;
+    }
+
+    /**
+     * Whether the row has a non-null et value
+     */
+    public boolean hasEt() {
+        return etPresent;
+    }
+
+    /**
+     * Event time in ms, only meaningful when {@link #hasEt()} is true
+     */
+    public long getEt() {
+        return et;
+    }
+
+    /**
+     * Param value by param position (see RowSchema.getParamName)
+     */
+    public Object getParam(int param) {
+        return params[param];
+    }
+
+    public int getParamCount() {
+        return params.length;
+    }
+
+    /**
+     * Build a column-name keyed view of this row
+     * Allocates; only meant for logging and diagnostics
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put(RowSchema.USER_UNIQUE_ID_COLUMN, userUniqueId);
+        if (schema.hasEt()) {
+            map.put(RowSchema.ET_COLUMN, etPresent ? et : null);
+        }
+        for (int i = 0; i < params.length; i++) {
+            map.put(schema.getParamName(i), params[i]);
+        }
+        return map;
+    }
+
+    @Override
+    public String toString() {
+        return "EventRow{" +
+                "table='" + schema.getTableName() + '\'' +
+                ", key=" + key +
+                ", params=" + params.length +
+                '}';
+    }
+}
@@ -0,0 +1,93 @@
+package com.report.model;
+
+import com.report.util.PooledBuffer;
+
+import java.util.List;
+
+/**
+ * A unit of work handed between report pipeline stages
+ * Rows bound for one API request. The serialize stage writes the request body
+ * into a pooled buffer; the send stage posts it and releases the buffer once the
+ * batch has been accounted for.
+ */
+public class ReportBatch {
+    private final String tableName;
+    private final String dt;
+    private final String endpoint;
+    private final List<EventRow> rows;
+    private final int attempt;
+    private PooledBuffer body;
+
+    /**
+     * @param rows Source rows, one event each
+     */
+    public ReportBatch(String tableName, String dt, String endpoint, List<EventRow> rows) {
+        this(tableName, dt, endpoint, rows, 1);
+    }
+
+    /**
+     * @param rows    Source rows, one event each
+     * @param attempt Send attempt this batch is made for, starting at 1; retries re-pack
+     *                failed rows into new batches with a higher attempt
+     */
+    public ReportBatch(String tableName, String dt, String endpoint, List<EventRow> rows, int attempt) {
+        this.tableName = tableName;
+        this.dt = dt;
+        this.endpoint = endpoint;
+        this.rows = rows;
+        this.attempt = attempt;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public String getDt() {
+        return dt;
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public List<EventRow> getRows() {
+        return rows;
+    }
+
+    public int size() {
+        return rows.size();
+    }
+
+    public int getAttempt() {
+        return attempt;
+    }
+
+    public PooledBuffer getBody() {
+        return body;
+    }
+
+    public void setBody(PooledBuffer body) {
+        this.body = body;
+    }
+
+    /**
+     * Return the request body buffer to the pool
+     */
+    public void releaseBody() {
+        if (body != null) {
+            body.release();
+            body = null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ReportBatch{" +
+                "tableName='" + tableName + '\'' +
+                ", dt='" + dt + '\'' +
+                ", endpoint='" + endpoint + '\'' +
+                ", size=" + rows.size() +
+                ", attempt=" + attempt +
+                '}';
+    }
+}
@@ -1,5 +1,6 @@
 package com.report.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 /**
@@ -31,6 +32,10 @@ public class ReportResult {
     // Error message for failed requests
     private String errorMessage;
 
+    // Time the request took, not counting waits for a send slot
+    @JsonIgnore
+    private long latencyNanos;
+
     public ReportResult() {
     }
 
@@ -115,6 +120,14 @@ public class ReportResult {
         this.errorMessage = errorMessage;
     }
 
+    public long getLatencyNanos() {
+        return latencyNanos;
+    }
+
+    public void setLatencyNanos(long latencyNanos) {
+        this.latencyNanos = latencyNanos;
+    }
+
     @Override
     public String toString() {
         return "ReportResult{" +
@@ -0,0 +1,99 @@
+package com.report.model;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Column layout of an event table's select list
+ * Resolved once per table so rows can be read and consumed by position
+ * instead of by column name
+ */
+public class RowSchema {
+    public static final String USER_UNIQUE_ID_COLUMN = "user_unique_id";
+    public static final String ET_COLUMN = "et";
+
+    private final String tableName;
+    private final List<String> columns;
+    private final int userUniqueIdIndex;
+    private final int etIndex;
+    private final String[] paramNames;
+    private final int[] paramIndexes;
+
+    /**
+     * @param tableName    Table name
+     * @param selectFields Comma separated select list (see EventTableConfig.buildSelectFields())
+     * @param paramFields  Param fields in params JSON order
+     */
+    public RowSchema(String tableName, String selectFields, List<String> paramFields) {
+        this.tableName = tableName;
+        String[] parsed = selectFields.split(",");
+        for (int i = 0; i < parsed.length; i++) {
+            parsed[i] = parsed[i].trim();
+        }
+        this.columns = Collections.unmodifiableList(Arrays.asList(parsed));
+
+        this.userUniqueIdIndex = columns.indexOf(USER_UNIQUE_ID_COLUMN);
+        if (userUniqueIdIndex < 0) {
+            throw new IllegalArgumentException("Select list of " + tableName + " has no " + USER_UNIQUE_ID_COLUMN);
+        }
+        this.etIndex = columns.indexOf(ET_COLUMN);
+
+        this.paramNames = paramFields.toArray(new String[0]);
+        this.paramIndexes = new int[paramNames.length];
+        for (int i = 0; i < paramNames.length; i++) {
+            paramIndexes[i] = columns.indexOf(paramNames[i]);
+            if (paramIndexes[i] < 0) {
+                throw new IllegalArgumentException("Select list of " + tableName + " has no " + paramNames[i]);
+            }
+        }
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    /**
+     * Column names in select order
+     */
+    public List<String> getColumns() {
+        return columns;
+    }
+
+    public int getColumnCount() {
+        return columns.size();
+    }
+
+    /**
+     * 0-based position of user_unique_id in the select list
+     */
+    public int getUserUniqueIdIndex() {
+        return userUniqueIdIndex;
+    }
+
+    /**
+     * 0-based position of et in the select list, or -1 if the table has no et field
+     */
+    public int getEtIndex() {
+        return etIndex;
+    }
+
+    public boolean hasEt() {
+        return etIndex >= 0;
+    }
+
+    public int getParamCount() {
+        return paramNames.length;
+    }
+
+    public String getParamName(int param) {
+        return paramNames[param];
+    }
+
+    /**
+     * 0-based position of a param field in the select list
+     */
+    public int getParamIndex(int param) {
+        return paramIndexes[param];
+    }
+}
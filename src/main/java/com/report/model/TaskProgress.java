@@ -0,0 +1,97 @@
+package com.report.model;
+
+/**
+ * Checkpoint of one table and date partition, stored in task_progress
+ * lastProcessedId is the keyset cursor up to which every row has been reported or
+ * accounted as failed; the counts add up over every run of the task.
+ */
+public class TaskProgress {
+    private final String taskId;
+    private final String tableName;
+    private final String taskType;
+    private TaskStatus status;
+    private long lastProcessedId;
+    private long processedCount;
+    private long successCount;
+    private long failCount;
+    private String errorMsg;
+
+    public TaskProgress(String taskId, String tableName, String taskType) {
+        this.taskId = taskId;
+        this.tableName = tableName;
+        this.taskType = taskType;
+        this.status = TaskStatus.PENDING;
+    }
+
+    public String getTaskId() {
+        return taskId;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public String getTaskType() {
+        return taskType;
+    }
+
+    public TaskStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(TaskStatus status) {
+        this.status = status;
+    }
+
+    public long getLastProcessedId() {
+        return lastProcessedId;
+    }
+
+    public void setLastProcessedId(long lastProcessedId) {
+        this.lastProcessedId = lastProcessedId;
+    }
+
+    public long getProcessedCount() {
+        return processedCount;
+    }
+
+    public void setProcessedCount(long processedCount) {
+        this.processedCount = processedCount;
+    }
+
+    public long getSuccessCount() {
+        return successCount;
+    }
+
+    public void setSuccessCount(long successCount) {
+        this.successCount = successCount;
+    }
+
+    public long getFailCount() {
+        return failCount;
+    }
+
+    public void setFailCount(long failCount) {
+        this.failCount = failCount;
+    }
+
+    public String getErrorMsg() {
+        return errorMsg;
+    }
+
+    public void setErrorMsg(String errorMsg) {
+        this.errorMsg = errorMsg;
+    }
+
+    @Override
+    public String toString() {
+        return "TaskProgress{" +
+                "taskId='" + taskId + '\'' +
+                ", status=" + status +
+                ", lastProcessedId=" + lastProcessedId +
+                ", processedCount=" + processedCount +
+                ", successCount=" + successCount +
+                ", failCount=" + failCount +
+                '}';
+    }
+}
@@ -0,0 +1,43 @@
+package com.report.model;
+
+/**
+ * Status of a task_progress row
+ */
+public enum TaskStatus {
+    PENDING(0, "Pending"),
+    RUNNING(1, "Running"),
+    COMPLETED(2, "Completed"),
+    FAILED(3, "Failed");
+
+    private final int code;
+    private final String description;
+
+    TaskStatus(int code, String description) {
+        this.code = code;
+        this.description = description;
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * Get TaskStatus from code
+     *
+     * @param code Status code
+     * @return TaskStatus
+     * @throws IllegalArgumentException if code is invalid
+     */
+    public static TaskStatus fromCode(int code) {
+        for (TaskStatus status : values()) {
+            if (status.code == code) {
+                return status;
+            }
+        }
+        throw new IllegalArgumentException("Unknown task status code: " + code);
+    }
+}
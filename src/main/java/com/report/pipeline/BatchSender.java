@@ -0,0 +1,108 @@
+package com.report.pipeline;
+
+import com.report.model.ReportBatch;
+import com.report.service.MetricsService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Keeps up to N report batches of one table in flight at once
+ * submit() blocks while all N slots of the table, or all slots of the global
+ * send budget shared by every table, are busy, so the send stage never runs ahead
+ * of what the API is accepting. Each batch is sent, retried and accounted for
+ * independently by the send function; a slot is held until its future completes,
+ * not by a thread, so in-flight requests are only bounded by the permits.
+ */
+public class BatchSender implements ReportSender {
+    private static final Logger logger = LoggerFactory.getLogger(BatchSender.class);
+
+    private final String tableName;
+    private final int maxInFlight;
+    private final Semaphore permits;
+    private final Semaphore globalPermits;
+    private final Function<ReportBatch, CompletableFuture<Void>> sendFunction;
+    private final AtomicInteger inFlight;
+
+    /**
+     * @param tableName    Table being sent (used for thread names and metrics)
+     * @param maxInFlight   Maximum number of batches of this table in flight at once
+     * @param globalPermits Send budget shared with the other tables being processed
+     * @param sendFunction  Starts sending one batch with retry; the future completes once
+     *                      the outcome has been accounted for
+     */
+    public BatchSender(String tableName, int maxInFlight, Semaphore globalPermits,
+                       Function<ReportBatch, CompletableFuture<Void>> sendFunction) {
+        this.tableName = tableName;
+        this.maxInFlight = maxInFlight;
+        this.permits = new Semaphore(maxInFlight);
+        this.globalPermits = globalPermits;
+        this.sendFunction = sendFunction;
+        this.inFlight = MetricsService.getInstance().senderInFlight(tableName);
+    }
+
+    /**
+     * Start sending a batch, blocking while maxInFlight batches are already in flight
+     */
+    @Override
+    public void submit(ReportBatch batch) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a send slot for table " + tableName, e);
+        }
+        try {
+            globalPermits.acquire();
+        } catch (InterruptedException e) {
+            permits.release();
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a global send slot for table " + tableName, e);
+        }
+
+        inFlight.incrementAndGet();
+        try {
+            sendFunction.apply(batch).whenComplete((result, error) -> {
+                if (error != null) {
+                    logger.error("Unexpected error sending batch for table {}: {}", tableName, error.getMessage(), error);
+                }
+                release();
+            });
+        } catch (Exception e) {
+            logger.error("Unexpected error sending batch for table {}: {}", tableName, e.getMessage(), e);
+            release();
+        }
+    }
+
+    private void release() {
+        inFlight.decrementAndGet();
+        globalPermits.release();
+        permits.release();
+    }
+
+    @Override
+    public void close() {
+        try {
+            permits.acquire(maxInFlight);
+            permits.release(maxInFlight);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for in-flight batches of table " + tableName, e);
+        }
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    /**
+     * Number of batches currently in flight
+     */
+    public int getInFlight() {
+        return maxInFlight - permits.availablePermits();
+    }
+}
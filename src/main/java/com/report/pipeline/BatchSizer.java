@@ -0,0 +1,146 @@
+package com.report.pipeline;
+
+import com.report.config.AppConfig;
+import com.report.config.ReportMode;
+import com.report.service.MetricsService;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Picks the number of rows per report batch of one table from what the API is doing
+ * Keeps rolling averages of request latency and of serialized bytes per row. Each
+ * successful request moves the size by targetLatency / averageLatency, bounded to 10% per
+ * request, so the size grows while requests come back faster than the target and shrinks
+ * once they get slower. A throttled (429) or failed (5xx) request, often answered fast,
+ * shrinks the size by 10% instead of counting as a fast sample. On top of that a batch never
+ * exceeds maxBytes at the current bytes per row, so wide rows get smaller batches than
+ * narrow ones, and a request rejected as too large (413) halves the size. The size always stays between 1 and the API maximum of 50.
+ * <p>
+ * A fixed sizer, for SINGLE mode or with batch.report.adaptive off, always returns its
+ * initial size and ignores what it is told. Thread-safe.
+ */
+public class BatchSizer {
+    /**
+     * Most events the list endpoint takes in one request
+     */
+    public static final int API_MAX_BATCH_SIZE = 50;
+
+    private static final double MAX_STEP = 0.1;
+    // Weight of a new sample in the rolling averages
+    private static final double SAMPLE_WEIGHT = 0.2;
+
+    private final boolean adaptive;
+    private final long targetLatencyNanos;
+    private final int maxBytes;
+    private final AtomicInteger gauge;
+
+    private double size;            // guarded by this
+    private double latencyNanos;    // guarded by this
+    private double bytesPerRow;     // guarded by this
+
+    /**
+     * @param initialSize     Rows per batch to start with
+     * @param adaptive        false to keep initialSize for good
+     * @param targetLatencyMs Request latency the size is steered towards
+     * @param maxBytes        Largest request body a batch should produce
+     * @param gauge           Updated with the current size
+     */
+    public BatchSizer(int initialSize, boolean adaptive, long targetLatencyMs, int maxBytes, AtomicInteger gauge) {
+        this.size = clamp(initialSize);
+        this.adaptive = adaptive;
+        this.targetLatencyNanos = TimeUnit.MILLISECONDS.toNanos(targetLatencyMs);
+        this.maxBytes = maxBytes;
+        this.gauge = gauge;
+        gauge.set((int) size);
+    }
+
+    /**
+     * Build the sizer of a table from batch.report.* configuration
+     * SINGLE mode tables send one record per request, so their size is fixed at 1.
+     */
+    public static BatchSizer from(AppConfig config, String tableName, ReportMode reportMode) {
+        AtomicInteger gauge = MetricsService.getInstance().batchSize(tableName);
+        if (reportMode == ReportMode.SINGLE) {
+            return new BatchSizer(1, false, config.getReportBatchTargetLatencyMs(), config.getReportBatchMaxBytes(), gauge);
+        }
+        return new BatchSizer(config.getReportBatchSize(), config.isReportBatchAdaptive(),
+                config.getReportBatchTargetLatencyMs(), config.getReportBatchMaxBytes(), gauge);
+    }
+
+    /**
+     * Rows to put in the next batch
+     */
+    public synchronized int size() {
+        int rows = (int) size;
+        if (adaptive && bytesPerRow > 0) {
+            rows = Math.min(rows, (int) (maxBytes / bytesPerRow));
+        }
+        return Math.max(1, rows);
+    }
+
+    /**
+     * Feed in a request the API accepted (HTTP 2xx)
+     *
+     * @param rows         Rows in the batch
+     * @param bodyBytes    Size of its request body
+     * @param latencyNanos Time the request took
+     */
+    public synchronized void onResponse(int rows, int bodyBytes, long latencyNanos) {
+        if (!adaptive || rows == 0) {
+            return;
+        }
+        double rowBytes = (double) bodyBytes / rows;
+        bytesPerRow = bytesPerRow == 0 ? rowBytes : bytesPerRow + (rowBytes - bytesPerRow) * SAMPLE_WEIGHT;
+        this.latencyNanos = this.latencyNanos == 0
+                ? latencyNanos
+                : this.latencyNanos + (latencyNanos - this.latencyNanos) * SAMPLE_WEIGHT;
+
+        double ratio = this.latencyNanos > 0 ? targetLatencyNanos / this.latencyNanos : 1 + MAX_STEP;
+        size = clamp(size * Math.max(1 - MAX_STEP, Math.min(1 + MAX_STEP, ratio)));
+        gauge.set(size());
+    }
+
+    /**
+     * Feed in a request the API throttled or failed (HTTP 429 or 5xx)
+     * Shrinks the size by one step; the latency average is left alone.
+     */
+    public synchronized void onOverloaded() {
+        if (!adaptive) {
+            return;
+        }
+        size = clamp(size * (1 - MAX_STEP));
+        gauge.set(size());
+    }
+
+    /**
+     * Feed in a request the API rejected as too large (HTTP 413)
+     *
+     * @param rows Rows in the rejected batch
+     */
+    public synchronized void onTooLarge(int rows) {
+        if (!adaptive) {
+            return;
+        }
+        size = clamp(Math.min(size, rows) / 2);
+        gauge.set(size());
+    }
+
+    public boolean isAdaptive() {
+        return adaptive;
+    }
+
+    private static double clamp(double size) {
+        return Math.max(1, Math.min(API_MAX_BATCH_SIZE, size));
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "BatchSizer{" +
+                "size=" + size() +
+                ", adaptive=" + adaptive +
+                ", targetLatencyMs=" + TimeUnit.NANOSECONDS.toMillis(targetLatencyNanos) +
+                ", maxBytes=" + maxBytes +
+                '}';
+    }
+}
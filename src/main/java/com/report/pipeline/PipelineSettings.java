@@ -0,0 +1,90 @@
+package com.report.pipeline;
+
+import com.report.config.AppConfig;
+import com.report.config.ReportMode;
+
+/**
+ * Parallelism and queue sizes for one report pipeline run
+ */
+public class PipelineSettings {
+    private final int fetchQueueCapacity;
+    private final int queueCapacity;
+    private final int transformThreads;
+    private final int serializeThreads;
+    private final int maxInFlight;
+    private final boolean orderedByUser;
+
+    public PipelineSettings(int fetchQueueCapacity, int queueCapacity,
+                            int transformThreads, int serializeThreads, int maxInFlight,
+                            boolean orderedByUser) {
+        this.fetchQueueCapacity = fetchQueueCapacity;
+        this.queueCapacity = queueCapacity;
+        this.transformThreads = transformThreads;
+        this.serializeThreads = serializeThreads;
+        this.maxInFlight = maxInFlight;
+        this.orderedByUser = orderedByUser;
+    }
+
+    /**
+     * Build settings for a table from configuration
+     * SINGLE mode tables run transform and serialize with one worker, so records reach the
+     * send stage in read order, and send them on per-user lanes so records of one user stay ordered.
+     */
+    public static PipelineSettings from(AppConfig config, String tableName, ReportMode reportMode) {
+        if (reportMode == ReportMode.SINGLE) {
+            return new PipelineSettings(config.getPipelineFetchQueueCapacity(), config.getPipelineQueueCapacity(),
+                    1, 1, config.getReportConcurrency(tableName), true);
+        }
+        return new PipelineSettings(config.getPipelineFetchQueueCapacity(), config.getPipelineQueueCapacity(),
+                config.getPipelineTransformThreads(), config.getPipelineSerializeThreads(),
+                config.getReportConcurrency(tableName), false);
+    }
+
+    /**
+     * Capacity of the fetch -> transform queue, in pages of rows
+     */
+    public int getFetchQueueCapacity() {
+        return fetchQueueCapacity;
+    }
+
+    /**
+     * Capacity of the transform -> serialize and serialize -> send queues, in batches
+     */
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public int getTransformThreads() {
+        return transformThreads;
+    }
+
+    public int getSerializeThreads() {
+        return serializeThreads;
+    }
+
+    /**
+     * Maximum number of report requests in flight for the table
+     */
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    /**
+     * Whether records of the same user_unique_id must be sent in order (SINGLE mode)
+     */
+    public boolean isOrderedByUser() {
+        return orderedByUser;
+    }
+
+    @Override
+    public String toString() {
+        return "PipelineSettings{" +
+                "fetchQueueCapacity=" + fetchQueueCapacity +
+                ", queueCapacity=" + queueCapacity +
+                ", transformThreads=" + transformThreads +
+                ", serializeThreads=" + serializeThreads +
+                ", maxInFlight=" + maxInFlight +
+                ", orderedByUser=" + orderedByUser +
+                '}';
+    }
+}
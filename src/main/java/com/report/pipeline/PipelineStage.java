@@ -0,0 +1,154 @@
+package com.report.pipeline;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * One stage of a report pipeline
+ * A bounded hand-off queue drained by a fixed number of worker threads.
+ * put() blocks while the queue is full, which is how backpressure reaches upstream stages.
+ *
+ * @param <T> Item type accepted by this stage
+ */
+public class PipelineStage<T> {
+    private static final Logger logger = LoggerFactory.getLogger(PipelineStage.class);
+
+    // End-of-stream marker, one per worker
+    private static final Object END = new Object();
+
+    private final String name;
+    private final String threadPrefix;
+    private final int parallelism;
+    private final BlockingQueue<Object> queue;
+    private final Consumer<T> handler;
+    private final AtomicInteger depthGauge;
+    private final List<Thread> workers = new ArrayList<>();
+
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicInteger maxDepth = new AtomicInteger();
+
+    /**
+     * @param name         Stage name (transform, serialize, send)
+     * @param threadPrefix Worker thread name prefix
+     * @param parallelism  Number of worker threads
+     * @param capacity     Hand-off queue capacity, or 0 for an unbounded queue whose put() never blocks
+     * @param handler      Work done for every item, called concurrently from worker threads
+     * @param depthGauge   Gauge updated with the current queue depth
+     */
+    public PipelineStage(String name, String threadPrefix, int parallelism, int capacity,
+                         Consumer<T> handler, AtomicInteger depthGauge) {
+        this.name = name;
+        this.threadPrefix = threadPrefix;
+        this.parallelism = parallelism;
+        this.queue = capacity > 0 ? new ArrayBlockingQueue<>(capacity) : new LinkedBlockingQueue<>();
+        this.handler = handler;
+        this.depthGauge = depthGauge;
+    }
+
+    /**
+     * Start worker threads
+     */
+    public void start() {
+        for (int i = 0; i < parallelism; i++) {
+            Thread worker = new Thread(this::work, threadPrefix + "-" + name + "-" + i);
+            worker.setDaemon(true);
+            workers.add(worker);
+            worker.start();
+        }
+    }
+
+    /**
+     * Hand an item to this stage, blocking while the queue is full
+     */
+    public void put(T item) {
+        try {
+            queue.put(item);
+            updateDepth();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while handing off to stage " + name, e);
+        }
+    }
+
+    /**
+     * Signal end of input and wait until every queued item has been handled
+     * Must only be called once all puts are done; workers keep draining while the end markers queue up
+     */
+    public void finish() {
+        try {
+            for (int i = 0; i < workers.size(); i++) {
+                queue.put(END);
+            }
+            for (Thread worker : workers) {
+                worker.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while finishing stage " + name, e);
+        }
+        depthGauge.set(0);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void work() {
+        while (true) {
+            Object item;
+            try {
+                item = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                logger.warn("Stage {} worker interrupted", name);
+                return;
+            }
+            updateDepth();
+
+            if (item == END) {
+                return;
+            }
+
+            try {
+                handler.accept((T) item);
+                processed.incrementAndGet();
+            } catch (Exception e) {
+                errors.incrementAndGet();
+                logger.error("Stage {} failed to handle item: {}", name, e.getMessage(), e);
+            }
+        }
+    }
+
+    private void updateDepth() {
+        int depth = queue.size();
+        depthGauge.set(depth);
+        maxDepth.accumulateAndGet(depth, Math::max);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public long getProcessed() {
+        return processed.get();
+    }
+
+    public long getErrors() {
+        return errors.get();
+    }
+
+    public int getMaxDepth() {
+        return maxDepth.get();
+    }
+}
@@ -0,0 +1,57 @@
+package com.report.pipeline;
+
+import com.report.config.AppConfig;
+
+/**
+ * How long a streamed table waits before it is polled for pending records again
+ * A full page means there is a backlog, so the next poll follows right away; any other
+ * non-empty page resets the delay to minMs. Empty polls double the delay up to maxMs,
+ * so an idle table costs a query every maxMs while new records still go out within minMs
+ * of the first poll that finds them. A failed poll waits maxMs.
+ * Used by one poller at a time, not thread-safe.
+ */
+public class PollInterval {
+    private final long minMs;
+    private final long maxMs;
+    private long idleMs;
+
+    /**
+     * @param minMs Delay after a poll that found records, and after the first empty one
+     * @param maxMs Upper bound of the delay
+     */
+    public PollInterval(long minMs, long maxMs) {
+        this.minMs = minMs;
+        this.maxMs = Math.max(minMs, maxMs);
+        this.idleMs = minMs;
+    }
+
+    /**
+     * Build the interval from stream.pollMinMs and stream.pollMaxMs
+     */
+    public static PollInterval from(AppConfig config) {
+        return new PollInterval(config.getStreamPollMinMs(), config.getStreamPollMaxMs());
+    }
+
+    /**
+     * Delay before the next poll, after a poll that fetched the given number of records
+     *
+     * @param limit Page size the poll asked for
+     */
+    public long next(int fetched, int limit) {
+        if (fetched > 0) {
+            idleMs = minMs;
+            return fetched >= limit ? 0 : minMs;
+        }
+        long delay = idleMs;
+        idleMs = Math.min(idleMs * 2, maxMs);
+        return delay;
+    }
+
+    /**
+     * Delay before the next poll, after a poll that failed
+     */
+    public long failed() {
+        idleMs = maxMs;
+        return maxMs;
+    }
+}
@@ -0,0 +1,140 @@
+package com.report.pipeline;
+
+import com.report.model.EventRow;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Low watermark of a keyset read whose rows complete out of order
+ * Pages are registered with their last cursor value before their rows are handed on; rows
+ * are resolved once reported or accounted as failed, in any order, across batches and
+ * retries. The watermark is the highest key up to which every row has been read and
+ * resolved, so a read resumed after it neither skips nor re-sends a row.
+ * <p>
+ * A single read registers its pages in key order. Key ranges read side by side are started
+ * with their start key and register their pages against the range; keys a range has not
+ * read yet hold the watermark back until the range is finished.
+ */
+public class ProgressTracker {
+    // Pages with unresolved rows, by the page's last key
+    private final TreeMap<Long, Page> pending = new TreeMap<>();
+    // Last key read so far by every unfinished range
+    private final Map<Object, Long> frontiers = new HashMap<>();
+    // Last key of the single, ordered read
+    private long lastRead;
+    private long highest;
+    private long resolved;
+
+    /**
+     * @param startKey Cursor the read starts after
+     */
+    public ProgressTracker(long startKey) {
+        this.lastRead = startKey;
+        this.highest = startKey;
+    }
+
+    /**
+     * Register a page of the single, ordered read before its rows are handed on
+     */
+    public synchronized void pageRead(long lastKey, int rows) {
+        register(lastRead, lastKey, rows);
+        lastRead = lastKey;
+    }
+
+    /**
+     * Start a key range read alongside others, before any of its pages is read
+     *
+     * @param afterKey Key the range starts after
+     */
+    public synchronized void rangeStarted(Object range, long afterKey) {
+        frontiers.put(range, afterKey);
+    }
+
+    /**
+     * Register a page of a key range before its rows are handed on
+     */
+    public synchronized void pageRead(Object range, long lastKey, int rows) {
+        Long frontier = frontiers.get(range);
+        if (frontier == null) {
+            throw new IllegalStateException("Range not started: " + range);
+        }
+        register(frontier, lastKey, rows);
+        frontiers.put(range, lastKey);
+    }
+
+    /**
+     * A key range has been read to its end
+     */
+    public synchronized void rangeFinished(Object range) {
+        frontiers.remove(range);
+    }
+
+    private void register(long afterKey, long lastKey, int rows) {
+        if (rows > 0) {
+            pending.put(lastKey, new Page(afterKey, rows));
+            highest = Math.max(highest, lastKey);
+        }
+    }
+
+    public synchronized void resolved(EventRow row) {
+        resolve(row.getKey());
+    }
+
+    public synchronized void resolved(List<EventRow> rows) {
+        for (EventRow row : rows) {
+            resolve(row.getKey());
+        }
+    }
+
+    private void resolve(long key) {
+        // A row belongs to the first page whose last key is not below its own
+        Map.Entry<Long, Page> entry = pending.ceilingEntry(key);
+        if (entry != null && entry.getValue().afterKey < key) {
+            resolved++;
+            if (--entry.getValue().unresolved == 0) {
+                pending.remove(entry.getKey());
+            }
+        }
+    }
+
+    /**
+     * Cursor up to which every row has been read and resolved
+     */
+    public synchronized long getWatermark() {
+        long watermark = highest;
+        if (!pending.isEmpty()) {
+            watermark = Math.min(watermark, pending.firstEntry().getValue().afterKey);
+        }
+        for (long frontier : frontiers.values()) {
+            watermark = Math.min(watermark, frontier);
+        }
+        return watermark;
+    }
+
+    /**
+     * Rows resolved so far
+     */
+    public synchronized long getResolved() {
+        return resolved;
+    }
+
+    /**
+     * Whether some row read has not been resolved yet, or some range not read to its end
+     */
+    public synchronized boolean hasPending() {
+        return !pending.isEmpty() || !frontiers.isEmpty();
+    }
+
+    private static final class Page {
+        final long afterKey;
+        int unresolved;
+
+        Page(long afterKey, int unresolved) {
+            this.afterKey = afterKey;
+            this.unresolved = unresolved;
+        }
+    }
+}
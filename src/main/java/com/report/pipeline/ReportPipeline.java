@@ -0,0 +1,171 @@
+package com.report.pipeline;
+
+import com.report.model.EventRow;
+import com.report.model.ReportBatch;
+import com.report.service.MetricsService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Staged report pipeline for one table/dt
+ * <pre>
+ * fetch (caller thread) -> [pages] -> transform -> [batches] -> serialize -> [batches] -> send
+ * </pre>
+ * The send stage has a single dispatcher that hands batches to a {@link ReportSender}:
+ * a {@link BatchSender} keeping up to maxInFlight requests in flight, or for tables that
+ * must stay ordered per user a {@link StripedSender} with maxInFlight per-user lanes.
+ * Batches re-packed by the {@link RetryQueue} come back through a retry stage, which
+ * serializes them again and hands them to the same sender.
+ * Stages are connected by bounded queues, so a slow stage blocks the ones before it
+ * instead of buffering the partition in memory, and the slowest stage sets throughput
+ * instead of the sum of all stages.
+ */
+public class ReportPipeline {
+    private static final Logger logger = LoggerFactory.getLogger(ReportPipeline.class);
+
+    private final String tableName;
+    private final PipelineSettings settings;
+    private final PipelineStage<List<EventRow>> transformStage;
+    private final PipelineStage<ReportBatch> serializeStage;
+    private final PipelineStage<ReportBatch> sendStage;
+    private final PipelineStage<ReportBatch> retryStage;
+    private final ReportSender reportSender;
+    private final RetryQueue retryQueue;
+
+    /**
+     * @param tableName   Table being processed (used for thread names and metrics)
+     * @param settings    Parallelism and queue sizes
+     * @param transformer Turns a page of rows into report batches
+     * @param serializer  Fills in the request body of a batch; returns false if there is nothing left to send
+     * @param sender      Starts sending a batch with retry; the future completes once the result is accounted for
+     * @param sendPermits Send budget shared with the other tables being processed
+     * @param retryQueue  Where the sender puts rows to send again; must be given rows before
+     *                    the future of the failed batch completes
+     */
+    public ReportPipeline(String tableName, PipelineSettings settings,
+                          Function<List<EventRow>, List<ReportBatch>> transformer,
+                          Predicate<ReportBatch> serializer,
+                          Function<ReportBatch, CompletableFuture<Void>> sender,
+                          Semaphore sendPermits, RetryQueue retryQueue) {
+        this.tableName = tableName;
+        this.settings = settings;
+        this.retryQueue = retryQueue;
+
+        MetricsService metrics = MetricsService.getInstance();
+        String threadPrefix = "pipeline-" + tableName;
+
+        // Every batch in flight may still queue retries, so the retry queue tracks them all
+        Function<ReportBatch, CompletableFuture<Void>> trackedSender = batch -> {
+            retryQueue.begin();
+            try {
+                return sender.apply(batch).whenComplete((result, error) -> retryQueue.end());
+            } catch (RuntimeException e) {
+                retryQueue.end();
+                throw e;
+            }
+        };
+
+        this.reportSender = settings.isOrderedByUser()
+                ? new StripedSender(tableName, settings.getMaxInFlight(), settings.getQueueCapacity(), sendPermits, trackedSender)
+                : new BatchSender(tableName, settings.getMaxInFlight(), sendPermits, trackedSender);
+
+        // Unbounded, so retry timers and send callbacks never block on the hand-off
+        this.retryStage = new PipelineStage<>("retry", threadPrefix,
+                1, 0,
+                batch -> {
+                    try {
+                        if (serializer.test(batch)) {
+                            reportSender.submit(batch);
+                        }
+                    } finally {
+                        retryQueue.end();
+                    }
+                }, metrics.pipelineQueueDepth("retry", tableName));
+        retryQueue.dispatchTo(retryStage::put);
+
+        this.sendStage = new PipelineStage<>("send", threadPrefix,
+                1, settings.getQueueCapacity(),
+                reportSender::submit, metrics.pipelineQueueDepth("send", tableName));
+
+        this.serializeStage = new PipelineStage<>("serialize", threadPrefix,
+                settings.getSerializeThreads(), settings.getQueueCapacity(),
+                batch -> {
+                    if (serializer.test(batch)) {
+                        sendStage.put(batch);
+                    }
+                }, metrics.pipelineQueueDepth("serialize", tableName));
+
+        this.transformStage = new PipelineStage<>("transform", threadPrefix,
+                settings.getTransformThreads(), settings.getFetchQueueCapacity(),
+                rows -> {
+                    for (ReportBatch batch : transformer.apply(rows)) {
+                        serializeStage.put(batch);
+                    }
+                }, metrics.pipelineQueueDepth("transform", tableName));
+    }
+
+    /**
+     * Start all stage workers
+     */
+    public void start() {
+        retryStage.start();
+        sendStage.start();
+        serializeStage.start();
+        transformStage.start();
+        logger.info("Pipeline started for table {}: {}", tableName, settings);
+    }
+
+    /**
+     * Fetch stage hand-off: queue a page of rows, blocking while downstream is saturated
+     */
+    public void submit(List<EventRow> rows) {
+        if (!rows.isEmpty()) {
+            transformStage.put(rows);
+        }
+    }
+
+    /**
+     * Drain every stage in order and stop the workers
+     * Returns once all submitted rows, including retries, have been sent or accounted as failed
+     */
+    public void finish() {
+        transformStage.finish();
+        serializeStage.finish();
+        sendStage.finish();
+        drainRetries();
+        retryStage.finish();
+        reportSender.close();
+
+        logStageStats(transformStage);
+        logStageStats(serializeStage);
+        logStageStats(sendStage);
+        logStageStats(retryStage);
+    }
+
+    /**
+     * Wait for every send and retry to settle, flushing rows short of a full retry batch
+     * once nothing else can add to them; those may fail again and queue further retries
+     */
+    private void drainRetries() {
+        try {
+            do {
+                retryQueue.awaitSettled();
+            } while (retryQueue.flush());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for retries of table " + tableName, e);
+        }
+    }
+
+    private void logStageStats(PipelineStage<?> stage) {
+        logger.info("Pipeline stage {}/{}: workers={}, processed={}, errors={}, maxQueueDepth={}",
+                tableName, stage.getName(), stage.getParallelism(),
+                stage.getProcessed(), stage.getErrors(), stage.getMaxDepth());
+    }
+}
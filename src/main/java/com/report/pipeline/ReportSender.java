@@ -0,0 +1,21 @@
+package com.report.pipeline;
+
+import com.report.model.ReportBatch;
+
+/**
+ * Send stage of a report pipeline
+ * Implementations bound how many requests of a table are in flight; every batch
+ * is retried and accounted for by the send function they were built with.
+ */
+public interface ReportSender {
+
+    /**
+     * Start sending a batch, blocking while the sender is saturated
+     */
+    void submit(ReportBatch batch);
+
+    /**
+     * Wait for every submitted batch to complete and release the sender's resources
+     */
+    void close();
+}
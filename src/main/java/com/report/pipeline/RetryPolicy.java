@@ -0,0 +1,79 @@
+package com.report.pipeline;
+
+import com.report.config.AppConfig;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * When and how often a failed report request is sent again
+ * Up to maxRetries retries after the first attempt. The delay before retry n is
+ * baseDelayMs * 2^(n-1), capped at maxDelayMs, with equal jitter: a random value between
+ * half the delay and the full delay, so batches failed by the same upstream hiccup do not
+ * all come back at the same moment.
+ */
+public class RetryPolicy {
+    private final int maxRetries;
+    private final long baseDelayMs;
+    private final long maxDelayMs;
+
+    /**
+     * @param maxRetries  Retries after the first attempt (0 disables retrying)
+     * @param baseDelayMs Delay before the first retry
+     * @param maxDelayMs  Upper bound of any retry delay
+     */
+    public RetryPolicy(int maxRetries, long baseDelayMs, long maxDelayMs) {
+        this.maxRetries = maxRetries;
+        this.baseDelayMs = baseDelayMs;
+        this.maxDelayMs = Math.max(baseDelayMs, maxDelayMs);
+    }
+
+    /**
+     * Build the policy from retry.max.times, retry.interval.ms and retry.max.interval.ms
+     */
+    public static RetryPolicy from(AppConfig config) {
+        return new RetryPolicy(config.getMaxRetryTimes(), config.getRetryIntervalMs(), config.getRetryMaxIntervalMs());
+    }
+
+    /**
+     * Whether a request that failed on the given attempt (starting at 1) may be sent again
+     */
+    public boolean canRetry(int attempt) {
+        return attempt <= maxRetries;
+    }
+
+    /**
+     * Delay before sending again a request that failed on the given attempt
+     */
+    public long delayMs(int attempt) {
+        long delay = baseDelayMs;
+        for (int i = 1; i < attempt && delay < maxDelayMs; i++) {
+            delay *= 2;
+        }
+        delay = Math.min(delay, maxDelayMs);
+        if (delay <= 1) {
+            return delay;
+        }
+        long half = delay / 2;
+        return half + ThreadLocalRandom.current().nextLong(delay - half + 1);
+    }
+
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    /**
+     * Total number of attempts, the first one included
+     */
+    public int getMaxAttempts() {
+        return maxRetries + 1;
+    }
+
+    @Override
+    public String toString() {
+        return "RetryPolicy{" +
+                "maxRetries=" + maxRetries +
+                ", baseDelayMs=" + baseDelayMs +
+                ", maxDelayMs=" + maxDelayMs +
+                '}';
+    }
+}
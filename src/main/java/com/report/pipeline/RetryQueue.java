@@ -0,0 +1,255 @@
+package com.report.pipeline;
+
+import com.report.model.EventRow;
+import com.report.model.ReportBatch;
+import com.report.service.MetricsService;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.IntSupplier;
+
+/**
+ * Re-packs the rows of failed report batches into fresh batches for the next attempt
+ * A failed batch is not resent as is: after its retry delay its rows join the rows of
+ * other batches that failed on the same attempt, and every batchSize rows go out as a new,
+ * full batch; the size is read again for every batch, so it follows a {@link BatchSizer}.
+ * Rows still short of a full batch lingerMs after they started collecting, or when the
+ * table is done, go out as a smaller batch.
+ * <p>
+ * The owning {@link ReportPipeline} dispatches the new batches, tracks every batch in flight
+ * through begin()/end(), and uses awaitSettled() to know when no more retries can come.
+ * Records waiting are exported as the volcano.retry.depth gauge, and the time from a failed
+ * attempt to the resend as the volcano.retry.age timer.
+ */
+public class RetryQueue {
+    private final IntSupplier batchSize;
+    private final long lingerMs;
+    private final ScheduledExecutorService scheduler;
+    private final AtomicInteger depth;
+    private final Timer age;
+
+    // Rows waiting for a full batch, by the attempt they will be sent on
+    private final Map<Integer, Pending> pending = new TreeMap<>();
+    // Batches in flight, retries waiting for their delay and batches handed to the dispatcher
+    private int outstanding;
+    private Consumer<ReportBatch> dispatcher;
+
+    /**
+     * @param tableName Table the batches belong to (used for metrics)
+     * @param batchSize Rows per re-packed batch
+     * @param lingerMs  Longest time rows wait for a full batch before going out anyway
+     * @param scheduler Runs the retry delays
+     */
+    public RetryQueue(String tableName, int batchSize, long lingerMs, ScheduledExecutorService scheduler) {
+        this(tableName, () -> batchSize, lingerMs, scheduler);
+    }
+
+    /**
+     * @param tableName Table the batches belong to (used for metrics)
+     * @param batchSize Rows per re-packed batch, asked for every batch
+     * @param lingerMs  Longest time rows wait for a full batch before going out anyway
+     * @param scheduler Runs the retry delays
+     */
+    public RetryQueue(String tableName, IntSupplier batchSize, long lingerMs, ScheduledExecutorService scheduler) {
+        this.batchSize = batchSize;
+        this.lingerMs = lingerMs;
+        this.scheduler = scheduler;
+        MetricsService metrics = MetricsService.getInstance();
+        this.depth = metrics.retryDepth(tableName);
+        this.age = metrics.retryAge(tableName);
+    }
+
+    /**
+     * Send rows of a failed batch again on the next attempt, after delayMs
+     * Must be called before the send future of the failed batch completes, so the
+     * pipeline cannot see the table as settled in between.
+     */
+    public void retry(ReportBatch failed, List<EventRow> rows, long delayMs) {
+        long failedAt = System.nanoTime();
+        depth.addAndGet(rows.size());
+        begin();
+        try {
+            scheduler.schedule(() -> {
+                try {
+                    pack(failed, rows, failedAt);
+                } finally {
+                    end();
+                }
+            }, delayMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            depth.addAndGet(-rows.size());
+            end();
+            throw e;
+        }
+    }
+
+    private void pack(ReportBatch failed, List<EventRow> rows, long failedAt) {
+        int attempt = failed.getAttempt() + 1;
+        List<ReportBatch> ready = new ArrayList<>();
+        synchronized (this) {
+            Pending next = pending.get(attempt);
+            if (next == null) {
+                next = new Pending(failed, attempt);
+                pending.put(attempt, next);
+                scheduleLinger(next);
+            }
+            next.add(rows, failedAt);
+            int size = batchSize.getAsInt();
+            while (next.rows.size() >= size) {
+                ready.add(take(next, size));
+                size = batchSize.getAsInt();
+            }
+            if (next.rows.isEmpty()) {
+                pending.remove(attempt);
+            }
+        }
+        for (ReportBatch batch : ready) {
+            dispatch(batch);
+        }
+    }
+
+    private void scheduleLinger(Pending next) {
+        try {
+            scheduler.schedule(() -> {
+                ReportBatch batch = null;
+                synchronized (this) {
+                    // Only if the rows of this round have not been taken meanwhile
+                    if (pending.get(next.attempt) == next) {
+                        pending.remove(next.attempt);
+                        batch = take(next, next.rows.size());
+                    }
+                }
+                if (batch != null) {
+                    dispatch(batch);
+                }
+            }, lingerMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // Left for flush() at the end of the table
+        }
+    }
+
+    /**
+     * Set where re-packed batches go; called once by the pipeline, must not block
+     */
+    void dispatchTo(Consumer<ReportBatch> dispatcher) {
+        this.dispatcher = dispatcher;
+    }
+
+    /**
+     * Dispatch the rows short of a full batch, one batch per attempt
+     *
+     * @return false once nothing was pending and nothing is outstanding, i.e. the queue is drained
+     */
+    boolean flush() {
+        List<ReportBatch> ready = new ArrayList<>();
+        boolean busy;
+        synchronized (this) {
+            for (Pending next : pending.values()) {
+                ready.add(take(next, next.rows.size()));
+            }
+            pending.clear();
+            busy = outstanding > 0;
+        }
+        for (ReportBatch batch : ready) {
+            dispatch(batch);
+        }
+        return busy;
+    }
+
+    /**
+     * Take rows into a batch; counted as outstanding under the same lock, so the
+     * queue never looks drained between taking the rows and dispatching them
+     */
+    private ReportBatch take(Pending next, int count) {
+        outstanding++;
+        return next.take(count);
+    }
+
+    private void dispatch(ReportBatch batch) {
+        try {
+            dispatcher.accept(batch);
+        } catch (RuntimeException e) {
+            end();
+            throw e;
+        }
+    }
+
+    /**
+     * Mark a unit of work that may still produce retries: a batch in flight or dispatched
+     */
+    synchronized void begin() {
+        outstanding++;
+    }
+
+    synchronized void end() {
+        if (--outstanding == 0) {
+            notifyAll();
+        }
+    }
+
+    /**
+     * Wait until no batch is in flight, dispatched or waiting for its retry delay
+     * Rows short of a full batch may still be pending; see flush()
+     */
+    synchronized void awaitSettled() throws InterruptedException {
+        while (outstanding > 0) {
+            wait();
+        }
+    }
+
+    /**
+     * Number of rows waiting for a full batch
+     */
+    public synchronized int getPendingRows() {
+        int rows = 0;
+        for (Pending next : pending.values()) {
+            rows += next.rows.size();
+        }
+        return rows;
+    }
+
+    /**
+     * Rows bound for one attempt, with the batch they take table, dt and endpoint from
+     */
+    private final class Pending {
+        final ReportBatch template;
+        final int attempt;
+        final List<EventRow> rows = new ArrayList<>();
+        // System.nanoTime() of the failed attempt of each row
+        final List<Long> failedAt = new ArrayList<>();
+
+        Pending(ReportBatch template, int attempt) {
+            this.template = template;
+            this.attempt = attempt;
+        }
+
+        void add(List<EventRow> newRows, long newFailedAt) {
+            rows.addAll(newRows);
+            for (int i = 0; i < newRows.size(); i++) {
+                failedAt.add(newFailedAt);
+            }
+        }
+
+        ReportBatch take(int count) {
+            long now = System.nanoTime();
+            for (long failed : failedAt.subList(0, count)) {
+                age.record(now - failed, TimeUnit.NANOSECONDS);
+            }
+            failedAt.subList(0, count).clear();
+            depth.addAndGet(-count);
+
+            List<EventRow> batchRows = new ArrayList<>(rows.subList(0, count));
+            rows.subList(0, count).clear();
+            return new ReportBatch(template.getTableName(), template.getDt(), template.getEndpoint(),
+                    batchRows, attempt);
+        }
+    }
+}
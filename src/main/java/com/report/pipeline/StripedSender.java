@@ -0,0 +1,106 @@
+package com.report.pipeline;
+
+import com.report.model.EventRow;
+import com.report.model.ReportBatch;
+import com.report.service.MetricsService;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Sender for SINGLE mode tables that keeps records of the same user in order
+ * Batches are routed to one of N lanes by user_unique_id; each lane sends its batches
+ * one after another, so at most N records are in flight and records of one user are
+ * always reported in the order they were submitted.
+ */
+public class StripedSender implements ReportSender {
+
+    private final Semaphore globalPermits;
+    private final Function<ReportBatch, CompletableFuture<Void>> sendFunction;
+    private final AtomicInteger inFlight;
+    private final Timer recordLatency;
+    private final List<PipelineStage<ReportBatch>> lanes;
+
+    /**
+     * @param tableName     Table being sent (used for thread names and metrics)
+     * @param laneCount     Number of lanes, i.e. maximum records in flight
+     * @param laneCapacity  Batches queued per lane before submit() blocks
+     * @param globalPermits Send budget shared with the other tables being processed
+     * @param sendFunction  Starts sending one batch with retry; the future completes once
+     *                      the outcome has been accounted for
+     */
+    public StripedSender(String tableName, int laneCount, int laneCapacity, Semaphore globalPermits,
+                         Function<ReportBatch, CompletableFuture<Void>> sendFunction) {
+        this.globalPermits = globalPermits;
+        this.sendFunction = sendFunction;
+
+        MetricsService metrics = MetricsService.getInstance();
+        this.inFlight = metrics.senderInFlight(tableName);
+        this.recordLatency = metrics.singleRecordLatency(tableName);
+
+        this.lanes = new ArrayList<>(laneCount);
+        for (int i = 0; i < laneCount; i++) {
+            PipelineStage<ReportBatch> lane = new PipelineStage<>("lane-" + i, "sender-" + tableName,
+                    1, laneCapacity, this::send, new AtomicInteger());
+            lane.start();
+            lanes.add(lane);
+        }
+    }
+
+    /**
+     * Queue a batch on the lane of its user, blocking while that lane is full
+     */
+    @Override
+    public void submit(ReportBatch batch) {
+        lanes.get(laneOf(batch, lanes.size())).put(batch);
+    }
+
+    private void send(ReportBatch batch) {
+        try {
+            globalPermits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a global send slot", e);
+        }
+
+        inFlight.incrementAndGet();
+        long start = System.nanoTime();
+        try {
+            // The lane waits for the outcome before sending the next record of its users
+            sendFunction.apply(batch).join();
+        } finally {
+            recordLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            inFlight.decrementAndGet();
+            globalPermits.release();
+        }
+    }
+
+    @Override
+    public void close() {
+        for (PipelineStage<ReportBatch> lane : lanes) {
+            lane.finish();
+        }
+    }
+
+    public int getLaneCount() {
+        return lanes.size();
+    }
+
+    /**
+     * Lane of a batch, chosen by the user_unique_id of its first record
+     */
+    static int laneOf(ReportBatch batch, int laneCount) {
+        List<EventRow> rows = batch.getRows();
+        String userUniqueId = rows.isEmpty() ? null : rows.get(0).getUserUniqueId();
+        if (userUniqueId == null) {
+            return 0;
+        }
+        return (userUniqueId.hashCode() & Integer.MAX_VALUE) % laneCount;
+    }
+}
@@ -1,19 +1,35 @@
 package com.report.repository;
 
+import com.report.config.AppConfig;
 import com.report.config.DataSourceConfig;
 import com.report.config.EventTableConfig;
+import com.report.model.EventRow;
 import com.report.model.ReportStatus;
+import com.report.model.RowSchema;
+import com.report.service.MetricsService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.sql.*;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 /**
  * Repository for event data operations across multiple tables
  */
 public class EventDataRepository {
     private static final Logger logger = LoggerFactory.getLogger(EventDataRepository.class);
+
+    /**
+     * Start key for the first keyset page (sorts before every cursor value)
+     */
+    public static final long START_KEY = Long.MIN_VALUE;
+
+    // IN list sizes of status updates; the largest keeps the SQL under the driver's
+    // prepStmtCacheSqlLimit (2048), so every one of them is cached
+    static final int[] STATUS_IN_LIST_SIZES = {1, 4, 16, 64, 256};
+
     private final DataSourceConfig dataSource;
 
     public EventDataRepository() {
@@ -26,9 +42,9 @@ public class EventDataRepository {
      * @param tableName       Table name (event type)
      * @param lastProcessedId Last processed ID for checkpoint
      * @param limit           Batch size
-     * @return List of records as Map
+     * @return List of records, in id order, each keyed by its id
      */
-    public List<Map<String, Object>> fetchPendingRecords(String tableName, long lastProcessedId, int limit) {
+    public List<EventRow> fetchPendingRecords(String tableName, long lastProcessedId, int limit) {
         EventTableConfig tableConfig = EventTableConfig.getByTableName(tableName);
         if (tableConfig == null) {
             logger.error("Unknown table name: {}", tableName);
@@ -36,8 +52,10 @@ public class EventDataRepository {
         }
 
         String sql = tableConfig.buildPendingQuery();
-        List<Map<String, Object>> records = new ArrayList<>();
+        RowSchema schema = tableConfig.getRowSchema();
+        List<EventRow> records = new ArrayList<>();
 
+        long start = System.nanoTime();
         try (Connection conn = dataSource.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
@@ -45,17 +63,8 @@ public class EventDataRepository {
             stmt.setInt(2, limit);
 
             try (ResultSet rs = stmt.executeQuery()) {
-                ResultSetMetaData metaData = rs.getMetaData();
-                int columnCount = metaData.getColumnCount();
-
                 while (rs.next()) {
-                    Map<String, Object> record = new HashMap<>();
-                    for (int i = 1; i <= columnCount; i++) {
-                        String columnName = metaData.getColumnName(i);
-                        Object value = rs.getObject(i);
-                        record.put(columnName, value);
-                    }
-                    records.add(record);
+                    records.add(readRow(rs, schema, 2, rs.getLong(1)));
                 }
             }
 
@@ -64,6 +73,8 @@ public class EventDataRepository {
         } catch (SQLException e) {
             logger.error("Failed to fetch records from table {}: {}", tableName, e.getMessage(), e);
             throw new RuntimeException("Database query failed", e);
+        } finally {
+            recordQuery(tableName, "pending", start);
         }
 
         return records;
@@ -110,6 +121,9 @@ public class EventDataRepository {
 
     /**
      * Update report status for records
+     * The ids are cut into IN lists of the sizes in STATUS_IN_LIST_SIZES, the last one padded by
+     * repeating its last id, so a table only ever uses a handful of distinct UPDATE statements and
+     * each of them is reused from the prepared statement cache. Full lists go out as one JDBC batch.
      *
      * @param tableName Table name
      * @param ids       Record IDs
@@ -126,28 +140,50 @@ public class EventDataRepository {
             return;
         }
 
-        String placeholders = String.join(",", Collections.nCopies(ids.size(), "?"));
-        String sql = String.format(
-                "UPDATE %s SET report_status = ?, updated_at = NOW() WHERE id IN (%s)",
-                tableName, placeholders
-        );
-
-        try (Connection conn = dataSource.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setInt(1, status);
-            int paramIndex = 2;
-            for (Long id : ids) {
-                stmt.setLong(paramIndex++, id);
+        int updated = 0;
+        long start = System.nanoTime();
+        try (Connection conn = dataSource.getConnection()) {
+            int from = 0;
+            while (from < ids.size()) {
+                int size = inListSize(ids.size() - from);
+                try (PreparedStatement stmt = conn.prepareStatement(tableConfig.buildUpdateStatusQuery(size))) {
+                    do {
+                        int to = Math.min(from + size, ids.size());
+                        stmt.setInt(1, status);
+                        for (int i = 0; i < size; i++) {
+                            // A repeated id matches no further row
+                            stmt.setLong(i + 2, ids.get(Math.min(from + i, to - 1)));
+                        }
+                        stmt.addBatch();
+                        from = to;
+                    } while (ids.size() - from >= size);
+
+                    for (int count : stmt.executeBatch()) {
+                        updated += Math.max(count, 0);
+                    }
+                }
             }
-
-            int updated = stmt.executeUpdate();
             logger.debug("Updated {} records in table {} to status {}", updated, tableName, status);
 
         } catch (SQLException e) {
             logger.error("Failed to update status for table {}: {}", tableName, e.getMessage(), e);
             throw new RuntimeException("Database update failed", e);
+        } finally {
+            recordQuery(tableName, "update_status", start);
+        }
+    }
+
+    /**
+     * IN list size for the next chunk of a status update: the largest size for a long list,
+     * otherwise the smallest size holding the rest
+     */
+    static int inListSize(int remaining) {
+        for (int size : STATUS_IN_LIST_SIZES) {
+            if (size >= remaining) {
+                return size;
+            }
         }
+        return STATUS_IN_LIST_SIZES[STATUS_IN_LIST_SIZES.length - 1];
     }
 
     /**
@@ -159,13 +195,8 @@ public class EventDataRepository {
             return;
         }
 
-        String sql = String.format(
-                "UPDATE %s SET report_status = ?, error_msg = ?, retry_count = retry_count + 1, updated_at = NOW() WHERE id = ?",
-                tableName
-        );
-
         try (Connection conn = dataSource.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = conn.prepareStatement(tableConfig.buildMarkFailedQuery())) {
 
             stmt.setInt(1, status);
             stmt.setString(2, truncate(errorMsg, 500));
@@ -199,44 +230,116 @@ public class EventDataRepository {
     }
 
     /**
-     * Get records that need retry (status = FAILED and retry_count < max)
+     * Mark records as failed, each with its own error message, counting the attempt towards retry_count
+     * One statement per record, sent as a single JDBC batch (rewritten into multi-row
+     * round trips by the driver's rewriteBatchedStatements) on one connection.
+     *
+     * @param errors Error message by record ID
      */
-    public List<Map<String, Object>> fetchFailedRecords(String tableName, int maxRetryCount, int limit) {
+    public void markAsFailed(String tableName, Map<Long, String> errors) {
+        if (errors == null || errors.isEmpty()) {
+            return;
+        }
+
         EventTableConfig tableConfig = EventTableConfig.getByTableName(tableName);
         if (tableConfig == null) {
-            return Collections.emptyList();
+            logger.error("Unknown table name: {}", tableName);
+            return;
+        }
+
+        long start = System.nanoTime();
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(tableConfig.buildMarkFailedQuery())) {
+
+            for (Map.Entry<Long, String> error : errors.entrySet()) {
+                stmt.setInt(1, ReportStatus.FAILED.getCode());
+                stmt.setString(2, truncate(error.getValue(), 500));
+                stmt.setLong(3, error.getKey());
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+            logger.debug("Marked {} records in table {} as failed", errors.size(), tableName);
+
+        } catch (SQLException e) {
+            logger.error("Failed to mark records as failed for table {}: {}", tableName, e.getMessage(), e);
+            throw new RuntimeException("Database update failed", e);
+        } finally {
+            recordQuery(tableName, "mark_failed", start);
+        }
+    }
+
+    /**
+     * Put records left in PROCESSING back to PENDING
+     * For a restarted streaming run: rows it had taken but not written back are picked up again.
+     *
+     * @return Number of records reset
+     */
+    public int resetProcessing(String tableName) {
+        EventTableConfig tableConfig = EventTableConfig.getByTableName(tableName);
+        if (tableConfig == null) {
+            logger.error("Unknown table name: {}", tableName);
+            return 0;
         }
 
         String sql = String.format(
-                "SELECT %s FROM %s WHERE report_status = %d AND retry_count < ? ORDER BY id LIMIT ?",
-                tableConfig.buildSelectFields(),
-                tableName,
-                ReportStatus.FAILED.getCode()
+                "UPDATE %s SET report_status = ?, updated_at = NOW() WHERE report_status = ?",
+                tableName
         );
 
-        List<Map<String, Object>> records = new ArrayList<>();
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setInt(1, ReportStatus.PENDING.getCode());
+            stmt.setInt(2, ReportStatus.PROCESSING.getCode());
+            return stmt.executeUpdate();
+
+        } catch (SQLException e) {
+            logger.error("Failed to reset processing records for table {}: {}", tableName, e.getMessage(), e);
+            throw new RuntimeException("Database update failed", e);
+        }
+    }
+
+    /**
+     * Get records that need retry (status = FAILED and retry_count < max)
+     */
+    public List<EventRow> fetchFailedRecords(String tableName, int maxRetryCount, int limit) {
+        return fetchFailedRecords(tableName, maxRetryCount, 0, limit);
+    }
+
+    /**
+     * Get records that need retry, after an id
+     *
+     * @param afterId Last id already taken for retry, so a retry run never reads a record twice
+     * @return List of records, in id order, each keyed by its id
+     */
+    public List<EventRow> fetchFailedRecords(String tableName, int maxRetryCount, long afterId, int limit) {
+        EventTableConfig tableConfig = EventTableConfig.getByTableName(tableName);
+        if (tableConfig == null) {
+            return Collections.emptyList();
+        }
 
+        String sql = tableConfig.buildFailedQuery();
+        RowSchema schema = tableConfig.getRowSchema();
+        List<EventRow> records = new ArrayList<>();
+
+        long start = System.nanoTime();
         try (Connection conn = dataSource.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
-            stmt.setInt(1, maxRetryCount);
-            stmt.setInt(2, limit);
+            stmt.setLong(1, afterId);
+            stmt.setInt(2, maxRetryCount);
+            stmt.setInt(3, limit);
 
             try (ResultSet rs = stmt.executeQuery()) {
-                ResultSetMetaData metaData = rs.getMetaData();
-                int columnCount = metaData.getColumnCount();
-
                 while (rs.next()) {
-                    Map<String, Object> record = new HashMap<>();
-                    for (int i = 1; i <= columnCount; i++) {
-                        record.put(metaData.getColumnName(i), rs.getObject(i));
-                    }
-                    records.add(record);
+                    records.add(readRow(rs, schema, 2, rs.getLong(1)));
                 }
             }
 
         } catch (SQLException e) {
             logger.error("Failed to fetch failed records from table {}: {}", tableName, e.getMessage(), e);
+        } finally {
+            recordQuery(tableName, "failed", start);
         }
 
         return records;
@@ -244,6 +347,7 @@ public class EventDataRepository {
 
     /**
      * Query records by date partition with LIMIT/OFFSET (for Hive partitioned tables)
+     * Cost grows with the offset; prefer {@link #queryAfterKey} when the table has a cursor column
      *
      * @param tableName Table name
      * @param dt        Date partition (e.g., "2026-01-26")
@@ -251,7 +355,7 @@ public class EventDataRepository {
      * @param offset    Offset for pagination
      * @return List of records
      */
-    public List<Map<String, Object>> queryWithOffset(String tableName, String dt, int limit, int offset) {
+    public List<EventRow> queryWithOffset(String tableName, String dt, int limit, int offset) {
         EventTableConfig tableConfig = EventTableConfig.getByTableName(tableName);
         if (tableConfig == null) {
             logger.error("Unknown table name: {}", tableName);
@@ -264,8 +368,10 @@ public class EventDataRepository {
                 tableName
         );
 
-        List<Map<String, Object>> records = new ArrayList<>();
+        RowSchema schema = tableConfig.getRowSchema();
+        List<EventRow> records = new ArrayList<>();
 
+        long start = System.nanoTime();
         try (Connection conn = dataSource.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
@@ -274,17 +380,8 @@ public class EventDataRepository {
             stmt.setInt(3, offset);
 
             try (ResultSet rs = stmt.executeQuery()) {
-                ResultSetMetaData metaData = rs.getMetaData();
-                int columnCount = metaData.getColumnCount();
-
                 while (rs.next()) {
-                    Map<String, Object> record = new HashMap<>();
-                    for (int i = 1; i <= columnCount; i++) {
-                        String columnName = metaData.getColumnName(i);
-                        Object value = rs.getObject(i);
-                        record.put(columnName, value);
-                    }
-                    records.add(record);
+                    records.add(readRow(rs, schema, 1, 0));
                 }
             }
 
@@ -294,11 +391,251 @@ public class EventDataRepository {
         } catch (SQLException e) {
             logger.error("Failed to query records from {} (dt={}): {}", tableName, dt, e.getMessage(), e);
             throw new RuntimeException("Database query failed", e);
+        } finally {
+            recordQuery(tableName, "offset_page", start);
         }
 
         return records;
     }
 
+    /**
+     * Query records by date partition with keyset (seek) pagination
+     * Pages on the table's cursor column, continuing after the last key of the previous page,
+     * so latency per page does not grow with the depth into the partition.
+     *
+     * @param tableName Table name
+     * @param dt        Date partition (e.g., "2026-01-26")
+     * @param afterKey  Last cursor value of the previous page ({@link #START_KEY} for the first page)
+     * @param limit     Batch size
+     * @return Page of records with the last cursor value seen
+     */
+    public KeysetPage queryAfterKey(String tableName, String dt, long afterKey, int limit) {
+        return queryAfterKey(tableName, dt, afterKey, limit, 0, 1);
+    }
+
+    /**
+     * Query one shard of a date partition with keyset (seek) pagination
+     * The shards of a partition are disjoint by hash of user_unique_id; with a shard count of 1
+     * this is the whole partition.
+     *
+     * @param tableName  Table name
+     * @param dt         Date partition (e.g., "2026-01-26")
+     * @param afterKey   Last cursor value of the previous page ({@link #START_KEY} for the first page)
+     * @param limit      Batch size
+     * @param shard      Shard to read, 0 to shardCount - 1
+     * @param shardCount Number of shards the partition is split into
+     * @return Page of records with the last cursor value seen
+     */
+    public KeysetPage queryAfterKey(String tableName, String dt, long afterKey, int limit, int shard, int shardCount) {
+        EventTableConfig tableConfig = EventTableConfig.getByTableName(tableName);
+        if (tableConfig == null) {
+            logger.error("Unknown table name: {}", tableName);
+            return new KeysetPage(Collections.<EventRow>emptyList(), afterKey);
+        }
+
+        return queryRange(tableConfig, dt, afterKey, null, limit, shard, shardCount);
+    }
+
+    /**
+     * Query a key range of a date partition, or of one shard of it, with keyset pagination
+     *
+     * @param tableName  Table name
+     * @param dt         Date partition (e.g., "2026-01-26")
+     * @param afterKey   Last cursor value of the previous page of the range
+     * @param endKey     Last cursor value of the range (inclusive)
+     * @param limit      Batch size
+     * @param shard      Shard to read, 0 to shardCount - 1
+     * @param shardCount Number of shards the partition is split into; 1 for the whole partition
+     * @return Page of records with the last cursor value seen
+     */
+    public KeysetPage queryRange(String tableName, String dt, long afterKey, long endKey, int limit,
+                                 int shard, int shardCount) {
+        EventTableConfig tableConfig = EventTableConfig.getByTableName(tableName);
+        if (tableConfig == null) {
+            logger.error("Unknown table name: {}", tableName);
+            return new KeysetPage(Collections.<EventRow>emptyList(), afterKey);
+        }
+        return queryRange(tableConfig, dt, afterKey, endKey, limit, shard, shardCount);
+    }
+
+    private KeysetPage queryRange(EventTableConfig tableConfig, String dt, long afterKey, Long endKey, int limit,
+                                  int shard, int shardCount) {
+        String tableName = tableConfig.getTableName();
+        boolean sharded = shardCount > 1;
+        String sql = tableConfig.buildKeysetQuery(endKey != null, sharded);
+        RowSchema schema = tableConfig.getRowSchema();
+        List<EventRow> records = new ArrayList<>();
+        long lastKey = afterKey;
+
+        long start = System.nanoTime();
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            int paramIndex = 1;
+            stmt.setString(paramIndex++, dt);
+            stmt.setLong(paramIndex++, afterKey);
+            if (endKey != null) {
+                stmt.setLong(paramIndex++, endKey);
+            }
+            if (sharded) {
+                stmt.setInt(paramIndex++, shardCount);
+                stmt.setInt(paramIndex++, shard);
+            }
+            stmt.setInt(paramIndex, limit);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    // Column 1 is the cursor column, the rest are the regular select fields
+                    lastKey = rs.getLong(1);
+                    records.add(readRow(rs, schema, 2, lastKey));
+                }
+            }
+
+            logger.debug("Fetched {} records from {} (dt={}, afterKey={}, limit={})",
+                    records.size(), tableName, dt, afterKey, limit);
+
+        } catch (SQLException e) {
+            logger.error("Failed to query records from {} (dt={}): {}", tableName, dt, e.getMessage(), e);
+            throw new RuntimeException("Database query failed", e);
+        } finally {
+            recordQuery(tableName, "keyset_page", start);
+        }
+
+        return new KeysetPage(records, lastKey);
+    }
+
+    /**
+     * Lowest and highest cursor value of a date partition after a key
+     *
+     * @param tableName Table name
+     * @param dt        Date partition (e.g., "2026-01-26")
+     * @param afterKey  Key to start after ({@link #START_KEY} for the whole partition)
+     * @return {min, max}, or null if no row follows afterKey
+     */
+    public long[] queryKeyBounds(String tableName, String dt, long afterKey) {
+        EventTableConfig tableConfig = EventTableConfig.getByTableName(tableName);
+        if (tableConfig == null) {
+            logger.error("Unknown table name: {}", tableName);
+            return null;
+        }
+
+        long start = System.nanoTime();
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(tableConfig.buildKeyBoundsQuery())) {
+
+            stmt.setString(1, dt);
+            stmt.setLong(2, afterKey);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    long min = rs.getLong(1);
+                    if (!rs.wasNull()) {
+                        return new long[]{min, rs.getLong(2)};
+                    }
+                }
+            }
+
+        } catch (SQLException e) {
+            logger.error("Failed to query key bounds of {} (dt={}): {}", tableName, dt, e.getMessage(), e);
+            throw new RuntimeException("Database query failed", e);
+        } finally {
+            recordQuery(tableName, "key_bounds", start);
+        }
+
+        return null;
+    }
+
+    /**
+     * Stream a whole date partition through a single forward-only, read-only statement
+     * Uses MySQL driver-side row streaming (fetchSize = Integer.MIN_VALUE), so rows are pulled
+     * off the wire one at a time with constant heap use and no count or paging round trips.
+     * The connection stays checked out until the last row has been handled.
+     *
+     * @param tableName Table name
+     * @param dt        Date partition (e.g., "2026-01-26")
+     * @param handler   Callback invoked for every record, in read order
+     * @return Number of records streamed
+     */
+    public long streamPartition(String tableName, String dt, Consumer<EventRow> handler) {
+        EventTableConfig tableConfig = EventTableConfig.getByTableName(tableName);
+        if (tableConfig == null) {
+            logger.error("Unknown table name: {}", tableName);
+            return 0;
+        }
+
+        String sql = tableConfig.buildPartitionQuery();
+        RowSchema schema = tableConfig.getRowSchema();
+        long streamed = 0;
+
+        try (Connection conn = dataSource.getConnection()) {
+            Integer previousTimeout = extendNetWriteTimeout(conn);
+
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+
+                stmt.setFetchSize(Integer.MIN_VALUE);
+                stmt.setString(1, dt);
+
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        handler.accept(readRow(rs, schema, 1, 0));
+                        streamed++;
+                    }
+                }
+            } finally {
+                restoreNetWriteTimeout(conn, previousTimeout);
+            }
+
+            logger.debug("Streamed {} records from {} (dt={})", streamed, tableName, dt);
+
+        } catch (SQLException e) {
+            logger.error("Failed to stream records from {} (dt={}) after {} rows: {}",
+                    tableName, dt, streamed, e.getMessage(), e);
+            throw new RuntimeException("Database query failed", e);
+        }
+
+        return streamed;
+    }
+
+    /**
+     * Raise net_write_timeout for a streaming session
+     * The server blocks on writes while the handler is busy reporting, and would otherwise
+     * abort the result set after the default 60 seconds
+     *
+     * @return Session value before the change, to restore; null if it was not changed
+     */
+    private Integer extendNetWriteTimeout(Connection conn) {
+        int timeout = AppConfig.getInstance().getDbStreamNetWriteTimeout();
+        try (Statement stmt = conn.createStatement()) {
+            Integer previous = null;
+            try (ResultSet rs = stmt.executeQuery("SELECT @@SESSION.net_write_timeout")) {
+                if (rs.next()) {
+                    previous = rs.getInt(1);
+                }
+            }
+            stmt.execute("SET SESSION net_write_timeout = " + timeout);
+            return previous;
+        } catch (SQLException e) {
+            logger.warn("Failed to set net_write_timeout for streaming session: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Put net_write_timeout back before the connection returns to the pool,
+     * so later queries on it keep the server default
+     */
+    private void restoreNetWriteTimeout(Connection conn, Integer previous) {
+        if (previous == null) {
+            return;
+        }
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("SET SESSION net_write_timeout = " + previous);
+        } catch (SQLException e) {
+            logger.warn("Failed to restore net_write_timeout after streaming session: {}", e.getMessage());
+        }
+    }
+
     /**
      * Count records in a date partition (for Hive partitioned tables)
      *
@@ -318,6 +655,7 @@ public class EventDataRepository {
                 tableName
         );
 
+        long start = System.nanoTime();
         try (Connection conn = dataSource.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
@@ -331,11 +669,69 @@ public class EventDataRepository {
 
         } catch (SQLException e) {
             logger.error("Failed to count records from {} (dt={}): {}", tableName, dt, e.getMessage(), e);
+        } finally {
+            recordQuery(tableName, "count", start);
         }
 
         return 0;
     }
 
+    /**
+     * Record how long a database operation on a table took, connection checkout included
+     */
+    private static void recordQuery(String tableName, String operation, long start) {
+        MetricsService.getInstance().databaseQuery(tableName, operation)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Read the current result set row into a positional EventRow
+     * Column positions come from the table's RowSchema, so no per-cell metadata lookups
+     *
+     * @param firstColumn JDBC index of the first select field (2 when the cursor column precedes them)
+     * @param key         Cursor value of the row
+     */
+    private EventRow readRow(ResultSet rs, RowSchema schema, int firstColumn, long key) throws SQLException {
+        String userUniqueId = rs.getString(firstColumn + schema.getUserUniqueIdIndex());
+
+        long et = 0;
+        boolean etPresent = false;
+        if (schema.hasEt()) {
+            Long etValue = parseEt(rs.getObject(firstColumn + schema.getEtIndex()));
+            if (etValue != null) {
+                et = etValue;
+                etPresent = true;
+            }
+        }
+
+        Object[] params = new Object[schema.getParamCount()];
+        for (int i = 0; i < params.length; i++) {
+            params[i] = rs.getObject(firstColumn + schema.getParamIndex(i));
+        }
+
+        return new EventRow(schema, key, userUniqueId, et, etPresent, params);
+    }
+
+    /**
+     * Parse an et cell, which the Hive tables may hold as a number or as a string
+     * A value that does not parse is treated as missing, so one bad row does not fail the table.
+     *
+     * @return Event time, or null if the cell is empty or not a number
+     */
+    static Long parseEt(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        try {
+            return Long.parseLong(value.toString().trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
     private String truncate(String str, int maxLength) {
         if (str == null) return null;
         return str.length() > maxLength ? str.substring(0, maxLength) : str;
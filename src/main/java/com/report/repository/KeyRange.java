@@ -0,0 +1,64 @@
+package com.report.repository;
+
+/**
+ * Key range of a date partition read by one reader at a time
+ * Covers the cursor values after {@code after} up to and including {@code end}. The reader
+ * moves {@code after} forward page by page, while idle readers may steal the upper half of
+ * what is left by lowering {@code end}. Guarded by its own monitor.
+ */
+public final class KeyRange {
+    private long after;
+    private long end;
+
+    KeyRange(long after, long end) {
+        this.after = after;
+        this.end = end;
+    }
+
+    synchronized long getAfter() {
+        return after;
+    }
+
+    synchronized long getEnd() {
+        return end;
+    }
+
+    synchronized void advance(long lastKey) {
+        after = lastKey;
+    }
+
+    /**
+     * Mark the range read to its end, so it can no longer be split
+     */
+    synchronized void finish() {
+        after = end;
+    }
+
+    synchronized long remaining() {
+        return end - after;
+    }
+
+    /**
+     * Split off the upper half of what is left
+     *
+     * @param minSpan  Smallest key span worth splitting
+     * @param listener Told about the new range before this one shrinks
+     * @return The upper half, or null if too little is left
+     */
+    synchronized KeyRange split(long minSpan, ParallelRangeReader.Listener listener) {
+        if (end - after < minSpan) {
+            return null;
+        }
+        long mid = after + (end - after) / 2;
+        KeyRange upper = new KeyRange(mid, end);
+        // Registered first, so no key is ever outside every range the listener knows of
+        listener.rangeStarted(upper, mid);
+        end = mid;
+        return upper;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "(" + after + ", " + end + "]";
+    }
+}
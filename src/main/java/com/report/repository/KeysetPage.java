@@ -0,0 +1,39 @@
+package com.report.repository;
+
+import com.report.model.EventRow;
+
+import java.util.List;
+
+/**
+ * One page of a keyset (seek) read
+ * Carries the last cursor value seen so the next page can continue after it
+ */
+public class KeysetPage {
+    private final List<EventRow> records;
+    private final long lastKey;
+
+    public KeysetPage(List<EventRow> records, long lastKey) {
+        this.records = records;
+        this.lastKey = lastKey;
+    }
+
+    public List<EventRow> getRecords() {
+        return records;
+    }
+
+    /**
+     * Cursor value of the last record in this page
+     * (equals the requested start key when the page is empty)
+     */
+    public long getLastKey() {
+        return lastKey;
+    }
+
+    public int size() {
+        return records.size();
+    }
+
+    public boolean isEmpty() {
+        return records.isEmpty();
+    }
+}
@@ -0,0 +1,268 @@
+package com.report.repository;
+
+import com.report.model.EventRow;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Reads a date partition as key ranges on several connections at once
+ * The span between the lowest and highest cursor value is cut into readers * rangesPerReader
+ * ranges, which readers take from a shared queue; a reader finding the queue empty steals
+ * the upper half of the range with the most keys left, so a skewed range does not leave the
+ * others idle. Each range is read with keyset pagination, and every page is handed to the
+ * sink from the reader's thread; pages of different ranges arrive in no particular order.
+ */
+public class ParallelRangeReader {
+    private static final Logger logger = LoggerFactory.getLogger(ParallelRangeReader.class);
+
+    /**
+     * Told about ranges and pages as they are read, from the reader threads
+     */
+    public interface Listener {
+        /**
+         * A range is about to be read (before any reader can read it)
+         */
+        void rangeStarted(KeyRange range, long afterKey);
+
+        /**
+         * A page of a range was read (before its rows are handed to the sink)
+         */
+        void pageRead(KeyRange range, long lastKey, int rows);
+
+        /**
+         * A range has been read to its end
+         */
+        void rangeFinished(KeyRange range);
+    }
+
+    /**
+     * Where the reader gets its key bounds and pages from
+     */
+    interface PageSource {
+        /**
+         * @return {min, max} cursor value after afterKey, or null if there is none
+         */
+        long[] bounds(long afterKey);
+
+        KeysetPage page(long afterKey, long endKey, int limit);
+    }
+
+    private final String tableName;
+    private final String dt;
+    private final PageSource source;
+    private final int readers;
+    private final int rangesPerReader;
+    private final int pageSize;
+
+    // Ranges not taken yet, and ranges being read; guarded by this
+    private final Deque<KeyRange> queued = new ArrayDeque<>();
+    private final Set<KeyRange> reading = new HashSet<>();
+    private int steals;
+
+    /**
+     * @param shard      Shard to read, 0 to shardCount - 1
+     * @param shardCount Number of shards of the partition; 1 for the whole partition
+     * @param readers    Ranges read at the same time, each on its own connection
+     */
+    public ParallelRangeReader(EventDataRepository repository, String tableName, String dt, int shard, int shardCount,
+                               int readers, int rangesPerReader, int pageSize) {
+        this(tableName, dt, new PageSource() {
+            @Override
+            public long[] bounds(long afterKey) {
+                return repository.queryKeyBounds(tableName, dt, afterKey);
+            }
+
+            @Override
+            public KeysetPage page(long afterKey, long endKey, int limit) {
+                return repository.queryRange(tableName, dt, afterKey, endKey, limit, shard, shardCount);
+            }
+        }, readers, rangesPerReader, pageSize);
+    }
+
+    ParallelRangeReader(String tableName, String dt, PageSource source, int readers, int rangesPerReader,
+                        int pageSize) {
+        this.tableName = tableName;
+        this.dt = dt;
+        this.source = source;
+        this.readers = readers;
+        this.rangesPerReader = rangesPerReader;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Read every row after a key, returning once all readers are done
+     * If a reader fails the others stop after their current page, and the failure is thrown.
+     *
+     * @param afterKey Key to start after ({@link EventDataRepository#START_KEY} for the whole partition)
+     * @param listener Told about ranges and pages
+     * @param sink     Takes every page; called from several threads at once
+     * @return Number of records read
+     */
+    public long read(long afterKey, Listener listener, Consumer<List<EventRow>> sink) {
+        long[] bounds = source.bounds(afterKey);
+        if (bounds == null) {
+            return 0;
+        }
+        split(Math.max(afterKey, bounds[0] - 1), bounds[1], listener);
+        logger.info("Reading {} (dt={}) keys {} to {} with {} readers over {} ranges",
+                tableName, dt, bounds[0], bounds[1], readers, queued.size());
+
+        AtomicLong totalRecords = new AtomicLong();
+        AtomicBoolean failed = new AtomicBoolean();
+        AtomicInteger threadIndex = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(readers, runnable -> {
+            Thread thread = new Thread(runnable, "range-reader-" + tableName + "-" + threadIndex.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try {
+            List<Future<?>> futures = new ArrayList<>(readers);
+            for (int i = 0; i < readers; i++) {
+                futures.add(executor.submit(() -> {
+                    try {
+                        KeyRange range;
+                        while (!failed.get() && (range = next(listener)) != null) {
+                            try {
+                                totalRecords.addAndGet(readRange(range, listener, sink, failed));
+                            } finally {
+                                done(range);
+                            }
+                        }
+                    } catch (RuntimeException e) {
+                        failed.set(true);
+                        throw e;
+                    }
+                }));
+            }
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof RuntimeException ? (RuntimeException) cause
+                    : new RuntimeException("Range read of " + tableName + " failed", cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while reading ranges of " + tableName, e);
+        } finally {
+            failed.set(true);
+            executor.shutdownNow();
+        }
+
+        logger.info("Read {} records from {} (dt={}), {} ranges stolen", totalRecords.get(), tableName, dt, steals);
+        return totalRecords.get();
+    }
+
+    /**
+     * Cut (after, end] into evenly spaced ranges and queue them
+     */
+    private synchronized void split(long after, long end, Listener listener) {
+        int count = (int) Math.max(1, Math.min((long) readers * rangesPerReader, end - after));
+        long span = end - after;
+        long from = after;
+        for (int i = 1; i <= count; i++) {
+            long to = i == count ? end : after + (long) ((double) span * i / count);
+            if (to > from) {
+                KeyRange range = new KeyRange(from, to);
+                listener.rangeStarted(range, from);
+                queued.add(range);
+                from = to;
+            }
+        }
+    }
+
+    /**
+     * Take the next queued range, or steal half of the busiest one
+     *
+     * @return Range to read, or null when nothing is left worth a reader
+     */
+    private synchronized KeyRange next(Listener listener) {
+        KeyRange range = queued.poll();
+        if (range == null) {
+            KeyRange victim = null;
+            for (KeyRange candidate : reading) {
+                if (victim == null || candidate.remaining() > victim.remaining()) {
+                    victim = candidate;
+                }
+            }
+            // A range narrower than two pages of dense keys is not worth a query of its own
+            range = victim != null ? victim.split(2L * pageSize, listener) : null;
+            if (range != null) {
+                steals++;
+                logger.debug("Stole {} from a reader of {} (dt={})", range, tableName, dt);
+            }
+        }
+        if (range != null) {
+            reading.add(range);
+        }
+        return range;
+    }
+
+    private synchronized void done(KeyRange range) {
+        reading.remove(range);
+    }
+
+    private long readRange(KeyRange range, Listener listener, Consumer<List<EventRow>> sink, AtomicBoolean failed) {
+        long records = 0;
+        while (!failed.get()) {
+            long after = range.getAfter();
+            long end = range.getEnd();
+            if (after >= end) {
+                range.finish();
+                listener.rangeFinished(range);
+                break;
+            }
+
+            KeysetPage page = source.page(after, end, pageSize);
+            List<EventRow> rows = page.getRecords();
+            boolean finished;
+            synchronized (range) {
+                long currentEnd = range.getEnd();
+                if (currentEnd < end) {
+                    // The upper part was stolen while the page was read; its new reader reads those rows
+                    int keep = 0;
+                    while (keep < rows.size() && rows.get(keep).getKey() <= currentEnd) {
+                        keep++;
+                    }
+                    rows = new ArrayList<>(rows.subList(0, keep));
+                }
+                finished = page.size() < pageSize || rows.size() < page.size();
+                if (!rows.isEmpty()) {
+                    long lastKey = rows.get(rows.size() - 1).getKey();
+                    range.advance(lastKey);
+                    listener.pageRead(range, lastKey, rows.size());
+                }
+                if (finished) {
+                    range.finish();
+                    listener.rangeFinished(range);
+                }
+            }
+
+            if (!rows.isEmpty()) {
+                sink.accept(rows);
+                records += rows.size();
+            }
+            if (finished) {
+                break;
+            }
+        }
+        return records;
+    }
+}
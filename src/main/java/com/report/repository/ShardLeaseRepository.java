@@ -0,0 +1,180 @@
+package com.report.repository;
+
+import com.report.config.DataSourceConfig;
+import com.report.model.TaskStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.*;
+
+/**
+ * Repository for shard leases in the report_shard_lease table
+ * Every statement is a single conditional write, and lease times come from the database
+ * clock, so instances coordinate without clock sync or an external coordinator.
+ */
+public class ShardLeaseRepository {
+    private static final Logger logger = LoggerFactory.getLogger(ShardLeaseRepository.class);
+
+    private static final String REGISTER_SQL =
+            "INSERT IGNORE INTO report_shard_lease (task_id, shard_count, shard, status) VALUES (?, ?, ?, ?)";
+
+    // Free, expired or already ours, and not completed
+    private static final String ACQUIRE_SQL =
+            "UPDATE report_shard_lease SET owner = ?, status = ?, " +
+            "lease_until = TIMESTAMPADD(MICROSECOND, ?, NOW(3)), updated_at = NOW() " +
+            "WHERE task_id = ? AND shard_count = ? AND shard = ? AND status <> ? " +
+            "AND (owner IS NULL OR owner = ? OR lease_until < NOW(3))";
+
+    private static final String RENEW_SQL =
+            "UPDATE report_shard_lease SET lease_until = TIMESTAMPADD(MICROSECOND, ?, NOW(3)), updated_at = NOW() " +
+            "WHERE task_id = ? AND shard_count = ? AND shard = ? AND owner = ?";
+
+    private static final String RELEASE_SQL =
+            "UPDATE report_shard_lease SET owner = NULL, lease_until = NULL, status = ?, updated_at = NOW() " +
+            "WHERE task_id = ? AND shard_count = ? AND shard = ? AND owner = ?";
+
+    private static final String RESET_SQL =
+            "UPDATE report_shard_lease SET status = ?, updated_at = NOW() " +
+            "WHERE task_id = ? AND shard_count = ? AND status = ?";
+
+    private static final String COUNT_INCOMPLETE_SQL =
+            "SELECT COUNT(*) FROM report_shard_lease WHERE task_id = ? AND shard_count = ? AND status <> ?";
+
+    private final DataSourceConfig dataSource;
+
+    public ShardLeaseRepository() {
+        this.dataSource = DataSourceConfig.getInstance();
+    }
+
+    /**
+     * Create the lease rows of a task's shards, keeping those that already exist
+     */
+    public void register(String taskId, int shardCount) {
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(REGISTER_SQL)) {
+
+            for (int shard = 0; shard < shardCount; shard++) {
+                stmt.setString(1, taskId);
+                stmt.setInt(2, shardCount);
+                stmt.setInt(3, shard);
+                stmt.setInt(4, TaskStatus.PENDING.getCode());
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+
+        } catch (SQLException e) {
+            logger.error("Failed to register shards of {}: {}", taskId, e.getMessage(), e);
+            throw new RuntimeException("Database update failed", e);
+        }
+    }
+
+    /**
+     * Take the lease of a shard unless another live instance holds it or it is completed
+     *
+     * @return true if the lease is now held by owner for leaseMs
+     */
+    public boolean tryAcquire(String taskId, int shardCount, int shard, String owner, long leaseMs) {
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(ACQUIRE_SQL)) {
+
+            stmt.setString(1, owner);
+            stmt.setInt(2, TaskStatus.RUNNING.getCode());
+            stmt.setLong(3, leaseMs * 1000);
+            stmt.setString(4, taskId);
+            stmt.setInt(5, shardCount);
+            stmt.setInt(6, shard);
+            stmt.setInt(7, TaskStatus.COMPLETED.getCode());
+            stmt.setString(8, owner);
+            return stmt.executeUpdate() == 1;
+
+        } catch (SQLException e) {
+            logger.error("Failed to acquire shard {} of {}: {}", shard, taskId, e.getMessage(), e);
+            return false;
+        }
+    }
+
+    /**
+     * Extend a lease held by owner
+     *
+     * @return false if owner no longer holds the lease
+     */
+    public boolean renew(String taskId, int shardCount, int shard, String owner, long leaseMs) {
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(RENEW_SQL)) {
+
+            stmt.setLong(1, leaseMs * 1000);
+            stmt.setString(2, taskId);
+            stmt.setInt(3, shardCount);
+            stmt.setInt(4, shard);
+            stmt.setString(5, owner);
+            return stmt.executeUpdate() == 1;
+
+        } catch (SQLException e) {
+            // Not lost yet; the lease runs on until it expires
+            logger.warn("Failed to renew lease of shard {} of {}: {}", shard, taskId, e.getMessage());
+            return true;
+        }
+    }
+
+    /**
+     * Give up a lease held by owner
+     *
+     * @param status COMPLETED if the shard is done, PENDING to let another instance take it
+     */
+    public void release(String taskId, int shardCount, int shard, String owner, TaskStatus status) {
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(RELEASE_SQL)) {
+
+            stmt.setInt(1, status.getCode());
+            stmt.setString(2, taskId);
+            stmt.setInt(3, shardCount);
+            stmt.setInt(4, shard);
+            stmt.setString(5, owner);
+            stmt.executeUpdate();
+
+        } catch (SQLException e) {
+            // The lease expires on its own
+            logger.error("Failed to release shard {} of {}: {}", shard, taskId, e.getMessage());
+        }
+    }
+
+    /**
+     * Put the completed shards of a task back to PENDING, so they are processed again
+     */
+    public void reset(String taskId, int shardCount) {
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(RESET_SQL)) {
+
+            stmt.setInt(1, TaskStatus.PENDING.getCode());
+            stmt.setString(2, taskId);
+            stmt.setInt(3, shardCount);
+            stmt.setInt(4, TaskStatus.COMPLETED.getCode());
+            stmt.executeUpdate();
+
+        } catch (SQLException e) {
+            logger.error("Failed to reset shards of {}: {}", taskId, e.getMessage(), e);
+            throw new RuntimeException("Database update failed", e);
+        }
+    }
+
+    /**
+     * Shards of a task not completed yet
+     */
+    public int countIncomplete(String taskId, int shardCount) {
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(COUNT_INCOMPLETE_SQL)) {
+
+            stmt.setString(1, taskId);
+            stmt.setInt(2, shardCount);
+            stmt.setInt(3, TaskStatus.COMPLETED.getCode());
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+
+        } catch (SQLException e) {
+            logger.error("Failed to count shards of {}: {}", taskId, e.getMessage(), e);
+            throw new RuntimeException("Database query failed", e);
+        }
+    }
+}
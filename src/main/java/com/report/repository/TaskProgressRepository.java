@@ -0,0 +1,118 @@
+package com.report.repository;
+
+import com.report.config.DataSourceConfig;
+import com.report.model.TaskProgress;
+import com.report.model.TaskStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.*;
+
+/**
+ * Repository for checkpoints in the task_progress table
+ */
+public class TaskProgressRepository {
+    private static final Logger logger = LoggerFactory.getLogger(TaskProgressRepository.class);
+
+    private static final String SELECT_SQL =
+            "SELECT table_name, task_type, status, last_processed_id, processed_count, success_count, fail_count, error_msg " +
+            "FROM task_progress WHERE task_id = ?";
+
+    // One round trip per checkpoint; start_time keeps the first run's value
+    private static final String UPSERT_SQL =
+            "INSERT INTO task_progress (task_id, table_name, task_type, status, last_processed_id, " +
+            "processed_count, success_count, fail_count, start_time, end_time, error_msg) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, NOW(), ?, ?) " +
+            "ON DUPLICATE KEY UPDATE status = VALUES(status), last_processed_id = VALUES(last_processed_id), " +
+            "processed_count = VALUES(processed_count), success_count = VALUES(success_count), " +
+            "fail_count = VALUES(fail_count), end_time = VALUES(end_time), error_msg = VALUES(error_msg)";
+
+    private static final String DELETE_SQL = "DELETE FROM task_progress WHERE task_id = ?";
+
+    private final DataSourceConfig dataSource;
+
+    public TaskProgressRepository() {
+        this.dataSource = DataSourceConfig.getInstance();
+    }
+
+    /**
+     * Load the checkpoint of a task
+     *
+     * @return Checkpoint, or null if the task has never run
+     */
+    public TaskProgress load(String taskId) {
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(SELECT_SQL)) {
+
+            stmt.setString(1, taskId);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next()) {
+                    return null;
+                }
+                TaskProgress progress = new TaskProgress(taskId, rs.getString(1), rs.getString(2));
+                progress.setStatus(TaskStatus.fromCode(rs.getInt(3)));
+                progress.setLastProcessedId(rs.getLong(4));
+                progress.setProcessedCount(rs.getLong(5));
+                progress.setSuccessCount(rs.getLong(6));
+                progress.setFailCount(rs.getLong(7));
+                progress.setErrorMsg(rs.getString(8));
+                return progress;
+            }
+
+        } catch (SQLException e) {
+            logger.error("Failed to load task progress {}: {}", taskId, e.getMessage(), e);
+            throw new RuntimeException("Database query failed", e);
+        }
+    }
+
+    /**
+     * Insert or update the checkpoint of a task
+     */
+    public void save(TaskProgress progress) {
+        boolean finished = progress.getStatus() == TaskStatus.COMPLETED || progress.getStatus() == TaskStatus.FAILED;
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(UPSERT_SQL)) {
+
+            stmt.setString(1, progress.getTaskId());
+            stmt.setString(2, progress.getTableName());
+            stmt.setString(3, progress.getTaskType());
+            stmt.setInt(4, progress.getStatus().getCode());
+            stmt.setLong(5, progress.getLastProcessedId());
+            stmt.setLong(6, progress.getProcessedCount());
+            stmt.setLong(7, progress.getSuccessCount());
+            stmt.setLong(8, progress.getFailCount());
+            stmt.setTimestamp(9, finished ? new Timestamp(System.currentTimeMillis()) : null);
+            stmt.setString(10, truncate(progress.getErrorMsg(), 1000));
+            stmt.executeUpdate();
+
+            logger.debug("Saved {}", progress);
+
+        } catch (SQLException e) {
+            logger.error("Failed to save task progress {}: {}", progress.getTaskId(), e.getMessage(), e);
+            throw new RuntimeException("Database update failed", e);
+        }
+    }
+
+    /**
+     * Delete the checkpoint of a task, so its next run starts from the beginning
+     */
+    public void delete(String taskId) {
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(DELETE_SQL)) {
+
+            stmt.setString(1, taskId);
+            stmt.executeUpdate();
+
+        } catch (SQLException e) {
+            logger.error("Failed to delete task progress {}: {}", taskId, e.getMessage(), e);
+            throw new RuntimeException("Database update failed", e);
+        }
+    }
+
+    private String truncate(String str, int maxLength) {
+        if (str == null) return null;
+        return str.length() > maxLength ? str.substring(0, maxLength) : str;
+    }
+}
@@ -2,6 +2,7 @@ package com.report.service;
 
 import com.report.config.AppConfig;
 import com.report.config.EventTableConfig;
+import com.report.model.EventRow;
 import com.report.model.ReportStatus;
 import com.report.repository.EventDataRepository;
 import org.slf4j.Logger;
@@ -31,14 +32,14 @@ public class DataFetchService {
      * @param lastProcessedId Last processed ID for checkpoint
      * @return List of records
      */
-    public List<Map<String, Object>> fetchBatch(String tableName, long lastProcessedId) {
+    public List<EventRow> fetchBatch(String tableName, long lastProcessedId) {
         return fetchBatch(tableName, lastProcessedId, config.getDbBatchSize());
     }
 
     /**
      * Fetch a batch of pending records with custom limit
      */
-    public List<Map<String, Object>> fetchBatch(String tableName, long lastProcessedId, int limit) {
+    public List<EventRow> fetchBatch(String tableName, long lastProcessedId, int limit) {
         if (!EventTableConfig.isValidTable(tableName)) {
             logger.error("Invalid table name: {}", tableName);
             throw new IllegalArgumentException("Invalid table name: " + tableName);
@@ -83,10 +84,26 @@ public class DataFetchService {
     /**
      * Fetch failed records that need retry
      */
-    public List<Map<String, Object>> fetchFailedRecords(String tableName, int limit) {
+    public List<EventRow> fetchFailedRecords(String tableName, int limit) {
         return eventDataRepository.fetchFailedRecords(tableName, config.getMaxRetryTimes(), limit);
     }
 
+    /**
+     * Fetch failed records that need retry, after the last id already taken
+     */
+    public List<EventRow> fetchFailedRecords(String tableName, long afterId, int limit) {
+        return eventDataRepository.fetchFailedRecords(tableName, config.getMaxRetryTimes(), afterId, limit);
+    }
+
+    /**
+     * Put records a previous run left in processing back to pending
+     *
+     * @return Number of records reset
+     */
+    public int resetProcessing(String tableName) {
+        return eventDataRepository.resetProcessing(tableName);
+    }
+
     /**
      * Mark records as processing
      */
@@ -114,4 +131,11 @@ public class DataFetchService {
     public void markAsFailed(String tableName, List<Long> ids) {
         eventDataRepository.markAsFailed(tableName, ids);
     }
+
+    /**
+     * Mark multiple records as failed, each with its error message, counting a retry
+     */
+    public void markAsFailed(String tableName, Map<Long, String> errors) {
+        eventDataRepository.markAsFailed(tableName, errors);
+    }
 }
@@ -1,13 +1,20 @@
 package com.report.service;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.report.config.EventTableConfig;
+import com.report.model.EventRow;
 import com.report.model.ReportEvent;
 import com.report.model.ReportPayload;
 import com.report.model.ReportUser;
+import com.report.model.RowSchema;
 import com.report.util.JsonUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
 import java.util.*;
 
 /**
@@ -20,10 +27,10 @@ public class DataTransformService {
      * Transform a database record to ReportPayload
      *
      * @param tableName Table name (used as event name)
-     * @param record    Database record as Map
+     * @param row       Database record
      * @return ReportPayload for API
      */
-    public ReportPayload transform(String tableName, Map<String, Object> record) {
+    public ReportPayload transform(String tableName, EventRow row) {
         EventTableConfig tableConfig = EventTableConfig.getByTableName(tableName);
         if (tableConfig == null) {
             logger.error("Unknown table name: {}", tableName);
@@ -38,18 +45,17 @@ public class DataTransformService {
 
         // Build user
         ReportUser user = new ReportUser();
-        user.setUserUniqueId(getStringValue(record, "user_unique_id"));
+        user.setUserUniqueId(row.getUserUniqueId());
         payload.setUser(user);
 
         // Build event
         ReportEvent event = new ReportEvent();
         event.setEvent(tableConfig.getEventName());  // Use event name from config (e.g., "__profile_set" for user_info)
-        event.setParams(buildParamsJson(tableConfig, record));
+        event.setParams(buildParamsJson(tableConfig, row));
 
         // Use 'et' field as event time if table has it, otherwise use current time
-        if (tableConfig.hasEtField()) {
-            Long etValue = getLongValue(record, "et");
-            event.setLocalTimeMs(etValue != null ? etValue : System.currentTimeMillis());
+        if (tableConfig.hasEtField() && row.hasEt()) {
+            event.setLocalTimeMs(row.getEt());
         } else {
             event.setLocalTimeMs(System.currentTimeMillis());
         }
@@ -65,16 +71,15 @@ public class DataTransformService {
     /**
      * Transform multiple records
      */
-    public List<ReportPayload> transformBatch(String tableName, List<Map<String, Object>> records) {
+    public List<ReportPayload> transformBatch(String tableName, List<EventRow> rows) {
         List<ReportPayload> payloads = new ArrayList<>();
-        for (Map<String, Object> record : records) {
+        for (EventRow row : rows) {
             try {
-                ReportPayload payload = transform(tableName, record);
+                ReportPayload payload = transform(tableName, row);
                 payloads.add(payload);
             } catch (Exception e) {
-                Long recordId = getLongValue(record, "id");
                 logger.error("Failed to transform record {} from table {}: {}",
-                        recordId, tableName, e.getMessage());
+                        row.getKey(), tableName, e.getMessage());
             }
         }
         return payloads;
@@ -84,58 +89,72 @@ public class DataTransformService {
      * Build params JSON string from record fields
      * Adds report_type parameter for certain tables
      */
-    private String buildParamsJson(EventTableConfig tableConfig, Map<String, Object> record) {
-        Map<String, Object> params = new LinkedHashMap<>();
+    private String buildParamsJson(EventTableConfig tableConfig, EventRow row) {
+        StringWriter writer = new StringWriter();
+        try (JsonGenerator generator = JsonUtil.getObjectMapper().getFactory().createGenerator(writer)) {
+            writeParams(generator, tableConfig, row);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return writer.toString();
+    }
+
+    /**
+     * Write the params object of a record: report_type for tables that need it,
+     * then every non-null param field by position
+     */
+    static void writeParams(JsonGenerator generator, EventTableConfig tableConfig, EventRow row) throws IOException {
+        generator.writeStartObject();
 
         // Add report_type parameter if table requires it
         if (tableConfig.needsReportType()) {
-            params.put("report_type", "poc_v1");
+            generator.writeStringField("report_type", "poc_v1");
         }
 
-        // Add all param fields from record
-        for (String field : tableConfig.getParamFields()) {
-            Object value = record.get(field);
+        // Add all param fields from record, by position
+        RowSchema schema = row.getSchema();
+        for (int i = 0; i < schema.getParamCount(); i++) {
+            Object value = row.getParam(i);
             if (value != null) {
-                params.put(field, value);
+                generator.writeFieldName(schema.getParamName(i));
+                writeValue(generator, value);
             }
         }
 
-        return JsonUtil.toJson(params);
+        generator.writeEndObject();
     }
 
     /**
-     * Get string value from record
+     * Write a column value; common JDBC types go straight to the generator,
+     * anything else through the ObjectMapper, with the same output either way
      */
-    private String getStringValue(Map<String, Object> record, String key) {
-        Object value = record.get(key);
-        if (value == null) {
-            return null;
+    private static void writeValue(JsonGenerator generator, Object value) throws IOException {
+        if (value instanceof String) {
+            generator.writeString((String) value);
+        } else if (value instanceof Integer) {
+            generator.writeNumber((Integer) value);
+        } else if (value instanceof Long) {
+            generator.writeNumber((Long) value);
+        } else if (value instanceof BigDecimal) {
+            generator.writeNumber((BigDecimal) value);
+        } else {
+            generator.writeObject(value);
         }
-        return value.toString();
     }
 
     /**
-     * Get long value from record
+     * Start a streaming request body for records of a table
+     *
+     * @param tableName Table name
+     * @param single    true for the single endpoint, false for the list endpoint
      */
-    private Long getLongValue(Map<String, Object> record, String key) {
-        Object value = record.get(key);
-        if (value == null) {
-            return null;
-        }
-        if (value instanceof Long) {
-            return (Long) value;
-        }
-        if (value instanceof Integer) {
-            return ((Integer) value).longValue();
-        }
-        if (value instanceof Number) {
-            return ((Number) value).longValue();
-        }
-        try {
-            return Long.parseLong(value.toString());
-        } catch (NumberFormatException e) {
-            return null;
+    public ReportBodyWriter newBodyWriter(String tableName, boolean single) {
+        EventTableConfig tableConfig = EventTableConfig.getByTableName(tableName);
+        if (tableConfig == null) {
+            logger.error("Unknown table name: {}", tableName);
+            throw new IllegalArgumentException("Unknown table name: " + tableName);
         }
+        return new ReportBodyWriter(tableConfig, single);
     }
 
     /**
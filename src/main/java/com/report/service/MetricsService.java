@@ -1,80 +1,115 @@
 package com.report.service;
 
 import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
 import io.micrometer.core.instrument.Timer;
-import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Service for collecting and exposing application metrics
+ * Meters live in a Prometheus registry, scraped through {@link #scrape}. Record and API meters
+ * are tagged with the table, its report mode and the endpoint they went to; process-wide meters
+ * (circuit breaker, adaptive limiter, compression, spool) carry no tags.
  */
 public class MetricsService {
     private static final Logger logger = LoggerFactory.getLogger(MetricsService.class);
     private static MetricsService instance;
 
-    private final MeterRegistry registry;
+    // Quantiles of API and database latency in timer snapshots (log summary, load harness).
+    // Scrapes carry the histogram buckets instead, so histogram_quantile gives the same
+    // quantiles aggregated across tables and instances
+    private static final double[] LATENCY_PERCENTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private final PrometheusMeterRegistry registry;
 
     // Counters
-    private final Counter recordsProcessedCounter;
-    private final Counter recordsSuccessCounter;
-    private final Counter recordsFailedCounter;
-    private final Counter apiBatchSentCounter;
-    private final Counter apiBatchSuccessCounter;
-    private final Counter apiBatchFailedCounter;
     private final Counter circuitBreakerOpenCounter;
+    private final Counter limiterRejectedCounter;
+    private final Counter compressionBytesInCounter;
+    private final Counter compressionBytesOutCounter;
+    private final Counter spooledRecordsCounter;
 
     // Timers
-    private final Timer batchProcessingTimer;
-    private final Timer apiRequestTimer;
-    private final Timer databaseQueryTimer;
+    private final Timer compressionTimer;
+
+    // Distribution summaries
+    private final DistributionSummary compressionRatio;
+
+    // Gauges (values held here so they survive across pipeline runs)
+    private final Map<String, AtomicInteger> pipelineQueueDepths = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> senderInFlight = new ConcurrentHashMap<>();
+    private final Map<String, Timer> singleRecordTimers = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> retryDepths = new ConcurrentHashMap<>();
+    private final Map<String, Timer> retryAgeTimers = new ConcurrentHashMap<>();
+    private final Map<String, Timer> rateLimitWaitTimers = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> batchSizes = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> streamPollIntervals = new ConcurrentHashMap<>();
+    private final Map<String, ReportMeters> reportMeters = new ConcurrentHashMap<>();
+    private final Map<String, Timer> databaseQueryTimers = new ConcurrentHashMap<>();
+    private final AtomicInteger limiterLimit = new AtomicInteger();
+    private final AtomicInteger limiterInFlight = new AtomicInteger();
+    private final AtomicInteger statusBuffered = new AtomicInteger();
 
     private MetricsService() {
-        this.registry = new SimpleMeterRegistry();
+        this.registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
 
         // Initialize counters
-        this.recordsProcessedCounter = Counter.builder("volcano.records.processed")
-                .description("Total number of records processed")
+        this.circuitBreakerOpenCounter = Counter.builder("volcano.circuit.breaker.open")
+                .description("Number of times circuit breaker opened")
                 .register(registry);
 
-        this.recordsSuccessCounter = Counter.builder("volcano.records.success")
-                .description("Total number of successfully reported records")
+        this.limiterRejectedCounter = Counter.builder("volcano.limiter.rejected")
+                .description("API requests rejected by the adaptive concurrency limiter")
                 .register(registry);
 
-        this.recordsFailedCounter = Counter.builder("volcano.records.failed")
-                .description("Total number of failed records")
+        this.compressionBytesInCounter = Counter.builder("volcano.http.compression.bytes.in")
+                .description("Request body bytes before compression")
+                .baseUnit("bytes")
                 .register(registry);
 
-        this.apiBatchSentCounter = Counter.builder("volcano.api.batches.sent")
-                .description("Total number of API batches sent")
+        this.compressionBytesOutCounter = Counter.builder("volcano.http.compression.bytes.out")
+                .description("Request body bytes after compression")
+                .baseUnit("bytes")
                 .register(registry);
 
-        this.apiBatchSuccessCounter = Counter.builder("volcano.api.batches.success")
-                .description("Total number of successful API batches")
+        this.spooledRecordsCounter = Counter.builder("volcano.spool.records")
+                .description("Failed records written to the spool for replay")
                 .register(registry);
 
-        this.apiBatchFailedCounter = Counter.builder("volcano.api.batches.failed")
-                .description("Total number of failed API batches")
+        // Initialize gauges
+        Gauge.builder("volcano.limiter.limit", limiterLimit, AtomicInteger::get)
+                .description("Current adaptive limit of API requests in flight")
                 .register(registry);
 
-        this.circuitBreakerOpenCounter = Counter.builder("volcano.circuit.breaker.open")
-                .description("Number of times circuit breaker opened")
+        Gauge.builder("volcano.limiter.inflight", limiterInFlight, AtomicInteger::get)
+                .description("API requests in flight under the adaptive limiter")
                 .register(registry);
-
-        // Initialize timers
-        this.batchProcessingTimer = Timer.builder("volcano.batch.processing.time")
-                .description("Time taken to process a batch")
+        Gauge.builder("volcano.status.buffered", statusBuffered, AtomicInteger::get)
+                .description("Report status transitions waiting to be written")
                 .register(registry);
 
-        this.apiRequestTimer = Timer.builder("volcano.api.request.time")
-                .description("Time taken for API requests")
+        // Initialize timers
+        this.compressionTimer = Timer.builder("volcano.http.compression.time")
+                .description("CPU time taken to compress a request body")
+                .publishPercentiles(0.5, 0.95, 0.99)
                 .register(registry);
 
-        this.databaseQueryTimer = Timer.builder("volcano.database.query.time")
-                .description("Time taken for database queries")
+        // Initialize distribution summaries
+        this.compressionRatio = DistributionSummary.builder("volcano.http.compression.ratio")
+                .description("Compressed size of a request body as a fraction of its original size")
+                .publishPercentiles(0.5, 0.95, 0.99)
                 .register(registry);
 
         logger.info("MetricsService initialized");
@@ -91,45 +126,189 @@ public class MetricsService {
         return registry;
     }
 
+    /**
+     * Render every meter in the Prometheus text format, or in OpenMetrics
+     *
+     * @param contentType Content type to render, as negotiated from the scraper's Accept header
+     */
+    public String scrape(String contentType) {
+        return registry.scrape(contentType);
+    }
+
     // Record methods
-    public void recordProcessed(long count) {
-        recordsProcessedCounter.increment(count);
+    public void recordCircuitBreakerOpen() {
+        circuitBreakerOpenCounter.increment();
     }
 
-    public void recordSuccess(long count) {
-        recordsSuccessCounter.increment(count);
+    public void recordLimiterRejected() {
+        limiterRejectedCounter.increment();
     }
 
-    public void recordFailed(long count) {
-        recordsFailedCounter.increment(count);
+    public void recordSpooled(long count) {
+        spooledRecordsCounter.increment(count);
     }
 
-    public void recordApiBatchSent() {
-        apiBatchSentCounter.increment();
+    public void recordCompression(int originalBytes, int compressedBytes, long durationNanos) {
+        compressionBytesInCounter.increment(originalBytes);
+        compressionBytesOutCounter.increment(compressedBytes);
+        compressionTimer.record(durationNanos, TimeUnit.NANOSECONDS);
+        compressionRatio.record((double) compressedBytes / originalBytes);
     }
 
-    public void recordApiBatchSuccess() {
-        apiBatchSuccessCounter.increment();
+    /**
+     * Get the record and API meters of a table reporting to an endpoint
+     *
+     * @param mode Report mode of the table (SINGLE or BATCH)
+     */
+    public ReportMeters reportMeters(String tableName, String mode, String endpoint) {
+        return reportMeters.computeIfAbsent(tableName + ":" + mode + ":" + endpoint,
+                key -> new ReportMeters(registry, tableName, mode, endpoint));
     }
 
-    public void recordApiBatchFailed() {
-        apiBatchFailedCounter.increment();
+    /**
+     * Get the timer of a database operation on a table, from borrowing the connection
+     * until the statement's results are read
+     */
+    public Timer databaseQuery(String tableName, String operation) {
+        return databaseQueryTimers.computeIfAbsent(tableName + ":" + operation, key ->
+                Timer.builder("volcano.database.query.time")
+                        .description("Time taken for database queries")
+                        .tag("table", tableName)
+                        .tag("operation", operation)
+                        .publishPercentiles(LATENCY_PERCENTILES)
+                        .publishPercentileHistogram()
+                        .minimumExpectedValue(Duration.ofMillis(1))
+                        .maximumExpectedValue(Duration.ofSeconds(60))
+                        .register(registry));
     }
 
-    public void recordCircuitBreakerOpen() {
-        circuitBreakerOpenCounter.increment();
+    /**
+     * Get the queue depth gauge of a pipeline stage for a table
+     * Registered on first use; the pipeline updates the returned value on every hand-off
+     */
+    public AtomicInteger pipelineQueueDepth(String stage, String tableName) {
+        return pipelineQueueDepths.computeIfAbsent(stage + ":" + tableName, key -> {
+            AtomicInteger depth = new AtomicInteger();
+            Gauge.builder("volcano.pipeline.queue.depth", depth, AtomicInteger::get)
+                    .description("Items waiting in a pipeline stage queue")
+                    .tag("stage", stage)
+                    .tag("table", tableName)
+                    .register(registry);
+            return depth;
+        });
+    }
+
+    /**
+     * Get the in-flight batch gauge of a table's sender
+     */
+    public AtomicInteger senderInFlight(String tableName) {
+        return senderInFlight.computeIfAbsent(tableName, key -> {
+            AtomicInteger inFlight = new AtomicInteger();
+            Gauge.builder("volcano.sender.inflight", inFlight, AtomicInteger::get)
+                    .description("Report batches currently in flight")
+                    .tag("table", tableName)
+                    .register(registry);
+            return inFlight;
+        });
+    }
+
+    /**
+     * Get the per-record report latency timer of a SINGLE mode table (includes retries)
+     */
+    public Timer singleRecordLatency(String tableName) {
+        return singleRecordTimers.computeIfAbsent(tableName, key ->
+                Timer.builder("volcano.single.record.latency")
+                        .description("Time taken to report one record in SINGLE mode, including retries")
+                        .tag("table", tableName)
+                        .publishPercentiles(0.5, 0.95, 0.99)
+                        .register(registry));
+    }
+
+    /**
+     * Get the gauge of records of a table waiting to be sent again
+     */
+    public AtomicInteger retryDepth(String tableName) {
+        return retryDepths.computeIfAbsent(tableName, key -> {
+            AtomicInteger depth = new AtomicInteger();
+            Gauge.builder("volcano.retry.depth", depth, AtomicInteger::get)
+                    .description("Records waiting for a retry")
+                    .tag("table", tableName)
+                    .register(registry);
+            return depth;
+        });
+    }
+
+    /**
+     * Get the timer of how long records of a table wait between a failed attempt and their retry
+     */
+    public Timer retryAge(String tableName) {
+        return retryAgeTimers.computeIfAbsent(tableName, key ->
+                Timer.builder("volcano.retry.age")
+                        .description("Time from a failed attempt until the record is sent again")
+                        .tag("table", tableName)
+                        .publishPercentiles(0.5, 0.95, 0.99)
+                        .register(registry));
+    }
+
+    /**
+     * Get the gauge of the rows per report batch currently picked for a table
+     */
+    public AtomicInteger batchSize(String tableName) {
+        return batchSizes.computeIfAbsent(tableName, key -> {
+            AtomicInteger size = new AtomicInteger();
+            Gauge.builder("volcano.batch.size", size, AtomicInteger::get)
+                    .description("Rows per report batch")
+                    .tag("table", tableName)
+                    .register(registry);
+            return size;
+        });
+    }
+
+    /**
+     * Get the gauge of the current delay between polls of a streamed table
+     */
+    public AtomicInteger streamPollInterval(String tableName) {
+        return streamPollIntervals.computeIfAbsent(tableName, key -> {
+            AtomicInteger intervalMs = new AtomicInteger();
+            Gauge.builder("volcano.stream.poll.interval", intervalMs, AtomicInteger::get)
+                    .description("Milliseconds until the next poll for pending records")
+                    .tag("table", tableName)
+                    .register(registry);
+            return intervalMs;
+        });
     }
 
-    public void recordBatchProcessingTime(long durationMs) {
-        batchProcessingTimer.record(durationMs, TimeUnit.MILLISECONDS);
+    /**
+     * Get the timer of how long requests to an endpoint wait for a rate limit permit
+     */
+    public Timer rateLimitWait(String endpoint) {
+        return rateLimitWaitTimers.computeIfAbsent(endpoint, key ->
+                Timer.builder("volcano.ratelimit.wait")
+                        .description("Time a request waits for a permit of the endpoint's rate limit")
+                        .tag("endpoint", endpoint)
+                        .publishPercentiles(0.5, 0.95, 0.99)
+                        .register(registry));
     }
 
-    public void recordApiRequestTime(long durationMs) {
-        apiRequestTimer.record(durationMs, TimeUnit.MILLISECONDS);
+    /**
+     * Get the gauge of the adaptive limit of API requests in flight
+     */
+    public AtomicInteger limiterLimit() {
+        return limiterLimit;
+    }
+
+    /**
+     * Get the gauge of API requests in flight under the adaptive limiter
+     */
+    public AtomicInteger limiterInFlight() {
+        return limiterInFlight;
     }
 
-    public void recordDatabaseQueryTime(long durationMs) {
-        databaseQueryTimer.record(durationMs, TimeUnit.MILLISECONDS);
+    /**
+     * Get the gauge of report status transitions buffered by the status writer
+     */
+    public AtomicInteger statusBuffered() {
+        return statusBuffered;
     }
 
     /**
@@ -138,30 +317,87 @@ public class MetricsService {
     public String getMetricsSummary() {
         StringBuilder sb = new StringBuilder();
         sb.append("\n========== Metrics Summary ==========\n");
-        sb.append(String.format("Records Processed: %.0f\n", recordsProcessedCounter.count()));
-        sb.append(String.format("Records Success: %.0f\n", recordsSuccessCounter.count()));
-        sb.append(String.format("Records Failed: %.0f\n", recordsFailedCounter.count()));
-        sb.append(String.format("API Batches Sent: %.0f\n", apiBatchSentCounter.count()));
-        sb.append(String.format("API Batches Success: %.0f\n", apiBatchSuccessCounter.count()));
-        sb.append(String.format("API Batches Failed: %.0f\n", apiBatchFailedCounter.count()));
+        sb.append(String.format("Records Processed: %.0f\n", countAll("volcano.records.processed")));
+        sb.append(String.format("Records Success: %.0f\n", countAll("volcano.records.success")));
+        sb.append(String.format("Records Failed: %.0f\n", countAll("volcano.records.failed")));
+        sb.append(String.format("API Batches Sent: %.0f\n", countAll("volcano.api.batches.sent")));
+        sb.append(String.format("API Batches Success: %.0f\n", countAll("volcano.api.batches.success")));
+        sb.append(String.format("API Batches Failed: %.0f\n", countAll("volcano.api.batches.failed")));
         sb.append(String.format("Circuit Breaker Opens: %.0f\n", circuitBreakerOpenCounter.count()));
-
-        if (batchProcessingTimer.count() > 0) {
-            sb.append(String.format("Avg Batch Processing Time: %.2f ms\n",
-                    batchProcessingTimer.mean(TimeUnit.MILLISECONDS)));
+        sb.append(String.format("Records Spooled: %.0f\n", spooledRecordsCounter.count()));
+        sb.append(String.format("Limiter Limit: %d, In Flight: %d, Rejected: %.0f\n", limiterLimit.get(),
+                limiterInFlight.get(), limiterRejectedCounter.count()));
+
+        appendMeanTime(sb, "Avg API Request Time", "volcano.api.request.time");
+        appendMeanTime(sb, "Avg Database Query Time", "volcano.database.query.time");
+        if (compressionTimer.count() > 0) {
+            sb.append(String.format("Compression: %.0f -> %.0f bytes (avg ratio %.3f), avg time %.3f ms\n",
+                    compressionBytesInCounter.count(), compressionBytesOutCounter.count(), compressionRatio.mean(),
+                    compressionTimer.mean(TimeUnit.MILLISECONDS)));
+        }
+        for (Map.Entry<String, AtomicInteger> entry : pipelineQueueDepths.entrySet()) {
+            sb.append(String.format("Pipeline Queue Depth [%s]: %d\n", entry.getKey(), entry.getValue().get()));
+        }
+        for (Map.Entry<String, Timer> entry : singleRecordTimers.entrySet()) {
+            Timer timer = entry.getValue();
+            if (timer.count() > 0) {
+                sb.append(String.format("Avg Single Record Latency [%s]: %.2f ms (max %.2f ms)\n", entry.getKey(),
+                        timer.mean(TimeUnit.MILLISECONDS), timer.max(TimeUnit.MILLISECONDS)));
+            }
+        }
+        for (Map.Entry<String, AtomicInteger> entry : senderInFlight.entrySet()) {
+            sb.append(String.format("Batches In Flight [%s]: %d\n", entry.getKey(), entry.getValue().get()));
         }
-        if (apiRequestTimer.count() > 0) {
-            sb.append(String.format("Avg API Request Time: %.2f ms\n",
-                    apiRequestTimer.mean(TimeUnit.MILLISECONDS)));
+        for (Map.Entry<String, AtomicInteger> entry : retryDepths.entrySet()) {
+            sb.append(String.format("Records Waiting For Retry [%s]: %d\n", entry.getKey(), entry.getValue().get()));
         }
-        if (databaseQueryTimer.count() > 0) {
-            sb.append(String.format("Avg Database Query Time: %.2f ms\n",
-                    databaseQueryTimer.mean(TimeUnit.MILLISECONDS)));
+        for (Map.Entry<String, Timer> entry : retryAgeTimers.entrySet()) {
+            Timer timer = entry.getValue();
+            if (timer.count() > 0) {
+                sb.append(String.format("Avg Retry Age [%s]: %.2f ms (max %.2f ms)\n", entry.getKey(),
+                        timer.mean(TimeUnit.MILLISECONDS), timer.max(TimeUnit.MILLISECONDS)));
+            }
+        }
+        for (Map.Entry<String, AtomicInteger> entry : batchSizes.entrySet()) {
+            sb.append(String.format("Batch Size [%s]: %d\n", entry.getKey(), entry.getValue().get()));
+        }
+        for (Map.Entry<String, Timer> entry : rateLimitWaitTimers.entrySet()) {
+            Timer timer = entry.getValue();
+            if (timer.count() > 0) {
+                sb.append(String.format("Avg Rate Limit Wait [%s]: %.2f ms (max %.2f ms)\n", entry.getKey(),
+                        timer.mean(TimeUnit.MILLISECONDS), timer.max(TimeUnit.MILLISECONDS)));
+            }
         }
         sb.append("=====================================\n");
         return sb.toString();
     }
 
+    /**
+     * Total of a counter across all its tags
+     */
+    private double countAll(String name) {
+        double total = 0;
+        for (Counter counter : registry.find(name).counters()) {
+            total += counter.count();
+        }
+        return total;
+    }
+
+    /**
+     * Append the mean of a timer across all its tags, if it recorded anything
+     */
+    private void appendMeanTime(StringBuilder sb, String label, String name) {
+        long count = 0;
+        double totalMs = 0;
+        for (Timer timer : registry.find(name).timers()) {
+            count += timer.count();
+            totalMs += timer.totalTime(TimeUnit.MILLISECONDS);
+        }
+        if (count > 0) {
+            sb.append(String.format("%s: %.2f ms\n", label, totalMs / count));
+        }
+    }
+
     /**
      * Log current metrics
      */
@@ -174,5 +410,97 @@ public class MetricsService {
      */
     public void reset() {
         registry.clear();
+        pipelineQueueDepths.clear();
+        senderInFlight.clear();
+        singleRecordTimers.clear();
+        retryDepths.clear();
+        retryAgeTimers.clear();
+        rateLimitWaitTimers.clear();
+        batchSizes.clear();
+        streamPollIntervals.clear();
+        reportMeters.clear();
+        databaseQueryTimers.clear();
+    }
+
+    /**
+     * Record and API meters of one table, report mode and endpoint
+     */
+    public static class ReportMeters {
+        private final Counter processed;
+        private final Counter success;
+        private final Counter failed;
+        private final Counter batchesSent;
+        private final Counter batchesSuccess;
+        private final Counter batchesFailed;
+        private final Timer apiRequestTime;
+
+        ReportMeters(MeterRegistry registry, String tableName, String mode, String endpoint) {
+            Tags tags = Tags.of("table", tableName, "mode", mode, "endpoint", endpoint);
+            this.processed = Counter.builder("volcano.records.processed")
+                    .description("Total number of records processed")
+                    .tags(tags)
+                    .register(registry);
+            this.success = Counter.builder("volcano.records.success")
+                    .description("Total number of successfully reported records")
+                    .tags(tags)
+                    .register(registry);
+            this.failed = Counter.builder("volcano.records.failed")
+                    .description("Total number of failed records")
+                    .tags(tags)
+                    .register(registry);
+            this.batchesSent = Counter.builder("volcano.api.batches.sent")
+                    .description("Total number of API batches sent, counting every attempt")
+                    .tags(tags)
+                    .register(registry);
+            this.batchesSuccess = Counter.builder("volcano.api.batches.success")
+                    .description("Total number of API batches accepted")
+                    .tags(tags)
+                    .register(registry);
+            this.batchesFailed = Counter.builder("volcano.api.batches.failed")
+                    .description("Total number of API batch attempts that failed")
+                    .tags(tags)
+                    .register(registry);
+            this.apiRequestTime = Timer.builder("volcano.api.request.time")
+                    .description("Time taken for API requests")
+                    .tags(tags)
+                    .publishPercentiles(LATENCY_PERCENTILES)
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofMillis(1))
+                    .maximumExpectedValue(Duration.ofSeconds(60))
+                    .register(registry);
+        }
+
+        /**
+         * Records read and handed to the pipeline
+         */
+        public void recordProcessed(long count) {
+            processed.increment(count);
+        }
+
+        public void recordSuccess(long count) {
+            success.increment(count);
+        }
+
+        public void recordFailed(long count) {
+            failed.increment(count);
+        }
+
+        /**
+         * An API request for a batch was answered or failed
+         *
+         * @param accepted     Whether the API accepted any event of the batch
+         * @param latencyNanos Time the request took; 0 if it never went out
+         */
+        public void recordBatch(boolean accepted, long latencyNanos) {
+            batchesSent.increment();
+            if (accepted) {
+                batchesSuccess.increment();
+            } else {
+                batchesFailed.increment();
+            }
+            if (latencyNanos > 0) {
+                apiRequestTime.record(latencyNanos, TimeUnit.NANOSECONDS);
+            }
+        }
     }
 }
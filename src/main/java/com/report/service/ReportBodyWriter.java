@@ -0,0 +1,184 @@
+package com.report.service;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.report.config.EventTableConfig;
+import com.report.model.EventRow;
+import com.report.util.JsonUtil;
+import com.report.util.PooledBuffer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * Streams the Volcano API request body for a batch of rows
+ * Payloads are written with a Jackson JsonGenerator as UTF-8 straight into a
+ * {@link PooledBuffer}; the params JSON of each row is rendered from the row into a
+ * per-thread scratch buffer and embedded as a string value, with no Map, POJO or
+ * intermediate String per record.
+ * <p>
+ * Writes the payload object for the single endpoint, or an array of payloads for the list endpoint.
+ * Not thread-safe; one writer per request body.
+ */
+public class ReportBodyWriter {
+    private static final JsonFactory JSON_FACTORY = JsonUtil.getObjectMapper().getFactory();
+    private static final ThreadLocal<ParamsScratch> PARAMS_SCRATCH = ThreadLocal.withInitial(ParamsScratch::new);
+
+    private final EventTableConfig tableConfig;
+    private final SerializedString eventName;
+    private final boolean single;
+    private final PooledBuffer buffer;
+    private final JsonGenerator generator;
+    private int count;
+
+    /**
+     * @param tableConfig Table the rows come from
+     * @param single      true for the single endpoint (exactly one payload object),
+     *                    false for the list endpoint (array of payloads)
+     */
+    public ReportBodyWriter(EventTableConfig tableConfig, boolean single) {
+        this.tableConfig = tableConfig;
+        this.eventName = new SerializedString(tableConfig.getEventName());
+        this.single = single;
+        this.buffer = PooledBuffer.acquire();
+        try {
+            this.generator = JSON_FACTORY.createGenerator(buffer, JsonEncoding.UTF8);
+            if (!single) {
+                generator.writeStartArray();
+            }
+        } catch (IOException e) {
+            buffer.release();
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Append the payload of a row
+     * Params are rendered first, so a row whose values cannot be serialized throws
+     * before anything is written and the body stays valid without it.
+     */
+    public void add(EventRow row) {
+        if (single && count > 0) {
+            throw new IllegalStateException("Single endpoint body holds exactly one payload");
+        }
+        ParamsScratch params = PARAMS_SCRATCH.get();
+        params.render(tableConfig, row);
+
+        try {
+            generator.writeStartObject();
+
+            generator.writeFieldName("user");
+            generator.writeStartObject();
+            generator.writeStringField("user_unique_id", row.getUserUniqueId());
+            generator.writeEndObject();
+
+            generator.writeFieldName("header");
+            generator.writeStartObject();
+            generator.writeEndObject();
+
+            generator.writeFieldName("events");
+            generator.writeStartArray();
+            generator.writeStartObject();
+            generator.writeFieldName("event");
+            generator.writeString(eventName);
+            generator.writeFieldName("params");
+            generator.writeString(params.chars(), 0, params.length());
+            // Use 'et' field as event time if table has it, otherwise use current time
+            generator.writeNumberField("local_time_ms", tableConfig.hasEtField() && row.hasEt()
+                    ? row.getEt()
+                    : System.currentTimeMillis());
+            generator.writeEndObject();
+            generator.writeEndArray();
+
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        count++;
+    }
+
+    /**
+     * Number of payloads written
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Complete the body; the caller owns the returned buffer and must release it
+     */
+    public PooledBuffer finish() {
+        try {
+            if (!single) {
+                generator.writeEndArray();
+            }
+            generator.close();
+        } catch (IOException e) {
+            buffer.release();
+            throw new UncheckedIOException(e);
+        }
+        return buffer;
+    }
+
+    /**
+     * Discard the body without completing it
+     */
+    public void abandon() {
+        buffer.release();
+    }
+
+    /**
+     * Per-thread params buffer with its own generator, reused for every row
+     */
+    private static final class ParamsScratch extends Writer {
+        private char[] chars = new char[512];
+        private int length;
+        private JsonGenerator generator;
+
+        void render(EventTableConfig tableConfig, EventRow row) {
+            length = 0;
+            try {
+                if (generator == null) {
+                    generator = JSON_FACTORY.createGenerator(this);
+                    generator.setRootValueSeparator(null);
+                }
+                DataTransformService.writeParams(generator, tableConfig, row);
+                generator.flush();
+            } catch (IOException | RuntimeException e) {
+                // The generator may be mid-object; start over with a fresh one
+                generator = null;
+                length = 0;
+                throw e instanceof IOException ? new UncheckedIOException((IOException) e) : (RuntimeException) e;
+            }
+        }
+
+        char[] chars() {
+            return chars;
+        }
+
+        int length() {
+            return length;
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) {
+            if (length + len > chars.length) {
+                chars = Arrays.copyOf(chars, Math.max(length + len, chars.length * 2));
+            }
+            System.arraycopy(cbuf, off, chars, length, len);
+            length += len;
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
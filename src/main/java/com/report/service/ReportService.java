@@ -2,21 +2,60 @@ package com.report.service;
 
 import com.report.config.AppConfig;
 import com.report.config.EventTableConfig;
+import com.report.config.ReadMode;
 import com.report.config.ReportMode;
+import com.report.model.EventRow;
+import com.report.model.ReportBatch;
 import com.report.model.ReportPayload;
 import com.report.model.ReportResult;
+import com.report.pipeline.BatchSizer;
+import com.report.pipeline.PipelineSettings;
+import com.report.pipeline.ProgressTracker;
+import com.report.pipeline.ReportPipeline;
+import com.report.pipeline.RetryPolicy;
+import com.report.pipeline.RetryQueue;
 import com.report.repository.EventDataRepository;
+import com.report.repository.KeyRange;
+import com.report.repository.KeysetPage;
+import com.report.repository.ParallelRangeReader;
+import com.report.repository.ShardLeaseRepository;
+import com.report.repository.TaskProgressRepository;
+import com.report.spool.FailedRecordSpool;
+import com.report.spool.SpoolReader;
+import com.report.spool.SpoolRecord;
 import com.report.util.HttpClientUtil;
 import com.report.util.JsonUtil;
 import com.report.util.LogSanitizer;
+import com.report.util.PooledBuffer;
+import com.report.util.RateLimiter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 /**
  * Main service for reporting events to Volcano Engine
@@ -29,19 +68,44 @@ public class ReportService {
     private static final String SINGLE_ENDPOINT = "/v2/event/json";
     private static final String BATCH_ENDPOINT = "/v2/event/list";
     private static final int BATCH_SIZE = 1000;
-    private static final int MAX_RETRIES = 3;
-    private static final long RETRY_DELAY_MS = 1000;
+    private static final int HTTP_PAYLOAD_TOO_LARGE = 413;
+    private static final int HTTP_TOO_MANY_REQUESTS = 429;
+    // Stands in for the date partition of streamed rows in batches and failed record logs
+    private static final String STREAM_DT = "stream";
+
+    // Requests in flight across all tables and concurrent runs in this process,
+    // bounded by the HTTP pool and the Volcano API rate limit
+    private static final Semaphore SEND_PERMITS =
+            new Semaphore(AppConfig.getInstance().getReportGlobalConcurrency());
+
+    // Token buckets keyed by endpoint and app key, shared by every table and run in this
+    // process, so requests stay under the Volcano API QPS quota instead of being throttled
+    private static final Map<String, RateLimiter> RATE_LIMITERS = new ConcurrentHashMap<>();
+
+    // Delays retries and rate-limited sends without holding a sender thread or an I/O thread;
+    // its tasks only re-pack rows or start an async request, so one thread serves every table
+    private static final ScheduledExecutorService RETRY_SCHEDULER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "report-retry");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     private final AppConfig config;
     private final HttpClientUtil httpClient;
     private final EventDataRepository dataRepository;
+    private final TaskProgressRepository progressRepository;
+    private final ShardLeaseRepository shardLeases;
     private final DataTransformService transformService;
+    private final RetryPolicy retryPolicy;
 
     public ReportService() {
         this.config = AppConfig.getInstance();
         this.httpClient = HttpClientUtil.getInstance();
         this.dataRepository = new EventDataRepository();
+        this.progressRepository = new TaskProgressRepository();
+        this.shardLeases = new ShardLeaseRepository();
         this.transformService = new DataTransformService();
+        this.retryPolicy = RetryPolicy.from(config);
     }
 
     /**
@@ -50,6 +114,132 @@ public class ReportService {
      * @param dt Date partition (e.g., "2026-01-26")
      */
     public void processDate(String dt) {
+        processDateTables(dt, false);
+    }
+
+    /**
+     * Process all tables for a date again from the start, including tables an earlier run completed
+     * The checkpoints of the date are cleared first, so rows that failed without being spooled
+     * (partially accepted batches, transform failures, spool disabled) are sent again, together
+     * with the rest of the partition.
+     *
+     * @param dt Date partition (e.g., "2026-01-26")
+     */
+    public void reprocessDate(String dt) {
+        processDateTables(dt, true);
+    }
+
+    /**
+     * Process all tables of every date in a range inside this process
+     * Up to backfill.parallelism dates run at the same time; they share the HTTP and
+     * database pools, the send budget and the rate limits, just like the tables of one date.
+     * A date that fails does not stop the others; each date is logged as it completes, and
+     * a per-date summary is printed at the end.
+     *
+     * @param from First date, inclusive (e.g., "2026-01-01")
+     * @param to   Last date, inclusive
+     */
+    public void backfill(String from, String to) {
+        List<String> dates = dateRange(from, to);
+        int parallelism = Math.min(config.getBackfillParallelism(), dates.size());
+        logger.info("========== Starting backfill ==========");
+        logger.info("Backfilling {} dates from {} to {} with {} date workers", dates.size(), from, to, parallelism);
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        ExecutorService dateExecutor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "backfill-worker-" + threadIndex.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Map<String, Future<TableResult>> futures = new LinkedHashMap<>();
+        Map<String, Long> durations = new ConcurrentHashMap<>();
+        AtomicInteger completed = new AtomicInteger();
+        long startTime = System.currentTimeMillis();
+        try {
+            for (String dt : dates) {
+                futures.put(dt, dateExecutor.submit(() -> {
+                    long dateStart = System.currentTimeMillis();
+                    try {
+                        return processDateTables(dt, false);
+                    } finally {
+                        durations.put(dt, System.currentTimeMillis() - dateStart);
+                        logger.info("Backfill progress: {}/{} dates done (last: {})",
+                                completed.incrementAndGet(), dates.size(), dt);
+                    }
+                }));
+            }
+
+            int totalRecords = 0;
+            int totalSuccess = 0;
+            int totalFail = 0;
+            int failedDates = 0;
+            System.out.println("\n========== Backfill " + from + " to " + to + " ==========");
+            System.out.printf("  %-12s %10s %10s %10s %10s%n", "DATE", "TOTAL", "SUCCESS", "FAIL", "SECONDS");
+            for (Map.Entry<String, Future<TableResult>> entry : futures.entrySet()) {
+                String dt = entry.getKey();
+                try {
+                    TableResult result = entry.getValue().get();
+                    totalRecords += result.totalRecords;
+                    totalSuccess += result.successCount;
+                    totalFail += result.failCount;
+                    System.out.printf("  %-12s %10d %10d %10d %10.1f%n", dt, result.totalRecords,
+                            result.successCount, result.failCount, durations.get(dt) / 1000.0);
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    logger.error("Failed to backfill date {}: {}", dt, cause.getMessage(), cause);
+                    failedDates++;
+                    System.out.printf("  %-12s %10s  %s%n", dt, "FAILED", cause.getMessage());
+                }
+            }
+            System.out.println("------------------------------------------------");
+            System.out.printf("  %-12s %10d %10d %10d %10.1f%n", "TOTAL", totalRecords, totalSuccess, totalFail,
+                    (System.currentTimeMillis() - startTime) / 1000.0);
+            System.out.println("================================================\n");
+
+            logger.info("========== Backfill completed ==========");
+            logger.info("Summary: dates={}, failedDates={}, total={}, success={}, fail={}",
+                    dates.size(), failedDates, totalRecords, totalSuccess, totalFail);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.error("Interrupted while waiting for backfill of {} to {}", from, to);
+        } finally {
+            dateExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Every date from from to to, inclusive
+     *
+     * @throws IllegalArgumentException if a date is not YYYY-MM-DD or to is before from
+     */
+    static List<String> dateRange(String from, String to) {
+        LocalDate first;
+        LocalDate last;
+        try {
+            first = LocalDate.parse(from);
+            last = LocalDate.parse(to);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Dates must be YYYY-MM-DD: " + e.getParsedString(), e);
+        }
+        if (last.isBefore(first)) {
+            throw new IllegalArgumentException("Backfill end date " + to + " is before start date " + from);
+        }
+
+        List<String> dates = new ArrayList<>();
+        for (LocalDate date = first; !date.isAfter(last); date = date.plusDays(1)) {
+            dates.add(date.toString());
+        }
+        return dates;
+    }
+
+    /**
+     * Process all tables for a date and log a summary
+     *
+     * @param restart Clear the checkpoints of the date first, so every table is read from the start
+     * @return Records, successes and failures of the date
+     */
+    private TableResult processDateTables(String dt, boolean restart) {
         logger.info("========== Starting date-based report task ==========");
         logger.info("Processing date: {}", dt);
 
@@ -57,259 +247,835 @@ public class ReportService {
         int totalFail = 0;
         int totalRecords = 0;
 
-        for (String tableName : config.getEventTables()) {
-            logger.info("Processing table: {}", tableName);
+        // Tables run concurrently; each one reads on a single connection and sends
+        // within its own concurrency limit and the shared send budget
+        int parallelism = Math.min(config.getReportTableParallelism(), config.getEventTables().length);
+        AtomicInteger threadIndex = new AtomicInteger();
+        ExecutorService tableExecutor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "table-worker-" + threadIndex.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
 
-            try {
-                TableResult result = processTable(tableName, dt);
-                totalRecords += result.totalRecords;
-                totalSuccess += result.successCount;
-                totalFail += result.failCount;
+        try {
+            Map<String, Future<TableResult>> futures = new LinkedHashMap<>();
+            for (String tableName : config.getEventTables()) {
+                futures.put(tableName, tableExecutor.submit(() -> {
+                    logger.info("Processing table: {}", tableName);
+                    if (restart && config.isCheckpointEnabled()) {
+                        clearCheckpoints(tableName, dt);
+                    }
+                    return config.isShardEnabled()
+                            ? processTableShards(tableName, dt)
+                            : processTable(tableName, dt, null);
+                }));
+            }
 
-                logger.info("Table {} completed: total={}, success={}, fail={}",
-                        tableName, result.totalRecords, result.successCount, result.failCount);
+            for (Map.Entry<String, Future<TableResult>> entry : futures.entrySet()) {
+                String tableName = entry.getKey();
+                try {
+                    TableResult result = entry.getValue().get();
+                    totalRecords += result.totalRecords;
+                    totalSuccess += result.successCount;
+                    totalFail += result.failCount;
 
-            } catch (Exception e) {
-                logger.error("Failed to process table {}: {}", tableName, e.getMessage(), e);
-                totalFail++;
+                    logger.info("Table {} completed: total={}, success={}, fail={}",
+                            tableName, result.totalRecords, result.successCount, result.failCount);
+
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    logger.error("Failed to process table {}: {}", tableName, cause.getMessage(), cause);
+                    totalFail++;
+                }
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.error("Interrupted while waiting for tables of dt={}", dt);
+        } finally {
+            tableExecutor.shutdownNow();
         }
 
         logger.info("========== Date-based report completed ==========");
         logger.info("Summary: total={}, success={}, fail={}", totalRecords, totalSuccess, totalFail);
+        return new TableResult(totalRecords, totalSuccess, totalFail);
+    }
+
+    /**
+     * Clear the checkpoint of a table and date, or those of its shards
+     * Shard checkpoints are deleted before their leases are reset, so no instance takes a
+     * reset shard while its completed checkpoint still exists.
+     */
+    private void clearCheckpoints(String tableName, String dt) {
+        String taskId = TableCheckpoint.taskId(tableName, dt);
+        if (!config.isShardEnabled()) {
+            progressRepository.delete(taskId);
+            logger.info("Checkpoint of {} cleared, reading it from the start", taskId);
+            return;
+        }
+        int shardCount = config.getShardCount();
+        for (int shard = 0; shard < shardCount; shard++) {
+            progressRepository.delete(ShardLease.checkpointId(taskId, shard, shardCount));
+        }
+        shardLeases.reset(taskId, shardCount);
+        logger.info("Checkpoints of {} shards of {} cleared, reading them from the start", shardCount, taskId);
+    }
+
+    /**
+     * Process the shards of a table for a date that no other instance is working on
+     * The partition is split into shard.count disjoint shards by hash of user_unique_id.
+     * Each shard is leased in report_shard_lease before it is processed, so every shard is
+     * sent by one instance at a time; shards whose owner died are taken over once their
+     * lease expires, and resume from the shard's checkpoint. Returns once every shard of the
+     * table is completed, by this instance or others.
+     *
+     * @return Processing result of the shards processed by this instance
+     */
+    private TableResult processTableShards(String tableName, String dt) {
+        String taskId = TableCheckpoint.taskId(tableName, dt);
+        int shardCount = config.getShardCount();
+        String owner = config.getShardInstanceId();
+        long leaseMs = config.getShardLeaseMs();
+        shardLeases.register(taskId, shardCount);
+
+        int totalRecords = 0;
+        int successCount = 0;
+        int failCount = 0;
+        // Start at a different shard on every instance, so instances rarely race for the same lease
+        int first = Math.floorMod(owner.hashCode(), shardCount);
+        while (true) {
+            boolean acquired = false;
+            for (int i = 0; i < shardCount; i++) {
+                ShardLease lease = ShardLease.tryAcquire(shardLeases, taskId, shardCount,
+                        (first + i) % shardCount, owner, leaseMs);
+                if (lease == null) {
+                    continue;
+                }
+                acquired = true;
+
+                TableResult result;
+                try {
+                    result = processTable(tableName, dt, lease);
+                } catch (RuntimeException e) {
+                    // Free the shard for another instance or the next run
+                    lease.release(false);
+                    throw e;
+                }
+                lease.release(true);
+                totalRecords += result.totalRecords;
+                successCount += result.successCount;
+                failCount += result.failCount;
+            }
+
+            int incomplete = shardLeases.countIncomplete(taskId, shardCount);
+            if (incomplete == 0) {
+                break;
+            }
+            if (!acquired) {
+                logger.info("Waiting for {} shards of {} held by other instances", incomplete, taskId);
+                try {
+                    Thread.sleep(leaseMs / 4);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for shards of " + taskId, e);
+                }
+            }
+        }
+        return new TableResult(totalRecords, successCount, failCount);
     }
 
     /**
      * Process a single table for a specific date
+     * Rows are read on the calling thread and handed to a staged pipeline
+     * (transform -> serialize -> send) running on its own workers
      *
      * @param tableName Table name
      * @param dt        Date partition
+     * @param lease     Shard of the partition to process; null for the whole partition
      * @return Processing result
      */
-    private TableResult processTable(String tableName, String dt) {
-        long totalCount = dataRepository.count(tableName, dt);
-        logger.info("Total records in {} (dt={}): {}", tableName, dt, totalCount);
+    private TableResult processTable(String tableName, String dt, ShardLease lease) {
+        // Get report mode for this table
+        EventTableConfig tableConfig = EventTableConfig.getByTableName(tableName);
+        ReportMode reportMode = tableConfig != null ? tableConfig.getReportMode() : ReportMode.BATCH;
+        ReadMode readMode = config.getReadMode();
+        if (readMode == ReadMode.KEYSET && (tableConfig == null || !tableConfig.hasCursorColumn())) {
+            // The dt tables have no id column; without cursor.column.<table> there is no key to seek on
+            logger.warn("No cursor.column.{} configured, reading table {} with OFFSET pagination", tableName, tableName);
+            readMode = ReadMode.OFFSET;
+        }
+        logger.info("Table {} using report mode: {}, read mode: {}", tableName, reportMode, readMode);
 
-        if (totalCount == 0) {
+        String checkpointId = lease != null ? lease.getCheckpointId() : TableCheckpoint.taskId(tableName, dt);
+        TableCheckpoint checkpoint = config.isCheckpointEnabled()
+                ? TableCheckpoint.load(progressRepository, checkpointId, tableName, readMode == ReadMode.KEYSET,
+                        EventDataRepository.START_KEY)
+                : null;
+        if (checkpoint != null && checkpoint.isCompleted()) {
+            logger.info("{} already completed, skipped", checkpointId);
             return new TableResult(0, 0, 0);
         }
+        ProgressTracker progress = checkpoint != null ? checkpoint.getTracker() : null;
+        long startKey = checkpoint != null ? checkpoint.getStartKey() : EventDataRepository.START_KEY;
 
-        // Get report mode for this table
+        TableCounters counters = new TableCounters(progress, null);
+        PipelineSettings settings = PipelineSettings.from(config, tableName, reportMode);
+        // Ranges read side by side would mix up the order of a user's records
+        int readers = settings.isOrderedByUser() ? 1 : config.getDbReadParallelism();
+        ReportPipeline pipeline = newPipeline(tableName, dt, reportMode, settings, counters);
+
+        long totalRecords;
+        String readError = "Read did not finish";
+        if (checkpoint != null) {
+            checkpoint.start(counters.success::get, counters.fail::get, config.getCheckpointIntervalMs());
+        }
+        pipeline.start();
+        try {
+            totalRecords = readPartition(tableName, dt, readMode, startKey, progress, lease, readers, pipeline::submit);
+            readError = null;
+        } catch (RuntimeException e) {
+            readError = e.getMessage();
+            throw e;
+        } finally {
+            try {
+                // Drain whatever was read, even if the read failed part way
+                pipeline.finish();
+            } finally {
+                if (checkpoint != null) {
+                    checkpoint.finish(readError);
+                }
+            }
+        }
+
+        logger.info("Total records read from {} (dt={}): {}", tableName, dt, totalRecords);
+        return new TableResult((int) totalRecords, counters.success.get(), counters.fail.get());
+    }
+
+    /**
+     * Build the transform -> serialize -> send pipeline of a table, not yet started
+     */
+    private ReportPipeline newPipeline(String tableName, String dt, ReportMode reportMode, PipelineSettings settings,
+                                       TableCounters counters) {
+        BatchSizer sizer = BatchSizer.from(config, tableName, reportMode);
+        logger.info("Table {} batch sizing: {}", tableName, sizer);
+        // BATCH mode re-packs failed rows into fresh batches; SINGLE mode retries each record
+        // in place, so records of a user stay in order
+        RetryQueue retryQueue = new RetryQueue(tableName, sizer::size,
+                config.getRetryIntervalMs(), RETRY_SCHEDULER);
+        RetryQueue batchRetries = reportMode == ReportMode.BATCH ? retryQueue : null;
+        return new ReportPipeline(tableName, settings,
+                rows -> toBatches(tableName, dt, reportMode, sizer, rows),
+                batch -> serializeBatch(batch, counters),
+                batch -> sendBatchWithRetry(batch, counters, batchRetries, sizer),
+                SEND_PERMITS, retryQueue);
+    }
+
+    /**
+     * Start a long-lived pipeline for streaming a table's pending records
+     * Rows must be keyed by their id; the outcome of every row is handed to the status writer
+     * instead of the spool, so failed rows are retried from their report_status.
+     *
+     * @return Started pipeline; the caller submits pages and finishes it on shutdown
+     */
+    ReportPipeline openStream(String tableName, StatusWriter status) {
         EventTableConfig tableConfig = EventTableConfig.getByTableName(tableName);
         ReportMode reportMode = tableConfig != null ? tableConfig.getReportMode() : ReportMode.BATCH;
-        logger.info("Table {} using report mode: {}", tableName, reportMode);
+        logger.info("Streaming table {} using report mode: {}", tableName, reportMode);
 
-        int successCount = 0;
-        int failCount = 0;
-        int offset = 0;
+        PipelineSettings settings = PipelineSettings.from(config, tableName, reportMode);
+        ReportPipeline pipeline = newPipeline(tableName, STREAM_DT, reportMode, settings,
+                new TableCounters(null, status));
+        pipeline.start();
+        return pipeline;
+    }
 
-        while (offset < totalCount) {
-            // Fetch batch with pagination
-            List<Map<String, Object>> records = dataRepository.queryWithOffset(
-                    tableName, dt, BATCH_SIZE, offset);
+    /**
+     * Fetch stage: read the partition page by page and hand each page to the sink
+     *
+     * @return Number of records read
+     */
+    private long readPartition(String tableName, String dt, ReadMode readMode, long startKey,
+                               ProgressTracker progress, ShardLease lease, int readers,
+                               Consumer<List<EventRow>> sink) {
+        switch (readMode) {
+            case OFFSET:
+                return readWithOffset(tableName, dt, sink);
+            case STREAM:
+                return readWithStream(tableName, dt, sink);
+            case KEYSET:
+            default:
+                return readers > 1
+                        ? readWithRanges(tableName, dt, startKey, progress, lease, readers, sink)
+                        : readWithKeyset(tableName, dt, startKey, progress, lease, sink);
+        }
+    }
 
-            if (records.isEmpty()) {
-                break;
+    /**
+     * Read the partition as key ranges on several connections at once, see {@link ParallelRangeReader}
+     * Pages reach the sink out of key order, so the progress tracker follows every range.
+     */
+    private long readWithRanges(String tableName, String dt, long startKey, ProgressTracker progress,
+                                ShardLease lease, int readers, Consumer<List<EventRow>> sink) {
+        int shard = lease != null ? lease.getShard() : 0;
+        int shardCount = lease != null ? lease.getShardCount() : 1;
+        ParallelRangeReader reader = new ParallelRangeReader(dataRepository, tableName, dt, shard, shardCount,
+                readers, config.getDbReadRangesPerReader(), BATCH_SIZE);
+
+        ParallelRangeReader.Listener listener = new ParallelRangeReader.Listener() {
+            @Override
+            public void rangeStarted(KeyRange range, long afterKey) {
+                if (progress != null) {
+                    progress.rangeStarted(range, afterKey);
+                }
             }
 
-            logger.info("Processing batch: table={}, dt={}, offset={}, size={}, mode={}",
-                    tableName, dt, offset, records.size(), reportMode);
-
-            // Process records based on report mode
-            if (reportMode == ReportMode.SINGLE) {
-                // Single mode: report one by one
-                for (Map<String, Object> record : records) {
-                    boolean success = processRecordWithRetry(tableName, dt, record);
-                    if (success) {
-                        successCount++;
-                    } else {
-                        failCount++;
-                    }
+            @Override
+            public void pageRead(KeyRange range, long lastKey, int rows) {
+                if (progress != null) {
+                    progress.pageRead(range, lastKey, rows);
                 }
-            } else {
-                // Batch mode: report in batches
-                BatchResult batchResult = processBatchRecords(tableName, dt, records);
-                successCount += batchResult.successCount;
-                failCount += batchResult.failCount;
             }
 
-            offset += records.size();
-            logger.info("Batch completed: offset={}, success={}, fail={}", offset, successCount, failCount);
-        }
+            @Override
+            public void rangeFinished(KeyRange range) {
+                if (progress != null) {
+                    progress.rangeFinished(range);
+                }
+            }
+        };
 
-        return new TableResult((int) totalCount, successCount, failCount);
+        return reader.read(startKey, listener, rows -> {
+            if (lease != null && !lease.isHeld()) {
+                throw new IllegalStateException("Lease of shard " + shard + "/" + shardCount + " of table "
+                        + tableName + " lost");
+            }
+            sink.accept(rows);
+        });
     }
 
     /**
-     * Process records in batch mode
-     * Splits records into smaller batches (up to 20) and reports with retry
+     * Read the partition with keyset pagination, carrying the last seen key from page to page
      *
-     * @param tableName Table name
-     * @param dt        Date partition
-     * @param records   List of records to process
-     * @return BatchResult with success and fail counts
+     * @param startKey Cursor to continue after ({@link EventDataRepository#START_KEY} for the whole partition)
+     * @param progress Told about every page before it is handed on; null if not checkpointed
+     * @param lease    Shard to read, checked before every page; null for the whole partition
      */
-    private BatchResult processBatchRecords(String tableName, String dt, List<Map<String, Object>> records) {
-        int successCount = 0;
-        int failCount = 0;
-        int reportBatchSize = config.getReportBatchSize(); // typically 20
+    private long readWithKeyset(String tableName, String dt, long startKey, ProgressTracker progress,
+                                ShardLease lease, Consumer<List<EventRow>> sink) {
+        long totalRecords = 0;
+        long afterKey = startKey;
+        int shard = lease != null ? lease.getShard() : 0;
+        int shardCount = lease != null ? lease.getShardCount() : 1;
 
-        // Transform all records first
-        List<ReportPayload> allPayloads = new ArrayList<>();
-        for (Map<String, Object> record : records) {
-            try {
-                ReportPayload payload = transformService.transform(tableName, record);
-                allPayloads.add(payload);
-            } catch (Exception e) {
-                logger.error("Failed to transform record from table {}: {}", tableName, e.getMessage());
-                logFailedRecord(tableName, dt, record, "Transform failed: " + e.getMessage());
-                failCount++;
+        while (true) {
+            if (lease != null && !lease.isHeld()) {
+                throw new IllegalStateException("Lease of shard " + shard + "/" + shardCount + " of table "
+                        + tableName + " lost after key " + afterKey);
+            }
+            KeysetPage page = dataRepository.queryAfterKey(tableName, dt, afterKey, BATCH_SIZE, shard, shardCount);
+
+            if (page.isEmpty()) {
+                break;
+            }
+
+            logger.debug("Fetched page: table={}, dt={}, afterKey={}, size={}", tableName, dt, afterKey, page.size());
+            if (progress != null) {
+                progress.pageRead(page.getLastKey(), page.size());
+            }
+            sink.accept(page.getRecords());
+            totalRecords += page.size();
+            afterKey = page.getLastKey();
+
+            if (page.size() < BATCH_SIZE) {
+                break; // short page, partition exhausted
             }
         }
 
-        // Split into smaller batches and report
-        for (int i = 0; i < allPayloads.size(); i += reportBatchSize) {
-            int end = Math.min(i + reportBatchSize, allPayloads.size());
-            List<ReportPayload> batch = allPayloads.subList(i, end);
+        return totalRecords;
+    }
 
-            // Retry batch report
-            for (int attempt = 1; attempt <= MAX_RETRIES; attempt++) {
-                try {
-                    ReportResult result = reportBatch(batch);
+    /**
+     * Read the partition through one streaming statement, handing off every BATCH_SIZE records
+     * No count() and no paging round trips; the read connection is held for the whole table
+     */
+    private long readWithStream(String tableName, String dt, Consumer<List<EventRow>> sink) {
+        AtomicReference<List<EventRow>> buffer = new AtomicReference<>(new ArrayList<>(BATCH_SIZE));
 
-                    if (result.isSuccess()) {
-                        successCount += batch.size();
-                        if (attempt > 1) {
-                            logger.info("Batch reported successfully on attempt {}: table={}, size={}",
-                                    attempt, tableName, batch.size());
-                        }
-                        break; // success, move to next batch
-                    }
+        long totalRecords = dataRepository.streamPartition(tableName, dt, record -> {
+            buffer.get().add(record);
+            if (buffer.get().size() >= BATCH_SIZE) {
+                // The sink takes ownership of the full page
+                sink.accept(buffer.getAndSet(new ArrayList<>(BATCH_SIZE)));
+            }
+        });
 
-                    logger.warn("Batch report attempt {} failed for table {}: {}",
-                            attempt, tableName, result.getErrorMessage());
-
-                    // Last attempt failed
-                    if (attempt == MAX_RETRIES) {
-                        failCount += batch.size();
-                        // Log all records in the failed batch
-                        for (ReportPayload payload : batch) {
-                            Map<String, Object> originalRecord = records.get(allPayloads.indexOf(payload));
-                            logFailedRecord(tableName, dt, originalRecord,
-                                    "Batch report failed: " + result.getErrorMessage());
-                        }
-                    } else {
-                        // Wait before retry
-                        Thread.sleep(RETRY_DELAY_MS);
-                    }
+        sink.accept(buffer.get());
+        return totalRecords;
+    }
 
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    logger.error("Batch report retry interrupted for table {}", tableName);
-                    failCount += batch.size();
-                    break;
-                } catch (Exception e) {
-                    logger.error("Unexpected error on batch report attempt {} for table {}: {}",
-                            attempt, tableName, e.getMessage());
-
-                    if (attempt == MAX_RETRIES) {
-                        failCount += batch.size();
-                    } else {
-                        try {
-                            Thread.sleep(RETRY_DELAY_MS);
-                        } catch (InterruptedException ie) {
-                            Thread.currentThread().interrupt();
-                            failCount += batch.size();
-                            break;
-                        }
-                    }
-                }
+    /**
+     * Read the partition with LIMIT/OFFSET pagination (legacy, cost grows with offset)
+     */
+    private long readWithOffset(String tableName, String dt, Consumer<List<EventRow>> sink) {
+        long totalCount = dataRepository.count(tableName, dt);
+        logger.info("Total records in {} (dt={}): {}", tableName, dt, totalCount);
+
+        int offset = 0;
+
+        while (offset < totalCount) {
+            // Fetch batch with pagination
+            List<EventRow> records = dataRepository.queryWithOffset(
+                    tableName, dt, BATCH_SIZE, offset);
+
+            if (records.isEmpty()) {
+                break;
             }
+
+            logger.debug("Fetched page: table={}, dt={}, offset={}, size={}", tableName, dt, offset, records.size());
+            sink.accept(records);
+            offset += records.size();
         }
 
-        return new BatchResult(successCount, failCount);
+        return offset;
+    }
+
+    /**
+     * Transform stage: split a page of rows into report batches
+     * SINGLE mode yields one-record batches for the single endpoint; BATCH mode splits the page
+     * into batches of the size the table's BatchSizer currently picks for the list endpoint.
+     */
+    private List<ReportBatch> toBatches(String tableName, String dt, ReportMode reportMode, BatchSizer sizer,
+                                        List<EventRow> records) {
+        boolean single = reportMode == ReportMode.SINGLE;
+        int reportBatchSize = single ? 1 : sizer.size();
+        String endpoint = single ? SINGLE_ENDPOINT : BATCH_ENDPOINT;
+
+        List<ReportBatch> batches = new ArrayList<>(records.size() / reportBatchSize + 1);
+        for (int from = 0; from < records.size(); from += reportBatchSize) {
+            int to = Math.min(from + reportBatchSize, records.size());
+            batches.add(new ReportBatch(tableName, dt, endpoint, new ArrayList<>(records.subList(from, to))));
+        }
+        reportMeters(tableName, endpoint).recordProcessed(records.size());
+        return batches;
     }
 
     /**
-     * Process a single record with retry logic
+     * Serialize stage: stream the request body of a batch straight from its rows
+     * Rows that cannot be serialized are dropped from the batch and accounted as failed
      *
-     * @param tableName Table name
-     * @param dt        Date partition
-     * @param record    Record data
-     * @return true if successful, false otherwise
+     * @return false if no row is left to send
      */
-    private boolean processRecordWithRetry(String tableName, String dt, Map<String, Object> record) {
-        // Transform to payload
-        ReportPayload payload;
+    private boolean serializeBatch(ReportBatch batch, TableCounters counters) {
+        String tableName = batch.getTableName();
+        ReportBodyWriter writer;
         try {
-            payload = transformService.transform(tableName, record);
+            writer = transformService.newBodyWriter(tableName, SINGLE_ENDPOINT.equals(batch.getEndpoint()));
         } catch (Exception e) {
-            logger.error("Failed to transform record from table {}: {}", tableName, e.getMessage());
-            logFailedRecord(tableName, dt, record, "Transform failed: " + e.getMessage());
+            logger.error("Failed to serialize batch from table {}: {}", tableName, e.getMessage());
+            failBatch(batch, counters, "Transform failed: " + e.getMessage());
             return false;
         }
 
-        // Retry up to MAX_RETRIES times
-        for (int attempt = 1; attempt <= MAX_RETRIES; attempt++) {
+        List<EventRow> failed = null;
+        for (EventRow record : batch.getRows()) {
             try {
-                ReportResult result = reportSingle(payload);
-
-                if (result.isSuccess()) {
-                    if (attempt > 1) {
-                        logger.info("Record reported successfully on attempt {}: table={}, user={}",
-                                attempt, tableName,
-                                LogSanitizer.sanitizeUserId(payload.getUser().getUserUniqueId()));
-                    }
-                    return true;
+                writer.add(record);
+            } catch (Exception e) {
+                logger.error("Failed to transform record from table {}: {}", tableName, e.getMessage());
+                logFailedRecord(tableName, batch.getDt(), record, "Transform failed: " + e.getMessage());
+                counters.fail.incrementAndGet();
+                reportMeters(tableName, batch.getEndpoint()).recordFailed(1);
+                counters.resolved(record);
+                counters.failed(tableName, Collections.singletonList(record), "Transform failed: " + e.getMessage());
+                if (failed == null) {
+                    failed = new ArrayList<>();
                 }
+                failed.add(record);
+            }
+        }
 
-                logger.warn("Report attempt {} failed for table {}: {}",
-                        attempt, tableName, result.getErrorMessage());
+        if (failed != null) {
+            batch.getRows().removeAll(failed);
+        }
+        if (writer.size() == 0) {
+            writer.abandon();
+            return false;
+        }
+        batch.setBody(writer.finish());
+        return true;
+    }
 
-                // Wait before retry
-                if (attempt < MAX_RETRIES) {
-                    Thread.sleep(RETRY_DELAY_MS);
-                }
+    /**
+     * Send stage: post a batch with retry and account for the outcome
+     * Requests go through HttpClientUtil.postAsync and retries are scheduled, so no thread
+     * waits on a batch; the returned future completes once the batch has been accounted for
+     * or its rows have been handed to the retry queue
+     *
+     * @param retries Re-packs failed rows into new batches; null to resend the same batch
+     * @param sizer   Learns from every answered request which batch size suits the table
+     */
+    private CompletableFuture<Void> sendBatchWithRetry(ReportBatch batch, TableCounters counters, RetryQueue retries,
+                                                       BatchSizer sizer) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        sendAttempt(batch, counters, retries, sizer, batch.getAttempt(), done);
+        return done.whenComplete((result, error) -> batch.releaseBody());
+    }
 
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                logger.error("Retry interrupted for table {}", tableName);
-                logFailedRecord(tableName, dt, record, "Retry interrupted");
-                return false;
+    private void sendAttempt(ReportBatch batch, TableCounters counters, RetryQueue retries, BatchSizer sizer,
+                             int attempt, CompletableFuture<Void> done) {
+        String endpoint = batch.getEndpoint();
+        long waitStart = System.nanoTime();
+        CompletableFuture<ReportResult> request;
+        try {
+            request = rateLimiter(endpoint).acquireAsync(RETRY_SCHEDULER).thenCompose(permit -> {
+                MetricsService.getInstance().rateLimitWait(endpoint)
+                        .record(System.nanoTime() - waitStart, TimeUnit.NANOSECONDS);
+                return httpClient.postAsync(endpoint, batch.getBody());
+            });
+        } catch (Exception e) {
+            request = new CompletableFuture<>();
+            request.completeExceptionally(e);
+        }
+
+        request.whenComplete((result, error) -> {
+            try {
+                onAttemptComplete(batch, counters, retries, sizer, attempt, result, error, done);
             } catch (Exception e) {
-                logger.error("Unexpected error on attempt {} for table {}: {}",
-                        attempt, tableName, e.getMessage());
+                logger.error("Failed to handle report result for table {}: {}", batch.getTableName(), e.getMessage(), e);
+                done.complete(null);
+            }
+        });
+    }
 
-                if (attempt < MAX_RETRIES) {
-                    try {
-                        Thread.sleep(RETRY_DELAY_MS);
-                    } catch (InterruptedException ie) {
-                        Thread.currentThread().interrupt();
-                        logFailedRecord(tableName, dt, record, "Retry interrupted: " + e.getMessage());
-                        return false;
-                    }
-                }
+    private void onAttemptComplete(ReportBatch batch, TableCounters counters, RetryQueue retries, BatchSizer sizer,
+                                   int attempt, ReportResult result, Throwable error, CompletableFuture<Void> done) {
+        String tableName = batch.getTableName();
+        String lastError;
+
+        int httpStatus = result != null ? result.getHttpStatus() : 0;
+        if (httpStatus == HTTP_PAYLOAD_TOO_LARGE) {
+            // Retried below; BATCH mode re-packs the rows at the reduced size
+            sizer.onTooLarge(batch.size());
+        } else if (httpStatus == HTTP_TOO_MANY_REQUESTS || httpStatus >= 500) {
+            // Throttled or failed fast; a quick error must not count as a fast request
+            sizer.onOverloaded();
+        } else if (httpStatus >= 200 && httpStatus < 300) {
+            sizer.onResponse(batch.size(), batch.getBody().length(), result.getLatencyNanos());
+        }
+        reportMeters(tableName, batch.getEndpoint()).recordBatch(
+                error == null && result.isSuccess() && acceptedCount(batch, result) > 0,
+                result != null ? result.getLatencyNanos() : 0);
+
+        if (error != null) {
+            lastError = error.getMessage();
+            logger.error("Unexpected error on report attempt {} for table {}: {}",
+                    attempt, tableName, error.getMessage());
+        } else if (result.isSuccess() && acceptedCount(batch, result) > 0) {
+            accountAccepted(batch, counters, result, attempt);
+            done.complete(null);
+            return;
+        } else if (result.isSuccess()) {
+            // Nothing was accepted, so the whole batch can be sent again without duplicates
+            lastError = "All events rejected: " + result.getRawResponse();
+            logger.warn("Report attempt {} rejected every event for table {} (size={}): {}",
+                    attempt, tableName, batch.size(), result.getRawResponse());
+        } else {
+            lastError = result.getErrorMessage();
+            logger.warn("Report attempt {} failed for table {} (size={}): {}",
+                    attempt, tableName, batch.size(), lastError);
+        }
+
+        if (retryPolicy.canRetry(attempt)) {
+            long delayMs = retryPolicy.delayMs(attempt);
+            if (retries != null) {
+                retries.retry(batch, batch.getRows(), delayMs);
+                done.complete(null);
+            } else {
+                retryInPlace(batch, counters, sizer, attempt, delayMs, done);
             }
+            return;
         }
 
         // All retries failed
-        logFailedRecord(tableName, dt, record, "Max retries exceeded");
-        return false;
+        failBatch(batch, counters, "Max retries exceeded: " + lastError);
+        done.complete(null);
+    }
+
+    /**
+     * Send the same batch again after delayMs (SINGLE mode, keeps per-user order)
+     */
+    private void retryInPlace(ReportBatch batch, TableCounters counters, BatchSizer sizer, int attempt, long delayMs,
+                              CompletableFuture<Void> done) {
+        MetricsService metrics = MetricsService.getInstance();
+        AtomicInteger depth = metrics.retryDepth(batch.getTableName());
+        long failedAt = System.nanoTime();
+
+        depth.addAndGet(batch.size());
+        RETRY_SCHEDULER.schedule(() -> {
+            depth.addAndGet(-batch.size());
+            metrics.retryAge(batch.getTableName()).record(System.nanoTime() - failedAt, TimeUnit.NANOSECONDS);
+            sendAttempt(batch, counters, null, sizer, attempt + 1, done);
+        }, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Events of a batch the API accepted: its sc count when reported, otherwise the whole batch
+     */
+    private static int acceptedCount(ReportBatch batch, ReportResult result) {
+        return acceptedCount(batch.size(), result);
+    }
+
+    private static int acceptedCount(int size, ReportResult result) {
+        Integer successCount = result.getSuccessCount();
+        if (successCount == null) {
+            Integer errorCount = result.getErrorCount();
+            return errorCount == null ? size : Math.max(0, size - errorCount);
+        }
+        return Math.min(successCount, size);
+    }
+
+    /**
+     * Account a batch the API accepted, in full or in part
+     * The response only counts rejected events (ec) without saying which ones, and resending
+     * the batch would duplicate the accepted ones, so a partial batch is not retried: the rest
+     * of the batch is accounted as failed and the batch is logged once with its counts. Streamed rows of such a
+     * batch are all marked failed, since marking them success would lose the rejected ones; the
+     * stream retry then sends the whole batch again, accepted events included.
+     */
+    private void accountAccepted(ReportBatch batch, TableCounters counters, ReportResult result, int attempt) {
+        int accepted = acceptedCount(batch, result);
+        MetricsService.ReportMeters meters = reportMeters(batch.getTableName(), batch.getEndpoint());
+        counters.success.addAndGet(accepted);
+        meters.recordSuccess(accepted);
+        counters.resolved(batch.getRows());
+
+        if (accepted < batch.size()) {
+            int rejected = batch.size() - accepted;
+            counters.fail.addAndGet(rejected);
+            meters.recordFailed(rejected);
+            logger.warn("Batch partially accepted on attempt {}: table={}, size={}, sc={}, ec={}",
+                    attempt, batch.getTableName(), batch.size(), result.getSuccessCount(), result.getErrorCount());
+            String reason = String.format("Partially rejected: %d of %d events in batch (sc=%s, ec=%s)",
+                    rejected, batch.size(), result.getSuccessCount(), result.getErrorCount());
+            counters.failed(batch.getTableName(), batch.getRows(), reason);
+            logFailedBatch(batch, reason);
+            return;
+        }
+
+        counters.reported(batch.getTableName(), batch.getRows());
+        if (attempt > 1) {
+            logger.info("Batch reported successfully on attempt {}: table={}, size={}",
+                    attempt, batch.getTableName(), batch.size());
+        }
+    }
+
+    /**
+     * Account every record of a batch as failed and log it for manual review
+     * A batch that got as far as a request body is also spooled, so replay mode can send it again;
+     * streamed rows are not, they are marked failed and retried from their report_status instead.
+     */
+    private void failBatch(ReportBatch batch, TableCounters counters, String reason) {
+        counters.fail.addAndGet(batch.size());
+        reportMeters(batch.getTableName(), batch.getEndpoint()).recordFailed(batch.size());
+        counters.resolved(batch.getRows());
+        counters.failed(batch.getTableName(), batch.getRows(), reason);
+        for (EventRow row : batch.getRows()) {
+            logFailedRecord(batch.getTableName(), batch.getDt(), row, reason);
+        }
+        PooledBuffer body = batch.getBody();
+        if (config.isSpoolEnabled() && body != null && counters.status == null) {
+            byte[] bytes = new byte[body.length()];
+            System.arraycopy(body.array(), 0, bytes, 0, bytes.length);
+            FailedRecordSpool.getInstance().append(new SpoolRecord(batch.getTableName(), batch.getDt(),
+                    batch.getEndpoint(), batch.size(), System.currentTimeMillis(), bytes));
+        }
+    }
+
+    /**
+     * Log a batch whose failed records cannot be told apart, once for the whole batch
+     */
+    private void logFailedBatch(ReportBatch batch, String reason) {
+        failedLogger.error("FAILED: table={}, dt={}, endpoint={}, records={}, reason={}",
+                batch.getTableName(), batch.getDt(), batch.getEndpoint(), batch.size(), reason);
     }
 
     /**
      * Log failed record for manual review
      */
-    private void logFailedRecord(String tableName, String dt, Map<String, Object> record, String reason) {
-        String userUniqueId = record.get("user_unique_id") != null
-                ? record.get("user_unique_id").toString()
+    private void logFailedRecord(String tableName, String dt, EventRow record, String reason) {
+        String userUniqueId = record.getUserUniqueId() != null
+                ? record.getUserUniqueId()
                 : "unknown";
 
         failedLogger.error("FAILED: table={}, dt={}, user={}, reason={}, record={}",
                 tableName, dt,
                 LogSanitizer.sanitizeUserId(userUniqueId),
                 reason,
-                JsonUtil.toJson(record));
+                JsonUtil.toJson(record.toMap()));
+    }
+
+    /**
+     * Re-send the requests kept in the failed record spool
+     * Every segment written so far is closed and streamed, and each request is sent again as
+     * it was, with the usual retries and rate limit. Requests that fail again, and with a dt
+     * those of other dates, go to a new segment; the replayed segments are then deleted.
+     *
+     * @param dt Only replay requests of this date partition; null for all of them
+     */
+    public void replaySpool(String dt) {
+        logger.info("========== Starting spool replay ==========");
+        logger.info("Replaying date: {}", dt != null ? dt : "all");
+
+        FailedRecordSpool spool = FailedRecordSpool.getInstance();
+        List<Path> segments;
+        try {
+            segments = spool.roll();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to list spool segments in " + spool.getDir(), e);
+        }
+        logger.info("Spool segments to replay: {}", segments.size());
+
+        TableCounters counters = new TableCounters();
+        AtomicInteger totalRecords = new AtomicInteger();
+        AtomicInteger kept = new AtomicInteger();
+        AtomicBoolean lost = new AtomicBoolean();
+        int maxInFlight = config.getReportGlobalConcurrency();
+        Semaphore inFlight = new Semaphore(maxInFlight);
+
+        try {
+            for (Path segment : segments) {
+                SpoolReader.Result read = SpoolReader.read(segment, record -> {
+                    if (dt != null && !dt.equals(record.getDt())) {
+                        kept.addAndGet(record.getRows());
+                        if (!spool.append(record)) {
+                            lost.set(true);
+                        }
+                        return;
+                    }
+                    totalRecords.addAndGet(record.getRows());
+                    reportMeters(record.getTableName(), record.getEndpoint()).recordProcessed(record.getRows());
+                    inFlight.acquireUninterruptibly();
+                    CompletableFuture<Void> done = new CompletableFuture<>();
+                    done.whenComplete((result, error) -> inFlight.release());
+                    replayAttempt(record, counters, lost, 1, done);
+                });
+                logger.info("Replayed spool segment {}: requests={}, corrupt={}",
+                        segment.getFileName(), read.getRecords(), read.getCorrupt());
+            }
+            inFlight.acquireUninterruptibly(maxInFlight);
+        } catch (IOException e) {
+            // Segments are kept, so a later replay picks up what this one missed
+            throw new RuntimeException("Failed to read spool segments in " + spool.getDir(), e);
+        }
+
+        if (lost.get()) {
+            logger.error("Some requests could not be spooled again; keeping the replayed segments");
+        } else {
+            for (Path segment : segments) {
+                try {
+                    Files.deleteIfExists(segment);
+                } catch (IOException e) {
+                    logger.error("Failed to delete replayed spool segment {}: {}", segment, e.getMessage());
+                }
+            }
+        }
+
+        logger.info("========== Spool replay completed ==========");
+        logger.info("Summary: total={}, success={}, fail={}, kept for other dates={}",
+                totalRecords.get(), counters.success.get(), counters.fail.get(), kept.get());
+    }
+
+    private void replayAttempt(SpoolRecord record, TableCounters counters, AtomicBoolean lost, int attempt,
+                               CompletableFuture<Void> done) {
+        String endpoint = record.getEndpoint();
+        PooledBuffer body = PooledBuffer.acquire();
+        body.write(record.getBody(), 0, record.getBody().length);
+
+        rateLimiter(endpoint).acquireAsync(RETRY_SCHEDULER)
+                .thenCompose(permit -> httpClient.postAsync(endpoint, body))
+                .whenComplete((result, error) -> {
+                    body.release();
+                    try {
+                        onReplayComplete(record, counters, lost, attempt, result, error, done);
+                    } catch (Exception e) {
+                        logger.error("Failed to handle replay result for table {}: {}",
+                                record.getTableName(), e.getMessage(), e);
+                        done.complete(null);
+                    }
+                });
+    }
+
+    private void onReplayComplete(SpoolRecord record, TableCounters counters, AtomicBoolean lost, int attempt,
+                                  ReportResult result, Throwable error, CompletableFuture<Void> done) {
+        MetricsService.ReportMeters meters = reportMeters(record.getTableName(), record.getEndpoint());
+        boolean accepted = error == null && result.isSuccess() && acceptedCount(record.getRows(), result) > 0;
+        meters.recordBatch(accepted, result != null ? result.getLatencyNanos() : 0);
+        if (accepted) {
+            // As in processDate, a partially accepted request is not sent again
+            int acceptedRows = acceptedCount(record.getRows(), result);
+            counters.success.addAndGet(acceptedRows);
+            counters.fail.addAndGet(record.getRows() - acceptedRows);
+            meters.recordSuccess(acceptedRows);
+            meters.recordFailed(record.getRows() - acceptedRows);
+            done.complete(null);
+            return;
+        }
+
+        String lastError = error != null ? error.getMessage()
+                : result.isSuccess() ? "All events rejected: " + result.getRawResponse() : result.getErrorMessage();
+        if (retryPolicy.canRetry(attempt)) {
+            logger.warn("Replay attempt {} failed for table {} (rows={}): {}",
+                    attempt, record.getTableName(), record.getRows(), lastError);
+            RETRY_SCHEDULER.schedule(() -> replayAttempt(record, counters, lost, attempt + 1, done),
+                    retryPolicy.delayMs(attempt), TimeUnit.MILLISECONDS);
+            return;
+        }
+
+        counters.fail.addAndGet(record.getRows());
+        meters.recordFailed(record.getRows());
+        failedLogger.error("FAILED: table={}, dt={}, rows={}, reason=Replay failed: {}",
+                record.getTableName(), record.getDt(), record.getRows(), lastError);
+        if (!FailedRecordSpool.getInstance().append(record)) {
+            lost.set(true);
+        }
+        done.complete(null);
+    }
+
+    /**
+     * Record and API meters of a table's requests to an endpoint, tagged with the report mode
+     * the endpoint belongs to
+     */
+    private static MetricsService.ReportMeters reportMeters(String tableName, String endpoint) {
+        ReportMode mode = SINGLE_ENDPOINT.equals(endpoint) ? ReportMode.SINGLE : ReportMode.BATCH;
+        return MetricsService.getInstance().reportMeters(tableName, mode.name(), endpoint);
+    }
+
+    /**
+     * Rate limit of an endpoint for the configured app key
+     */
+    private RateLimiter rateLimiter(String endpoint) {
+        return RATE_LIMITERS.computeIfAbsent(endpoint + "@" + config.getAppKey(), key -> {
+            double qps = SINGLE_ENDPOINT.equals(endpoint)
+                    ? config.getHttpRateLimitSingleQps()
+                    : config.getHttpRateLimitBatchQps();
+            RateLimiter limiter = new RateLimiter(qps, config.getHttpRateLimitBurst());
+            logger.info("Rate limit for endpoint {}: {}", endpoint, limiter);
+            return limiter;
+        });
+    }
+
+    /**
+     * Post a request, blocking the calling thread until the endpoint's rate limit allows it
+     */
+    private ReportResult postWithPermit(String endpoint, String json) {
+        long waitStart = System.nanoTime();
+        try {
+            rateLimiter(endpoint).acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ReportResult.failure(0, "Interrupted waiting for rate limit");
+        }
+        MetricsService.getInstance().rateLimitWait(endpoint).record(System.nanoTime() - waitStart, TimeUnit.NANOSECONDS);
+        return httpClient.post(endpoint, json);
     }
 
     /**
@@ -317,24 +1083,49 @@ public class ReportService {
      */
     public ReportResult reportSingle(ReportPayload payload) {
         String json = JsonUtil.toJson(payload);
-        return httpClient.post(SINGLE_ENDPOINT, json);
+        return postWithPermit(SINGLE_ENDPOINT, json);
     }
 
     /**
-     * Report batch of payloads (max 50, recommended 20)
+     * Report batch of payloads
+     * More than 50 payloads are split into several requests of at most 50; the result then
+     * adds up their sc/ec counts and is only successful if every request was.
      */
     public ReportResult reportBatch(List<ReportPayload> payloads) {
         if (payloads == null || payloads.isEmpty()) {
             return ReportResult.success(0);
         }
 
-        if (payloads.size() > 50) {
-            logger.warn("Batch size {} exceeds maximum 50, truncating", payloads.size());
-            payloads = payloads.subList(0, 50);
+        if (payloads.size() <= BatchSizer.API_MAX_BATCH_SIZE) {
+            return postWithPermit(BATCH_ENDPOINT, JsonUtil.toJson(payloads));
         }
 
-        String json = JsonUtil.toJson(payloads);
-        return httpClient.post(BATCH_ENDPOINT, json);
+        logger.debug("Splitting batch of {} payloads into requests of at most {}",
+                payloads.size(), BatchSizer.API_MAX_BATCH_SIZE);
+        int successCount = 0;
+        int errorCount = 0;
+        ReportResult firstFailure = null;
+        for (int from = 0; from < payloads.size(); from += BatchSizer.API_MAX_BATCH_SIZE) {
+            int to = Math.min(from + BatchSizer.API_MAX_BATCH_SIZE, payloads.size());
+            ReportResult part = postWithPermit(BATCH_ENDPOINT, JsonUtil.toJson(payloads.subList(from, to)));
+            if (part.isSuccess()) {
+                int accepted = part.getSuccessCount() != null ? Math.min(part.getSuccessCount(), to - from) : to - from;
+                successCount += accepted;
+                errorCount += to - from - accepted;
+            } else {
+                errorCount += to - from;
+                if (firstFailure == null) {
+                    firstFailure = part;
+                }
+            }
+        }
+
+        ReportResult result = firstFailure == null
+                ? ReportResult.success(successCount)
+                : ReportResult.failure(firstFailure.getHttpStatus(), firstFailure.getErrorMessage());
+        result.setSuccessCount(successCount);
+        result.setErrorCount(errorCount);
+        return result;
     }
 
     /**
@@ -374,7 +1165,7 @@ public class ReportService {
     }
 
     /**
-     * Result of processing a single table
+     * Result of processing a single table, or all tables of a date
      */
     private static class TableResult {
         final int totalRecords;
@@ -389,15 +1180,56 @@ public class ReportService {
     }
 
     /**
-     * Result of batch processing
+     * Running success/fail counts of a table, updated from pipeline workers
      */
-    private static class BatchResult {
-        final int successCount;
-        final int failCount;
+    private static class TableCounters {
+        final AtomicInteger success = new AtomicInteger();
+        final AtomicInteger fail = new AtomicInteger();
+        // Read progress to checkpoint; null if the read is not checkpointed
+        final ProgressTracker progress;
+        // Writes the outcome of every row back to its report_status; null unless streaming
+        final StatusWriter status;
 
-        BatchResult(int successCount, int failCount) {
-            this.successCount = successCount;
-            this.failCount = failCount;
+        TableCounters() {
+            this(null, null);
+        }
+
+        TableCounters(ProgressTracker progress, StatusWriter status) {
+            this.progress = progress;
+            this.status = status;
+        }
+
+        /**
+         * Rows that were reported or accounted as failed, and will not be sent again
+         */
+        void resolved(List<EventRow> rows) {
+            if (progress != null) {
+                progress.resolved(rows);
+            }
+        }
+
+        void resolved(EventRow row) {
+            if (progress != null) {
+                progress.resolved(row);
+            }
+        }
+
+        /**
+         * Rows the API accepted
+         */
+        void reported(String tableName, List<EventRow> rows) {
+            if (status != null) {
+                status.succeeded(tableName, rows);
+            }
+        }
+
+        /**
+         * Rows that failed for good in this run
+         */
+        void failed(String tableName, List<EventRow> rows, String reason) {
+            if (status != null) {
+                status.failed(tableName, rows, reason);
+            }
         }
     }
 }
@@ -0,0 +1,115 @@
+package com.report.service;
+
+import com.report.model.TaskStatus;
+import com.report.repository.ShardLeaseRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lease of one shard of a table and date, held by this instance
+ * The lease is renewed every third of shard.leaseMs while the shard is processed. If a
+ * renewal finds the lease taken over, because this instance stalled past its expiry,
+ * isHeld() turns false and the read stops before the next page, so the new owner and this
+ * instance overlap by at most the pages already read.
+ */
+class ShardLease {
+    private static final Logger logger = LoggerFactory.getLogger(ShardLease.class);
+
+    // Renewals are short updates; one thread serves every lease of this instance
+    private static final ScheduledExecutorService RENEWER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "shard-lease");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final ShardLeaseRepository repository;
+    private final String taskId;
+    private final int shardCount;
+    private final int shard;
+    private final String owner;
+    private final long leaseMs;
+    private final ScheduledFuture<?> renewTask;
+    private volatile boolean held = true;
+
+    private ShardLease(ShardLeaseRepository repository, String taskId, int shardCount, int shard,
+                       String owner, long leaseMs) {
+        this.repository = repository;
+        this.taskId = taskId;
+        this.shardCount = shardCount;
+        this.shard = shard;
+        this.owner = owner;
+        this.leaseMs = leaseMs;
+        long renewMs = leaseMs / 3;
+        this.renewTask = RENEWER.scheduleWithFixedDelay(this::renew, renewMs, renewMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Take the lease of a shard
+     *
+     * @return The lease, or null if another live instance holds it or the shard is completed
+     */
+    static ShardLease tryAcquire(ShardLeaseRepository repository, String taskId, int shardCount, int shard,
+                                 String owner, long leaseMs) {
+        if (!repository.tryAcquire(taskId, shardCount, shard, owner, leaseMs)) {
+            return null;
+        }
+        logger.info("Acquired shard {}/{} of {} as {}", shard, shardCount, taskId, owner);
+        return new ShardLease(repository, taskId, shardCount, shard, owner, leaseMs);
+    }
+
+    private void renew() {
+        if (held && !repository.renew(taskId, shardCount, shard, owner, leaseMs)) {
+            held = false;
+            renewTask.cancel(false);
+            logger.error("Lost lease of shard {}/{} of {} to another instance", shard, shardCount, taskId);
+        }
+    }
+
+    /**
+     * Whether this instance still holds the lease
+     */
+    boolean isHeld() {
+        return held;
+    }
+
+    int getShard() {
+        return shard;
+    }
+
+    int getShardCount() {
+        return shardCount;
+    }
+
+    /**
+     * Checkpoint task id of the shard
+     */
+    String getCheckpointId() {
+        return checkpointId(taskId, shard, shardCount);
+    }
+
+    /**
+     * Checkpoint id of one shard of a task
+     */
+    static String checkpointId(String taskId, int shard, int shardCount) {
+        return taskId + "#" + shard + "/" + shardCount;
+    }
+
+    /**
+     * Give up the lease, marking the shard completed if it still is ours
+     *
+     * @param completed Whether every row of the shard was read and resolved
+     */
+    void release(boolean completed) {
+        renewTask.cancel(false);
+        if (held) {
+            repository.release(taskId, shardCount, shard, owner,
+                    completed ? TaskStatus.COMPLETED : TaskStatus.PENDING);
+            held = false;
+        }
+    }
+}
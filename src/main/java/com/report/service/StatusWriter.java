@@ -0,0 +1,320 @@
+package com.report.service;
+
+import com.report.model.EventRow;
+import com.report.model.ReportStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Buffers the report_status transitions of streamed records per table and writes them in bulk
+ * A record taken for sending goes to PROCESSING, and to SUCCESS or FAILED once its batch is
+ * accounted for. Transitions are kept per table and id, and a later one replaces one still
+ * buffered, so a record reported within a flush interval is written once, straight to SUCCESS.
+ * A table's buffer is written once it holds flushSize records or its oldest transition is
+ * flushIntervalMs old, by one writer thread: PROCESSING and SUCCESS as fixed-size IN lists,
+ * FAILED as one JDBC batch carrying the error message of every record.
+ * {@link #processing} blocks while more than 16 flushes' worth of transitions wait, so polling
+ * slows down to what the database takes; outcomes never block, they come from send callbacks.
+ * A write that fails is logged and not retried: its records stay PENDING or PROCESSING until
+ * the next streaming start puts them back to PENDING, and are then reported again.
+ * Records are identified by their key, which the pending and failed queries set to the row id.
+ */
+public class StatusWriter {
+    private static final Logger logger = LoggerFactory.getLogger(StatusWriter.class);
+
+    /**
+     * Where transitions are written; DataFetchService in production
+     */
+    public interface Store {
+        void markAsProcessing(String tableName, List<Long> ids);
+
+        void markAsSuccess(String tableName, List<Long> ids);
+
+        void markAsFailed(String tableName, Map<Long, String> errors);
+    }
+
+    private final Store store;
+    private final int flushSize;
+    private final long flushIntervalNanos;
+    private final int maxBuffered;
+    private final Thread writer;
+    private final AtomicInteger bufferedGauge;
+    private final AtomicLong succeeded = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    private final Map<String, TableBuffer> buffers = new LinkedHashMap<>();  // guarded by this
+    private TableBuffer writing;   // guarded by this; buffer the writer thread is writing
+    private int buffered;          // guarded by this; transitions not written yet
+    private boolean closed;        // guarded by this
+
+    /**
+     * @param flushSize       Records at which a table's buffer is written
+     * @param flushIntervalMs Longest a transition waits in the buffer
+     */
+    public StatusWriter(Store store, int flushSize, long flushIntervalMs) {
+        this.store = store;
+        this.flushSize = flushSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        this.maxBuffered = flushSize * 16;
+        this.bufferedGauge = MetricsService.getInstance().statusBuffered();
+        this.writer = new Thread(this::run, "status-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Buffer rows taken for sending, waiting while the writer is too far behind
+     */
+    public void processing(String tableName, List<EventRow> rows) throws InterruptedException {
+        synchronized (this) {
+            while (buffered >= maxBuffered && !closed) {
+                wait();
+            }
+        }
+        buffer(tableName, rows, ReportStatus.PROCESSING, null);
+    }
+
+    /**
+     * Buffer rows the API accepted
+     */
+    public void succeeded(String tableName, List<EventRow> rows) {
+        buffer(tableName, rows, ReportStatus.SUCCESS, null);
+    }
+
+    /**
+     * Buffer rows that failed every attempt
+     */
+    public void failed(String tableName, List<EventRow> rows, String reason) {
+        buffer(tableName, rows, ReportStatus.FAILED, reason != null ? reason : "Unknown error");
+    }
+
+    private synchronized void buffer(String tableName, List<EventRow> rows, ReportStatus status, String errorMsg) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        TableBuffer buffer = buffers.computeIfAbsent(tableName, TableBuffer::new);
+        if (buffer.transitions.isEmpty()) {
+            buffer.firstNanos = System.nanoTime();
+        }
+        Transition transition = new Transition(status, errorMsg);
+        for (EventRow row : rows) {
+            if (buffer.transitions.put(row.getKey(), transition) == null) {
+                buffered++;
+            }
+        }
+        bufferedGauge.set(buffered);
+        if (buffer.transitions.size() >= flushSize) {
+            notifyAll();
+        }
+    }
+
+    private void run() {
+        while (true) {
+            TableBuffer due;
+            synchronized (this) {
+                try {
+                    while ((due = takeDue()) == null) {
+                        if (closed) {
+                            return;
+                        }
+                        waitForDue();
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                }
+                writing = due;
+            }
+
+            write(due);
+
+            synchronized (this) {
+                writing = null;
+                due.written = true;
+                buffered -= due.transitions.size();
+                bufferedGauge.set(buffered);
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Remove and return the first buffer that is full, old enough or being flushed
+     */
+    private TableBuffer takeDue() {
+        long now = System.nanoTime();
+        Iterator<TableBuffer> it = buffers.values().iterator();
+        while (it.hasNext()) {
+            TableBuffer buffer = it.next();
+            if (buffer.transitions.isEmpty()) {
+                continue;
+            }
+            if (buffer.forced || closed || buffer.transitions.size() >= flushSize
+                    || now - buffer.firstNanos >= flushIntervalNanos) {
+                it.remove();
+                return buffer;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Wait until the oldest buffer ages out, or until notified
+     */
+    private void waitForDue() throws InterruptedException {
+        long oldest = Long.MAX_VALUE;
+        boolean any = false;
+        for (TableBuffer buffer : buffers.values()) {
+            if (!buffer.transitions.isEmpty()) {
+                oldest = any ? Math.min(oldest, buffer.firstNanos) : buffer.firstNanos;
+                any = true;
+            }
+        }
+        if (!any) {
+            wait();
+            return;
+        }
+        long remainingNanos = oldest + flushIntervalNanos - System.nanoTime();
+        if (remainingNanos > 0) {
+            TimeUnit.NANOSECONDS.timedWait(this, remainingNanos);
+        }
+    }
+
+    /**
+     * Write a table's buffer: one status update per status, and the failures as one batch
+     */
+    private void write(TableBuffer buffer) {
+        List<Long> processing = new ArrayList<>();
+        List<Long> success = new ArrayList<>();
+        Map<Long, String> errors = new LinkedHashMap<>();
+        for (Map.Entry<Long, Transition> entry : buffer.transitions.entrySet()) {
+            Transition transition = entry.getValue();
+            switch (transition.status) {
+                case PROCESSING:
+                    processing.add(entry.getKey());
+                    break;
+                case SUCCESS:
+                    success.add(entry.getKey());
+                    break;
+                default:
+                    errors.put(entry.getKey(), transition.errorMsg);
+                    break;
+            }
+        }
+
+        String tableName = buffer.tableName;
+        if (!processing.isEmpty()) {
+            try {
+                store.markAsProcessing(tableName, processing);
+            } catch (Exception e) {
+                logWriteFailure("processing", processing.size(), tableName, e);
+            }
+        }
+        if (!success.isEmpty()) {
+            try {
+                store.markAsSuccess(tableName, success);
+                succeeded.addAndGet(success.size());
+            } catch (Exception e) {
+                logWriteFailure("success", success.size(), tableName, e);
+            }
+        }
+        if (!errors.isEmpty()) {
+            try {
+                store.markAsFailed(tableName, errors);
+                failed.addAndGet(errors.size());
+            } catch (Exception e) {
+                logWriteFailure("failed", errors.size(), tableName, e);
+            }
+        }
+    }
+
+    private static void logWriteFailure(String status, int count, String tableName, Exception e) {
+        logger.error("Failed to write {} status of {} records in table {}, they are sent again on the next start: {}",
+                status, count, tableName, e.getMessage());
+    }
+
+    /**
+     * Write everything buffered so far, and wait until it is written
+     */
+    public void flush() throws InterruptedException {
+        synchronized (this) {
+            Set<TableBuffer> pending = new HashSet<>(buffers.values());
+            if (writing != null) {
+                pending.add(writing);
+            }
+            for (TableBuffer buffer : pending) {
+                buffer.forced = true;
+            }
+            notifyAll();
+            for (TableBuffer buffer : pending) {
+                while (!buffer.written && !buffer.transitions.isEmpty()) {
+                    wait();
+                }
+            }
+        }
+    }
+
+    /**
+     * Write what is buffered and stop the writer thread
+     */
+    public void close() {
+        synchronized (this) {
+            closed = true;
+            notifyAll();
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Interrupted while writing buffered status transitions");
+        }
+        logger.info("Status writer closed: {} records marked success, {} marked failed",
+                succeeded.get(), failed.get());
+    }
+
+    public long getSucceeded() {
+        return succeeded.get();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+
+    /**
+     * Latest transition of every buffered record of a table, in the order first buffered
+     */
+    private static class TableBuffer {
+        final String tableName;
+        final LinkedHashMap<Long, Transition> transitions = new LinkedHashMap<>();
+        long firstNanos;
+        boolean forced;
+        boolean written;
+
+        TableBuffer(String tableName) {
+            this.tableName = tableName;
+        }
+    }
+
+    /**
+     * New status of a record; errorMsg is only set for FAILED
+     */
+    private static class Transition {
+        final ReportStatus status;
+        final String errorMsg;
+
+        Transition(ReportStatus status, String errorMsg) {
+            this.status = status;
+            this.errorMsg = errorMsg;
+        }
+    }
+}
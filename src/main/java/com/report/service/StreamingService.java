@@ -0,0 +1,257 @@
+package com.report.service;
+
+import com.report.config.AppConfig;
+import com.report.model.EventRow;
+import com.report.pipeline.PollInterval;
+import com.report.pipeline.ReportPipeline;
+import org.quartz.CronExpression;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Continuous incremental reporting through the report_status columns
+ * Every table is polled for pending records after the last id it has taken
+ * (id > lastId AND report_status = 0). A page goes into the table's long-lived pipeline, and
+ * its PROCESSING transition and the outcome of every record are written back in bulk by a
+ * {@link StatusWriter}. A table with a backlog is polled back to back and an idle one backs
+ * off, see {@link PollInterval}.
+ * Whenever schedule.retry.cron fires, each table flushes its buffered transitions and is swept
+ * once for FAILED records below retry.max.times; its pending scan then starts over from the
+ * lowest id, picking up records whose insert committed after a higher id had already been read.
+ * Run one streaming instance per database: at start, records left PROCESSING by an earlier
+ * run are put back to PENDING.
+ */
+public class StreamingService {
+    private static final Logger logger = LoggerFactory.getLogger(StreamingService.class);
+
+    private final AppConfig config;
+    private final DataFetchService dataFetchService;
+    private final ReportService reportService;
+    private final StatusWriter statusWriter;
+    private final List<TableStream> streams = new ArrayList<>();
+    private ScheduledThreadPoolExecutor pollers;
+    private volatile boolean running;
+
+    public StreamingService() {
+        this.config = AppConfig.getInstance();
+        this.dataFetchService = new DataFetchService();
+        this.reportService = new ReportService();
+        this.statusWriter = new StatusWriter(new StatusWriter.Store() {
+            @Override
+            public void markAsProcessing(String tableName, List<Long> ids) {
+                dataFetchService.markAsProcessing(tableName, ids);
+            }
+
+            @Override
+            public void markAsSuccess(String tableName, List<Long> ids) {
+                dataFetchService.markAsSuccess(tableName, ids);
+            }
+
+            @Override
+            public void markAsFailed(String tableName, Map<Long, String> errors) {
+                dataFetchService.markAsFailed(tableName, errors);
+            }
+        }, config.getStatusFlushSize(), config.getStatusFlushIntervalMs());
+    }
+
+    /**
+     * Open a pipeline per table and start polling
+     */
+    public synchronized void start() throws ParseException {
+        String[] tables = dataFetchService.getTableNames();
+        CronExpression retryCron = new CronExpression(config.getRetryCron());
+
+        logger.info("========== Starting streaming ==========");
+        logger.info("Streaming {} tables, polling every {}-{} ms, retrying failed records on cron {}",
+                tables.length, config.getStreamPollMinMs(), config.getStreamPollMaxMs(), config.getRetryCron());
+
+        // A poller may block while its pipeline is saturated, so every table gets its own thread,
+        // plus one for the retry trigger
+        AtomicInteger threadIndex = new AtomicInteger();
+        pollers = new ScheduledThreadPoolExecutor(tables.length + 1, runnable -> {
+            Thread thread = new Thread(runnable, "stream-poller-" + threadIndex.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        pollers.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        running = true;
+
+        for (String tableName : tables) {
+            int reset = dataFetchService.resetProcessing(tableName);
+            if (reset > 0) {
+                logger.warn("Table {}: {} records left processing by an earlier run put back to pending",
+                        tableName, reset);
+            }
+            TableStream stream = new TableStream(tableName, reportService.openStream(tableName, statusWriter));
+            streams.add(stream);
+            pollers.execute(stream::poll);
+        }
+        scheduleRetry(retryCron);
+    }
+
+    /**
+     * Ask every table to sweep its failed records on its next poll, at each fire time of the retry cron
+     */
+    private void scheduleRetry(CronExpression retryCron) {
+        Date next = retryCron.getNextValidTimeAfter(new Date());
+        if (next == null) {
+            logger.warn("Retry cron {} never fires again, failed records are no longer retried", config.getRetryCron());
+            return;
+        }
+        try {
+            pollers.schedule(() -> {
+                logStats();
+                for (TableStream stream : streams) {
+                    stream.retryDue = true;
+                }
+                scheduleRetry(retryCron);
+            }, Math.max(0, next.getTime() - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // Stopping
+        }
+    }
+
+    private void logStats() {
+        for (TableStream stream : streams) {
+            logger.info("Streaming table {}: {} records taken, {} retried, last id {}",
+                    stream.tableName, stream.taken.get(), stream.retried.get(), stream.lastId);
+        }
+        logger.info("Streaming status: {} records marked success, {} marked failed",
+                statusWriter.getSucceeded(), statusWriter.getFailed());
+    }
+
+    /**
+     * Stop polling, drain every pipeline and write the outcome of what was taken
+     */
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        logger.info("Stopping streaming...");
+
+        pollers.shutdown();
+        try {
+            // A poller blocked on a saturated pipeline returns once the pipeline takes its page
+            while (!pollers.awaitTermination(10, TimeUnit.SECONDS)) {
+                logger.info("Waiting for table pollers to stop...");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        for (TableStream stream : streams) {
+            try {
+                stream.pipeline.finish();
+            } catch (RuntimeException e) {
+                logger.error("Failed to drain pipeline of table {}: {}", stream.tableName, e.getMessage(), e);
+            }
+        }
+        statusWriter.close();
+        logStats();
+        logger.info("========== Streaming stopped ==========");
+    }
+
+    /**
+     * Polling state of one table, only touched by the poll task of the table
+     */
+    private class TableStream {
+        final String tableName;
+        final ReportPipeline pipeline;
+        final PollInterval interval = PollInterval.from(config);
+        final AtomicInteger pollIntervalGauge;
+        final AtomicLong taken = new AtomicLong();
+        final AtomicLong retried = new AtomicLong();
+        volatile long lastId;
+        volatile boolean retryDue;
+
+        TableStream(String tableName, ReportPipeline pipeline) {
+            this.tableName = tableName;
+            this.pipeline = pipeline;
+            this.pollIntervalGauge = MetricsService.getInstance().streamPollInterval(tableName);
+        }
+
+        void poll() {
+            if (!running) {
+                return;
+            }
+            int batchSize = config.getDbBatchSize();
+            long delayMs;
+            try {
+                if (retryDue) {
+                    retryDue = false;
+                    // Records taken so far must be out of PENDING and FAILED before either is read again
+                    statusWriter.flush();
+                    retryFailed(batchSize);
+                    lastId = 0;
+                }
+
+                List<EventRow> rows = dataFetchService.fetchBatch(tableName, lastId, batchSize);
+                take(rows);
+                if (!rows.isEmpty()) {
+                    lastId = rows.get(rows.size() - 1).getKey();
+                }
+                delayMs = interval.next(rows.size(), batchSize);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                logger.error("Failed to poll table {} after id {}: {}", tableName, lastId, e.getMessage());
+                delayMs = interval.failed();
+            }
+
+            pollIntervalGauge.set((int) Math.min(delayMs, Integer.MAX_VALUE));
+            if (running) {
+                try {
+                    pollers.schedule(this::poll, delayMs, TimeUnit.MILLISECONDS);
+                } catch (RejectedExecutionException e) {
+                    // Stopping
+                }
+            }
+        }
+
+        /**
+         * Send every failed record below the retry limit again, page by page in id order
+         */
+        private void retryFailed(int batchSize) throws InterruptedException {
+            long afterId = 0;
+            long count = 0;
+            while (running) {
+                List<EventRow> rows = dataFetchService.fetchFailedRecords(tableName, afterId, batchSize);
+                take(rows);
+                count += rows.size();
+                if (rows.size() < batchSize) {
+                    break;
+                }
+                afterId = rows.get(rows.size() - 1).getKey();
+            }
+            if (count > 0) {
+                retried.addAndGet(count);
+                logger.info("Table {}: {} failed records sent again", tableName, count);
+            }
+        }
+
+        /**
+         * Buffer the processing transition of a page and hand it to the pipeline
+         */
+        private void take(List<EventRow> rows) throws InterruptedException {
+            if (rows.isEmpty()) {
+                return;
+            }
+            statusWriter.processing(tableName, rows);
+            pipeline.submit(rows);
+            taken.addAndGet(rows.size());
+        }
+    }
+}
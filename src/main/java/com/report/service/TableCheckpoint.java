@@ -0,0 +1,180 @@
+package com.report.service;
+
+import com.report.model.TaskProgress;
+import com.report.model.TaskStatus;
+import com.report.pipeline.ProgressTracker;
+import com.report.repository.TaskProgressRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+
+/**
+ * Checkpoint of one table and date partition in task_progress
+ * While the table runs, the read cursor up to which every row is resolved and the counts
+ * are written every checkpoint.intervalMs, one upsert per table and only if something
+ * changed; a run after a crash resumes the keyset read after that cursor, and a partition
+ * already completed is skipped. Only keyset reads can resume: STREAM and OFFSET reads
+ * start over, and are only recorded as completed.
+ */
+class TableCheckpoint {
+    private static final Logger logger = LoggerFactory.getLogger(TableCheckpoint.class);
+
+    static final String TASK_TYPE = "DATE";
+
+    // Checkpoint writes are short upserts; one thread serves every table
+    private static final ScheduledExecutorService WRITER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "checkpoint-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final TaskProgressRepository repository;
+    private final TaskProgress progress;
+    private final boolean completed;
+    private final long startKey;
+    private final ProgressTracker tracker;
+    // Counts of earlier runs of the task
+    private final long baseProcessed;
+    private final long baseSuccess;
+    private final long baseFail;
+
+    private IntSupplier success;
+    private IntSupplier fail;
+    private ScheduledFuture<?> flushTask;
+    private long savedWatermark;
+    private long savedResolved = -1;
+
+    private TableCheckpoint(TaskProgressRepository repository, TaskProgress progress, boolean completed,
+                            long startKey, boolean resumable) {
+        this.repository = repository;
+        this.progress = progress;
+        this.completed = completed;
+        this.startKey = startKey;
+        this.tracker = resumable ? new ProgressTracker(startKey) : null;
+        this.baseProcessed = progress.getProcessedCount();
+        this.baseSuccess = progress.getSuccessCount();
+        this.baseFail = progress.getFailCount();
+    }
+
+    /**
+     * Load the checkpoint of a table and date, or of one shard of it
+     *
+     * @param taskId    {@link #taskId} of the table and date, or the shard's checkpoint id
+     * @param resumable Whether the read is a keyset read that can continue after a cursor
+     * @param firstKey  Cursor a read from the beginning starts after
+     * @throws IllegalStateException if the checkpoint cannot be read
+     */
+    static TableCheckpoint load(TaskProgressRepository repository, String taskId, String tableName,
+                                boolean resumable, long firstKey) {
+        TaskProgress saved;
+        try {
+            saved = repository.load(taskId);
+        } catch (RuntimeException e) {
+            // Unlike a lost save, an unread checkpoint could re-send a whole completed partition,
+            // so the table fails and the next run tries again
+            throw new IllegalStateException("Cannot read checkpoint " + taskId + " from task_progress"
+                    + " (see docs/schema-minimal.sql), or set checkpoint.enabled=false", e);
+        }
+
+        if (saved != null && saved.getStatus() == TaskStatus.COMPLETED) {
+            return new TableCheckpoint(repository, saved, true, firstKey, false);
+        }
+        if (saved != null && resumable) {
+            logger.info("Resuming {} after key {}: {}", taskId, saved.getLastProcessedId(), saved);
+            return new TableCheckpoint(repository, saved, false, saved.getLastProcessedId(), true);
+        }
+        if (saved != null) {
+            logger.info("{} was interrupted, but only keyset reads can resume; starting over", taskId);
+        }
+        TaskProgress fresh = new TaskProgress(taskId, tableName, TASK_TYPE);
+        fresh.setLastProcessedId(firstKey);
+        return new TableCheckpoint(repository, fresh, false, firstKey, resumable);
+    }
+
+    static String taskId(String tableName, String dt) {
+        return tableName + ":" + dt;
+    }
+
+    /**
+     * Whether an earlier run already completed the partition
+     */
+    boolean isCompleted() {
+        return completed;
+    }
+
+    /**
+     * Cursor the keyset read starts after
+     */
+    long getStartKey() {
+        return startKey;
+    }
+
+    /**
+     * Tracker of the read, or null if the read cannot resume
+     */
+    ProgressTracker getTracker() {
+        return tracker;
+    }
+
+    /**
+     * Mark the task running and start the periodic checkpoint writes
+     *
+     * @param success Rows reported by this run so far
+     * @param fail    Rows accounted as failed by this run so far
+     */
+    synchronized void start(IntSupplier success, IntSupplier fail, long intervalMs) {
+        this.success = success;
+        this.fail = fail;
+        save(TaskStatus.RUNNING, null);
+        flushTask = WRITER.scheduleWithFixedDelay(this::flush, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized void flush() {
+        if (tracker == null || (tracker.getWatermark() == savedWatermark && tracker.getResolved() == savedResolved)) {
+            return;
+        }
+        save(TaskStatus.RUNNING, null);
+    }
+
+    /**
+     * Stop the periodic writes and write the final checkpoint
+     * The task only counts as completed if the read finished and every row read was resolved.
+     *
+     * @param error Why the read failed; null if it finished
+     */
+    synchronized void finish(String error) {
+        if (flushTask != null) {
+            flushTask.cancel(false);
+        }
+        if (error == null && tracker != null && tracker.hasPending()) {
+            error = "Rows left unresolved after key " + tracker.getWatermark();
+        }
+        save(error == null ? TaskStatus.COMPLETED : TaskStatus.FAILED, error);
+    }
+
+    private void save(TaskStatus status, String error) {
+        long resolved = success.getAsInt() + fail.getAsInt();
+        if (tracker != null) {
+            progress.setLastProcessedId(tracker.getWatermark());
+            resolved = tracker.getResolved();
+        }
+        progress.setStatus(status);
+        progress.setProcessedCount(baseProcessed + resolved);
+        progress.setSuccessCount(baseSuccess + success.getAsInt());
+        progress.setFailCount(baseFail + fail.getAsInt());
+        progress.setErrorMsg(error);
+        try {
+            repository.save(progress);
+            savedWatermark = progress.getLastProcessedId();
+            savedResolved = resolved;
+        } catch (RuntimeException e) {
+            // The next write catches up; a lost checkpoint only means re-sending more on resume
+            logger.warn("Failed to write checkpoint {}: {}", progress.getTaskId(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.report.spool;
+
+import com.report.config.AppConfig;
+import com.report.service.MetricsService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Durable append-only spool of failed report requests
+ * Requests that failed every retry are appended to segment files in spool.dir, so the
+ * replay mode can re-send exactly those payloads instead of reprocessing the whole date.
+ * <pre>
+ * segment: magic "VRSP" (int), version (int), record*
+ * record:  length (int), CRC32 of data (int), data (length bytes, see SpoolRecord)
+ * </pre>
+ * A segment is rolled over once it reaches spool.segment.maxBytes, and written segments are
+ * forced to disk every spool.fsync.intervalMs, so a crash loses at most that much of the tail;
+ * {@link SpoolReader} stops at a torn record and skips records failing their CRC.
+ * The active segment is only created on the first append. Thread-safe.
+ */
+public class FailedRecordSpool {
+    private static final Logger logger = LoggerFactory.getLogger(FailedRecordSpool.class);
+    private static FailedRecordSpool instance;
+
+    static final int MAGIC = 0x56525350; // "VRSP"
+    static final int VERSION = 1;
+    static final int SEGMENT_HEADER_BYTES = 8;
+    static final int RECORD_HEADER_BYTES = 8;
+    private static final String SEGMENT_PREFIX = "failed-";
+    private static final String SEGMENT_SUFFIX = ".spool";
+
+    private final Path dir;
+    private final long maxSegmentBytes;
+    private final ScheduledExecutorService fsyncScheduler;
+
+    private FileChannel channel;    // guarded by this; null until the first append
+    private Path segment;           // guarded by this
+    private long segmentBytes;      // guarded by this
+    private boolean dirty;          // guarded by this
+    private int sequence;           // guarded by this
+
+    /**
+     * @param dir              Directory holding the segment files
+     * @param maxSegmentBytes  Size at which a segment is rolled over
+     * @param fsyncIntervalMs  How often written data is forced to disk
+     */
+    public FailedRecordSpool(Path dir, long maxSegmentBytes, long fsyncIntervalMs) {
+        this.dir = dir;
+        this.maxSegmentBytes = maxSegmentBytes;
+        this.fsyncScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "spool-fsync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        fsyncScheduler.scheduleWithFixedDelay(this::sync, fsyncIntervalMs, fsyncIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    public static synchronized FailedRecordSpool getInstance() {
+        if (instance == null) {
+            AppConfig config = AppConfig.getInstance();
+            instance = new FailedRecordSpool(Paths.get(config.getSpoolDir()), config.getSpoolSegmentMaxBytes(),
+                    config.getSpoolFsyncIntervalMs());
+        }
+        return instance;
+    }
+
+    /**
+     * Close the spool if it was ever opened
+     */
+    public static synchronized void shutdown() {
+        if (instance != null) {
+            instance.close();
+        }
+    }
+
+    /**
+     * Append a failed request
+     *
+     * @return false if it could not be written; the error is logged
+     */
+    public boolean append(SpoolRecord record) {
+        byte[] data = record.encode();
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, data.length);
+
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_HEADER_BYTES + data.length);
+        buffer.putInt(data.length).putInt((int) crc.getValue()).put(data);
+        buffer.flip();
+
+        synchronized (this) {
+            try {
+                if (channel == null || segmentBytes >= maxSegmentBytes) {
+                    openSegment();
+                }
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                segmentBytes += buffer.limit();
+                dirty = true;
+            } catch (IOException e) {
+                logger.error("Failed to spool {}: {}", record, e.getMessage(), e);
+                return false;
+            }
+        }
+        MetricsService.getInstance().recordSpooled(record.getRows());
+        return true;
+    }
+
+    private void openSegment() throws IOException {
+        closeSegment();
+        Files.createDirectories(dir);
+        Path next = dir.resolve(String.format("%s%013d-%04d%s",
+                SEGMENT_PREFIX, System.currentTimeMillis(), sequence++ % 10000, SEGMENT_SUFFIX));
+        FileChannel opened = FileChannel.open(next, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(SEGMENT_HEADER_BYTES).putInt(MAGIC).putInt(VERSION);
+        header.flip();
+        while (header.hasRemaining()) {
+            opened.write(header);
+        }
+        channel = opened;
+        segment = next;
+        segmentBytes = SEGMENT_HEADER_BYTES;
+        logger.info("Opened spool segment {}", next);
+    }
+
+    private void closeSegment() throws IOException {
+        if (channel != null) {
+            channel.force(false);
+            channel.close();
+            channel = null;
+            segment = null;
+            dirty = false;
+        }
+    }
+
+    /**
+     * Force appended records to disk
+     */
+    public synchronized void sync() {
+        if (channel == null || !dirty) {
+            return;
+        }
+        try {
+            channel.force(false);
+            dirty = false;
+        } catch (IOException e) {
+            logger.error("Failed to sync spool segment {}: {}", segment, e.getMessage());
+        }
+    }
+
+    /**
+     * Close the active segment, so the next append starts a new one
+     *
+     * @return Every segment in the spool, oldest first; none of them is appended to any more
+     */
+    public synchronized List<Path> roll() throws IOException {
+        closeSegment();
+        List<Path> segments = new ArrayList<>();
+        if (!Files.isDirectory(dir)) {
+            return segments;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path path : stream) {
+                segments.add(path);
+            }
+        }
+        // Names start with the creation time, so name order is append order
+        Collections.sort(segments);
+        return segments;
+    }
+
+    /**
+     * Sync and close the active segment and stop the fsync timer
+     */
+    public synchronized void close() {
+        fsyncScheduler.shutdownNow();
+        try {
+            closeSegment();
+        } catch (IOException e) {
+            logger.error("Failed to close spool segment {}: {}", segment, e.getMessage());
+        }
+    }
+
+    public Path getDir() {
+        return dir;
+    }
+}
@@ -0,0 +1,109 @@
+package com.report.spool;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Streams the records of a spool segment
+ * The segment is memory-mapped, so records are decoded straight from the page cache without
+ * read() copies; where the file system does not support mapping it is read into the heap.
+ * A record whose CRC does not match is skipped, and reading stops at a record cut short
+ * (a crash mid-append), keeping every record before it.
+ */
+public final class SpoolReader {
+    private static final Logger logger = LoggerFactory.getLogger(SpoolReader.class);
+
+    private SpoolReader() {
+    }
+
+    /**
+     * Hand every intact record of a segment to the consumer, in append order
+     *
+     * @return Counts of records read and skipped
+     */
+    public static Result read(Path segment, Consumer<SpoolRecord> consumer) throws IOException {
+        Result result = new Result();
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            ByteBuffer buffer = map(channel);
+
+            if (buffer.remaining() < FailedRecordSpool.SEGMENT_HEADER_BYTES
+                    || buffer.getInt() != FailedRecordSpool.MAGIC) {
+                logger.warn("Not a spool segment, skipped: {}", segment);
+                return result;
+            }
+            int version = buffer.getInt();
+            if (version != FailedRecordSpool.VERSION) {
+                logger.warn("Unsupported spool segment version {}, skipped: {}", version, segment);
+                return result;
+            }
+
+            CRC32 crc = new CRC32();
+            while (buffer.remaining() >= FailedRecordSpool.RECORD_HEADER_BYTES) {
+                int length = buffer.getInt();
+                int checksum = buffer.getInt();
+                if (length < 0 || length > buffer.remaining()) {
+                    logger.warn("Spool segment {} ends with a torn record at offset {}",
+                            segment, buffer.position() - FailedRecordSpool.RECORD_HEADER_BYTES);
+                    result.corrupt++;
+                    break;
+                }
+
+                byte[] data = new byte[length];
+                buffer.get(data);
+                crc.reset();
+                crc.update(data, 0, length);
+                if ((int) crc.getValue() != checksum) {
+                    logger.warn("Spool record with bad CRC skipped: segment={}, offset={}",
+                            segment, buffer.position() - length - FailedRecordSpool.RECORD_HEADER_BYTES);
+                    result.corrupt++;
+                    continue;
+                }
+                consumer.accept(SpoolRecord.decode(data));
+                result.records++;
+            }
+        }
+        return result;
+    }
+
+    private static ByteBuffer map(FileChannel channel) throws IOException {
+        long size = channel.size();
+        try {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        } catch (IOException | UnsupportedOperationException e) {
+            logger.debug("Spool segment cannot be mapped, reading it instead: {}", e.getMessage());
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // keep reading
+            }
+            buffer.flip();
+            return buffer;
+        }
+    }
+
+    /**
+     * Records read from a segment
+     */
+    public static class Result {
+        private int records;
+        private int corrupt;
+
+        public int getRecords() {
+            return records;
+        }
+
+        /**
+         * Records skipped for a bad CRC, plus one for a torn tail
+         */
+        public int getCorrupt() {
+            return corrupt;
+        }
+    }
+}
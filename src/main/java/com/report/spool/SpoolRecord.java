@@ -0,0 +1,102 @@
+package com.report.spool;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * One failed report request kept in the spool
+ * Holds the request body exactly as it was sent, so a replay re-sends the same payloads
+ * to the same endpoint without reading the source table again.
+ */
+public class SpoolRecord {
+    private final String tableName;
+    private final String dt;
+    private final String endpoint;
+    private final int rows;
+    private final long failedAtMillis;
+    private final byte[] body;
+
+    /**
+     * @param rows Events in the body
+     * @param body UTF-8 JSON request body
+     */
+    public SpoolRecord(String tableName, String dt, String endpoint, int rows, long failedAtMillis, byte[] body) {
+        this.tableName = tableName;
+        this.dt = dt;
+        this.endpoint = endpoint;
+        this.rows = rows;
+        this.failedAtMillis = failedAtMillis;
+        this.body = body;
+    }
+
+    /**
+     * Record data as stored in a segment (without the length and CRC framing)
+     */
+    byte[] encode() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(body.length + 64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeUTF(tableName);
+            out.writeUTF(dt);
+            out.writeUTF(endpoint);
+            out.writeInt(rows);
+            out.writeLong(failedAtMillis);
+            out.writeInt(body.length);
+            out.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static SpoolRecord decode(byte[] data) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            String tableName = in.readUTF();
+            String dt = in.readUTF();
+            String endpoint = in.readUTF();
+            int rows = in.readInt();
+            long failedAtMillis = in.readLong();
+            byte[] body = new byte[in.readInt()];
+            in.readFully(body);
+            return new SpoolRecord(tableName, dt, endpoint, rows, failedAtMillis, body);
+        }
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public String getDt() {
+        return dt;
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public long getFailedAtMillis() {
+        return failedAtMillis;
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+
+    @Override
+    public String toString() {
+        return "SpoolRecord{" +
+                "tableName='" + tableName + '\'' +
+                ", dt='" + dt + '\'' +
+                ", endpoint='" + endpoint + '\'' +
+                ", rows=" + rows +
+                ", bodyBytes=" + body.length +
+                '}';
+    }
+}
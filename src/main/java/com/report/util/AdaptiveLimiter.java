@@ -0,0 +1,192 @@
+package com.report.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Adaptive concurrency limit for outbound requests (AIMD)
+ * The limit grows by about one per limit's worth of successful requests while latency stays
+ * within latencyTolerance times its smoothed baseline and the limit is actually in use, and
+ * is cut by 10% on every request that was dropped (429, 5xx, connection error) or came back
+ * slower than the tolerance. It stays between minLimit and maxLimit.
+ * <p>
+ * acquire() never blocks: it returns a future completed once a slot is free, or completed
+ * exceptionally when maxQueue requests are already waiting. Every acquired slot must be
+ * released exactly once through onSuccess(), onDropped() or release().
+ */
+public class AdaptiveLimiter {
+    private static final double BACKOFF_RATIO = 0.9;
+    // Weight of a new sample in the latency baseline; slow, so the baseline follows
+    // lasting latency changes but not a burst of slow requests
+    private static final double BASELINE_WEIGHT = 0.02;
+
+    // Waiters completed by the current thread; completing one can release another slot
+    // on the same thread, so completions are looped instead of nested
+    private static final ThreadLocal<Deque<CompletableFuture<Void>>> HANDOFF = new ThreadLocal<>();
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final int maxQueue;
+    private final double latencyTolerance;
+
+    private final Deque<CompletableFuture<Void>> waiters = new ArrayDeque<>();
+    private double limit;           // guarded by this
+    private int inFlight;           // guarded by this
+    private double baselineNanos;   // guarded by this
+
+    private final AtomicInteger limitGauge;
+    private final AtomicInteger inFlightGauge;
+    private final AtomicLong rejected = new AtomicLong();
+    private final Runnable onRejected;
+
+    /**
+     * @param initialLimit     Starting limit
+     * @param minLimit         Lowest limit
+     * @param maxLimit         Highest limit
+     * @param latencyTolerance Ratio over the latency baseline that counts as congestion
+     * @param maxQueue         Requests that may wait for a slot before acquire() rejects
+     * @param limitGauge       Updated with the current limit
+     * @param inFlightGauge    Updated with the current number of requests in flight
+     * @param onRejected       Called for every rejected acquire()
+     */
+    public AdaptiveLimiter(int initialLimit, int minLimit, int maxLimit, double latencyTolerance, int maxQueue,
+                           AtomicInteger limitGauge, AtomicInteger inFlightGauge, Runnable onRejected) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.maxQueue = maxQueue;
+        this.latencyTolerance = latencyTolerance;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.limitGauge = limitGauge;
+        this.inFlightGauge = inFlightGauge;
+        this.onRejected = onRejected;
+        limitGauge.set((int) limit);
+    }
+
+    /**
+     * Take a slot
+     *
+     * @return Future completed once the slot is held; completed exceptionally with
+     * RejectedExecutionException when too many requests are already waiting
+     */
+    public CompletableFuture<Void> acquire() {
+        synchronized (this) {
+            if (waiters.isEmpty() && inFlight < (int) limit) {
+                inFlight++;
+                inFlightGauge.set(inFlight);
+                return CompletableFuture.completedFuture(null);
+            }
+            if (waiters.size() < maxQueue) {
+                CompletableFuture<Void> waiter = new CompletableFuture<>();
+                waiters.add(waiter);
+                return waiter;
+            }
+        }
+        rejected.incrementAndGet();
+        onRejected.run();
+        CompletableFuture<Void> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new RejectedExecutionException(
+                "Concurrency limit reached: " + maxQueue + " requests waiting"));
+        return failed;
+    }
+
+    /**
+     * Release a slot whose request succeeded, feeding its latency into the limit
+     */
+    public void onSuccess(long latencyNanos) {
+        List<CompletableFuture<Void>> ready;
+        synchronized (this) {
+            boolean limitInUse = inFlight >= limit / 2;
+            if (baselineNanos == 0) {
+                baselineNanos = latencyNanos;
+            }
+            boolean congested = latencyNanos > baselineNanos * latencyTolerance;
+            baselineNanos += (latencyNanos - baselineNanos) * BASELINE_WEIGHT;
+
+            if (congested) {
+                limit = Math.max(minLimit, limit * BACKOFF_RATIO);
+            } else if (limitInUse) {
+                limit = Math.min(maxLimit, limit + 1.0 / limit);
+            }
+            ready = releaseLocked();
+        }
+        complete(ready);
+    }
+
+    /**
+     * Release a slot whose request was dropped or throttled by the server
+     */
+    public void onDropped() {
+        List<CompletableFuture<Void>> ready;
+        synchronized (this) {
+            limit = Math.max(minLimit, limit * BACKOFF_RATIO);
+            ready = releaseLocked();
+        }
+        complete(ready);
+    }
+
+    /**
+     * Release a slot without a sample, e.g. when the request was never sent
+     */
+    public void release() {
+        List<CompletableFuture<Void>> ready;
+        synchronized (this) {
+            ready = releaseLocked();
+        }
+        complete(ready);
+    }
+
+    private List<CompletableFuture<Void>> releaseLocked() {
+        inFlight--;
+        List<CompletableFuture<Void>> ready = new ArrayList<>();
+        while (!waiters.isEmpty() && inFlight < (int) limit) {
+            ready.add(waiters.poll());
+            inFlight++;
+        }
+        limitGauge.set((int) limit);
+        inFlightGauge.set(inFlight);
+        return ready;
+    }
+
+    private static void complete(List<CompletableFuture<Void>> ready) {
+        if (ready.isEmpty()) {
+            return;
+        }
+        Deque<CompletableFuture<Void>> handoff = HANDOFF.get();
+        if (handoff != null) {
+            handoff.addAll(ready);
+            return;
+        }
+        handoff = new ArrayDeque<>(ready);
+        HANDOFF.set(handoff);
+        try {
+            CompletableFuture<Void> waiter;
+            while ((waiter = handoff.poll()) != null) {
+                waiter.complete(null);
+            }
+        } finally {
+            HANDOFF.remove();
+        }
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    public synchronized int getWaiting() {
+        return waiters.size();
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+}
@@ -0,0 +1,117 @@
+package com.report.util;
+
+import com.report.config.HttpCompression;
+
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Compresses request bodies into pooled buffers
+ * Each thread reuses one Deflater and one output chunk, and the compressed bytes are
+ * streamed chunk by chunk into a {@link PooledBuffer}, so compressing a body allocates
+ * neither a new Deflater (and its native memory) nor a byte[] of the body's size.
+ * Bodies shorter than minBytes are left alone: below about a kilobyte the gzip framing
+ * and the CPU time cost more than the bytes saved.
+ */
+public class BodyCompressor {
+    private static final int CHUNK_SIZE = 8 * 1024;
+    private static final byte[] GZIP_HEADER = {
+            0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff
+    };
+
+    private final HttpCompression compression;
+    private final int level;
+    private final int minBytes;
+    private final ThreadLocal<State> state;
+
+    /**
+     * @param compression Encoding to apply; NONE turns the compressor off
+     * @param level       Deflate level, 1 (fastest) to 9 (smallest)
+     * @param minBytes    Smallest body worth compressing
+     */
+    public BodyCompressor(HttpCompression compression, int level, int minBytes) {
+        this.compression = compression;
+        this.level = level;
+        this.minBytes = minBytes;
+        // gzip frames raw deflate data itself; HTTP deflate is the zlib format
+        this.state = ThreadLocal.withInitial(() -> new State(new Deflater(level, compression == HttpCompression.GZIP)));
+    }
+
+    /**
+     * Whether a body of the given length would be compressed
+     */
+    public boolean applies(int length) {
+        return compression != HttpCompression.NONE && length >= minBytes;
+    }
+
+    /**
+     * Compress a body
+     *
+     * @return Buffer with the compressed body, owned by the caller; null if the body is not compressed
+     */
+    public PooledBuffer compress(byte[] body, int offset, int length) {
+        if (!applies(length)) {
+            return null;
+        }
+        State current = state.get();
+        Deflater deflater = current.deflater;
+        deflater.reset();
+
+        PooledBuffer out = PooledBuffer.acquire();
+        try {
+            if (compression == HttpCompression.GZIP) {
+                out.write(GZIP_HEADER, 0, GZIP_HEADER.length);
+            }
+            deflater.setInput(body, offset, length);
+            deflater.finish();
+            while (!deflater.finished()) {
+                int n = deflater.deflate(current.chunk);
+                out.write(current.chunk, 0, n);
+            }
+            if (compression == HttpCompression.GZIP) {
+                CRC32 crc = current.crc;
+                crc.reset();
+                crc.update(body, offset, length);
+                writeIntLE(out, (int) crc.getValue());
+                writeIntLE(out, length);
+            }
+            return out;
+        } catch (RuntimeException e) {
+            out.release();
+            throw e;
+        }
+    }
+
+    private static void writeIntLE(PooledBuffer out, int value) {
+        out.write(value);
+        out.write(value >>> 8);
+        out.write(value >>> 16);
+        out.write(value >>> 24);
+    }
+
+    public HttpCompression getCompression() {
+        return compression;
+    }
+
+    @Override
+    public String toString() {
+        return "BodyCompressor{" +
+                "compression=" + compression +
+                ", level=" + level +
+                ", minBytes=" + minBytes +
+                '}';
+    }
+
+    /**
+     * Per-thread compression state, reused for every body
+     */
+    private static final class State {
+        final Deflater deflater;
+        final byte[] chunk = new byte[CHUNK_SIZE];
+        final CRC32 crc = new CRC32();
+
+        State(Deflater deflater) {
+            this.deflater = deflater;
+        }
+    }
+}
@@ -1,17 +1,29 @@
 package com.report.util;
 
 import com.report.config.AppConfig;
+import com.report.config.HttpTransport;
 import com.report.model.ReportResult;
+import com.report.service.MetricsService;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
 import io.github.resilience4j.circuitbreaker.CircuitBreaker;
 import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
 import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpPost;
+import org.apache.http.concurrent.FutureCallback;
 import org.apache.http.entity.StringEntity;
+import org.apache.http.nio.entity.NByteArrayEntity;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClients;
 import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.reactor.IOReactorException;
 import org.apache.http.util.EntityUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -19,19 +31,33 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * HTTP client utility for Volcano Engine API
+ * post() is always blocking; postAsync() uses the transport selected by http.transport
+ * (a non-blocking client on a few I/O threads, or the blocking client on a thread per request).
+ * Bodies of at least http.compression.minBytes are sent compressed when http.compression is set.
  */
 public class HttpClientUtil {
     private static final Logger logger = LoggerFactory.getLogger(HttpClientUtil.class);
     private static HttpClientUtil instance;
     private final CloseableHttpClient httpClient;
+    private final CloseableHttpAsyncClient asyncClient;
+    private final ExecutorService blockingExecutor;
     private final AppConfig config;
     private final CircuitBreaker circuitBreaker;
+    private final AdaptiveLimiter limiter;
+    private final BodyCompressor compressor;
 
     private static final String CONTENT_TYPE = "application/json";
     private static final String HEADER_APP_KEY = "X-MCS-AppKey";
+    private static final String HEADER_CONTENT_ENCODING = "Content-Encoding";
 
     private HttpClientUtil() {
         this.config = AppConfig.getInstance();
@@ -53,6 +79,19 @@ public class HttpClientUtil {
                 .setDefaultRequestConfig(requestConfig)
                 .build();
 
+        if (config.getHttpTransport() == HttpTransport.ASYNC) {
+            this.asyncClient = createAsyncClient(requestConfig);
+            this.blockingExecutor = null;
+        } else {
+            this.asyncClient = null;
+            AtomicInteger threadIndex = new AtomicInteger();
+            this.blockingExecutor = Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "http-blocking-" + threadIndex.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
         // Circuit breaker configuration
         CircuitBreakerConfig cbConfig = CircuitBreakerConfig.custom()
                 .failureRateThreshold(50) // Open circuit if 50% of calls fail
@@ -62,8 +101,46 @@ public class HttpClientUtil {
                 .build();
 
         this.circuitBreaker = CircuitBreaker.of("volcanoApi", cbConfig);
+        this.limiter = config.isHttpLimiterEnabled() ? createLimiter() : null;
+        this.compressor = new BodyCompressor(config.getHttpCompression(), config.getHttpCompressionLevel(),
+                config.getHttpCompressionMinBytes());
+
+        logger.info("HttpClient initialized with connection pool and circuit breaker, transport: {}, limiter: {}, "
+                + "compression: {}", config.getHttpTransport(), limiter != null ? "adaptive" : "off", compressor);
+    }
+
+    /**
+     * Non-blocking client: connections are multiplexed over http.async.ioThreads reactor threads
+     */
+    private CloseableHttpAsyncClient createAsyncClient(RequestConfig requestConfig) {
+        IOReactorConfig ioReactorConfig = IOReactorConfig.custom()
+                .setIoThreadCount(config.getHttpAsyncIoThreads())
+                .setConnectTimeout(config.getHttpConnectTimeout())
+                .setSoTimeout(config.getHttpSocketTimeout())
+                .build();
+
+        PoolingNHttpClientConnectionManager connectionManager;
+        try {
+            connectionManager = new PoolingNHttpClientConnectionManager(new DefaultConnectingIOReactor(ioReactorConfig));
+        } catch (IOReactorException e) {
+            throw new RuntimeException("Failed to start HTTP I/O reactor", e);
+        }
+        connectionManager.setMaxTotal(config.getHttpAsyncMaxConnections());
+        connectionManager.setDefaultMaxPerRoute(config.getHttpAsyncMaxConnections());
 
-        logger.info("HttpClient initialized with connection pool and circuit breaker");
+        CloseableHttpAsyncClient client = HttpAsyncClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .build();
+        client.start();
+        return client;
+    }
+
+    private AdaptiveLimiter createLimiter() {
+        MetricsService metrics = MetricsService.getInstance();
+        return new AdaptiveLimiter(config.getHttpLimiterInitialLimit(), config.getHttpLimiterMinLimit(),
+                config.getHttpLimiterMaxLimit(), config.getHttpLimiterLatencyTolerance(), config.getHttpLimiterMaxQueue(),
+                metrics.limiterLimit(), metrics.limiterInFlight(), metrics::recordLimiterRejected);
     }
 
     public static synchronized HttpClientUtil getInstance() {
@@ -81,76 +158,251 @@ public class HttpClientUtil {
      * @return ReportResult
      */
     public ReportResult post(String endpoint, String jsonBody) {
+        HttpPost httpPost = buildPost(endpoint, new StringEntity(jsonBody, StandardCharsets.UTF_8), jsonBody);
+        PooledBuffer compressed = compress(httpPost, jsonBody);
+        try {
+            return executeBlocking(httpPost);
+        } finally {
+            if (compressed != null) {
+                compressed.release();
+            }
+        }
+    }
+
+    private ReportResult executeBlocking(HttpPost httpPost) {
+        if (limiter == null) {
+            return execute(httpPost);
+        }
         try {
-            return circuitBreaker.executeSupplier(() -> doPost(endpoint, jsonBody));
+            limiter.acquire().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ReportResult.failure(0, "Interrupted waiting for concurrency limit");
+        } catch (ExecutionException e) {
+            return limitRejected(e.getCause());
+        }
+        long start = System.nanoTime();
+        ReportResult result = execute(httpPost);
+        releaseLimit(result, start);
+        return result;
+    }
+
+    private ReportResult execute(HttpPost httpPost) {
+        long start = System.nanoTime();
+        ReportResult result;
+        try {
+            result = circuitBreaker.executeSupplier(() -> doPost(httpPost));
         } catch (Exception e) {
             logger.error("Circuit breaker caught exception: {}", e.getMessage(), e);
-            return ReportResult.failure(0, "Circuit breaker: " + e.getMessage());
+            result = ReportResult.failure(0, "Circuit breaker: " + e.getMessage());
         }
+        result.setLatencyNanos(System.nanoTime() - start);
+        return result;
     }
 
     /**
-     * Internal POST request implementation
+     * Send POST request without holding the calling thread, with circuit breaker protection
+     * The future never completes exceptionally; failures are returned as a failed ReportResult,
+     * as with post(). With the ASYNC transport it may complete on an I/O reactor thread, so
+     * callbacks attached to it must not block.
      *
-     * @param endpoint API endpoint
+     * @param endpoint API endpoint (e.g., /v2/event/json or /v2/event/list)
      * @param jsonBody JSON request body
-     * @return ReportResult
+     * @return Future of the ReportResult
      */
-    private ReportResult doPost(String endpoint, String jsonBody) {
-        String url = config.getApiBaseUrl() + endpoint;
-        HttpPost httpPost = new HttpPost(url);
+    public CompletableFuture<ReportResult> postAsync(String endpoint, String jsonBody) {
+        HttpPost httpPost = buildPost(endpoint, new StringEntity(jsonBody, StandardCharsets.UTF_8), jsonBody);
+        return releaseWhenDone(executeAsync(httpPost), compress(httpPost, jsonBody));
+    }
 
-        // Set headers
-        httpPost.setHeader("Content-Type", CONTENT_TYPE);
-        httpPost.setHeader(HEADER_APP_KEY, config.getAppKey());
+    /**
+     * Send a pre-serialized UTF-8 JSON body without holding the calling thread
+     * The entity wraps the buffer's array without copying, so the buffer must not be
+     * released or modified until the returned future has completed.
+     *
+     * @param endpoint API endpoint (e.g., /v2/event/json or /v2/event/list)
+     * @param body     JSON request body
+     * @return Future of the ReportResult, with the same contract as postAsync(String, String)
+     */
+    public CompletableFuture<ReportResult> postAsync(String endpoint, PooledBuffer body) {
+        HttpPost httpPost = buildPost(endpoint, new NByteArrayEntity(body.array(), 0, body.length()), body);
+        return releaseWhenDone(executeAsync(httpPost), compress(httpPost, body.array(), body.length()));
+    }
 
-        // Set body
-        httpPost.setEntity(new StringEntity(jsonBody, StandardCharsets.UTF_8));
+    /**
+     * Replace the entity of a request with the compressed body, when http.compression is on
+     * and the body is at least http.compression.minBytes long
+     *
+     * @return Buffer holding the compressed body, to release once the request is done;
+     * null if the body is sent as is
+     */
+    private PooledBuffer compress(HttpPost httpPost, byte[] body, int length) {
+        if (!compressor.applies(length)) {
+            return null;
+        }
+        long start = System.nanoTime();
+        PooledBuffer compressed = compressor.compress(body, 0, length);
+        MetricsService.getInstance().recordCompression(length, compressed.length(), System.nanoTime() - start);
+
+        httpPost.setEntity(new NByteArrayEntity(compressed.array(), 0, compressed.length()));
+        httpPost.setHeader(HEADER_CONTENT_ENCODING, compressor.getCompression().getContentEncoding());
+        return compressed;
+    }
+
+    private PooledBuffer compress(HttpPost httpPost, String jsonBody) {
+        // A char takes at most 3 UTF-8 bytes, so skip the encoding copy of a body that cannot reach minBytes
+        if (!compressor.applies((int) Math.min(Integer.MAX_VALUE, 3L * jsonBody.length()))) {
+            return null;
+        }
+        byte[] body = jsonBody.getBytes(StandardCharsets.UTF_8);
+        return compress(httpPost, body, body.length);
+    }
 
-        logger.debug("Sending POST request to: {}", url);
-        logger.debug("Request body: {}", LogSanitizer.sanitizeJson(jsonBody));
+    private static CompletableFuture<ReportResult> releaseWhenDone(CompletableFuture<ReportResult> future,
+                                                                   PooledBuffer compressed) {
+        if (compressed == null) {
+            return future;
+        }
+        return future.whenComplete((result, e) -> compressed.release());
+    }
+
+    /**
+     * Send through the adaptive limiter; waiting for a slot holds no thread
+     */
+    private CompletableFuture<ReportResult> executeAsync(HttpPost httpPost) {
+        if (limiter == null) {
+            return send(httpPost);
+        }
+        CompletableFuture<ReportResult> future = new CompletableFuture<>();
+        limiter.acquire().whenComplete((ignored, rejected) -> {
+            if (rejected != null) {
+                future.complete(limitRejected(rejected));
+                return;
+            }
+            long start = System.nanoTime();
+            CompletableFuture<ReportResult> sent;
+            try {
+                sent = send(httpPost);
+            } catch (RuntimeException e) {
+                // Thrown here it would be lost in this callback, leaving the slot taken and the future open
+                logger.error("HTTP request failed: {}", e.getMessage(), e);
+                ReportResult result = ReportResult.failure(0, "Connection error: " + e.getMessage());
+                releaseLimit(result, start);
+                future.complete(result);
+                return;
+            }
+            sent.whenComplete((result, e) -> {
+                releaseLimit(result, start);
+                future.complete(result);
+            });
+        });
+        return future;
+    }
 
+    private CompletableFuture<ReportResult> send(HttpPost httpPost) {
+        if (asyncClient == null) {
+            return CompletableFuture.supplyAsync(() -> execute(httpPost), blockingExecutor);
+        }
+
+        if (!circuitBreaker.tryAcquirePermission()) {
+            CallNotPermittedException e = CallNotPermittedException.createCallNotPermittedException(circuitBreaker);
+            logger.error("Circuit breaker caught exception: {}", e.getMessage());
+            return CompletableFuture.completedFuture(ReportResult.failure(0, "Circuit breaker: " + e.getMessage()));
+        }
+
+        CompletableFuture<ReportResult> future = new CompletableFuture<>();
+        long start = System.nanoTime();
+
+        try {
+            asyncClient.execute(httpPost, new FutureCallback<HttpResponse>() {
+                @Override
+                public void completed(HttpResponse response) {
+                    long elapsed = System.nanoTime() - start;
+                    circuitBreaker.onSuccess(elapsed, TimeUnit.NANOSECONDS);
+                    ReportResult result;
+                    try {
+                        HttpEntity entity = response.getEntity();
+                        String responseBody = entity != null ? EntityUtils.toString(entity, StandardCharsets.UTF_8) : "";
+                        result = toResult(response.getStatusLine().getStatusCode(), responseBody);
+                    } catch (IOException e) {
+                        logger.error("HTTP request failed: {}", e.getMessage(), e);
+                        result = ReportResult.failure(0, "Connection error: " + e.getMessage());
+                    }
+                    result.setLatencyNanos(elapsed);
+                    future.complete(result);
+                }
+
+                @Override
+                public void failed(Exception e) {
+                    long elapsed = System.nanoTime() - start;
+                    circuitBreaker.onError(elapsed, TimeUnit.NANOSECONDS, e);
+                    logger.error("HTTP request failed: {}", e.getMessage());
+                    ReportResult result = ReportResult.failure(0, "Connection error: " + e.getMessage());
+                    result.setLatencyNanos(elapsed);
+                    future.complete(result);
+                }
+
+                @Override
+                public void cancelled() {
+                    circuitBreaker.releasePermission();
+                    future.complete(ReportResult.failure(0, "Request cancelled"));
+                }
+            });
+        } catch (RuntimeException e) {
+            // e.g. the client was shut down; no callback will run for this request
+            circuitBreaker.releasePermission();
+            logger.error("HTTP request failed: {}", e.getMessage(), e);
+            future.complete(ReportResult.failure(0, "Connection error: " + e.getMessage()));
+        }
+        return future;
+    }
+
+    /**
+     * Give back a limiter slot, with the outcome of the request as a sample
+     * Throttling (429), server errors and requests that got no response (connection errors,
+     * open circuit breaker) shrink the limit; any other response feeds its latency in.
+     */
+    private void releaseLimit(ReportResult result, long start) {
+        int status = result != null ? result.getHttpStatus() : 0;
+        if (status == 0 || status == 429 || status >= 500) {
+            limiter.onDropped();
+        } else {
+            limiter.onSuccess(System.nanoTime() - start);
+        }
+    }
+
+    private static ReportResult limitRejected(Throwable e) {
+        logger.warn("API request rejected: {}", e.getMessage());
+        return ReportResult.failure(0, "Concurrency limit: " + e.getMessage());
+    }
+
+    /**
+     * Internal POST request implementation
+     *
+     * @param httpPost Request to send
+     * @return ReportResult
+     */
+    private ReportResult doPost(HttpPost httpPost) {
         CloseableHttpResponse response = null;
+        long start = System.nanoTime();
         try {
             response = httpClient.execute(httpPost);
             int statusCode = response.getStatusLine().getStatusCode();
             HttpEntity entity = response.getEntity();
             String responseBody = entity != null ? EntityUtils.toString(entity, StandardCharsets.UTF_8) : "";
 
-            logger.debug("Response status: {}, body: {}", statusCode, responseBody);
-
-            ReportResult result = new ReportResult();
-            result.setHttpStatus(statusCode);
-            result.setRawResponse(responseBody);
-
-            if (statusCode == 200) {
-                // Parse success response
-                try {
-                    ReportResult parsed = JsonUtil.fromJson(responseBody, ReportResult.class);
-                    if (parsed != null) {
-                        result.setSuccessCount(parsed.getSuccessCount());
-                        result.setErrorCount(parsed.getErrorCount());
-                        result.setErrorCode(parsed.getErrorCode());
-                        result.setMessage(parsed.getMessage());
-                    }
-                    result.setSuccess(true);
-                } catch (Exception e) {
-                    logger.warn("Failed to parse response body, treating as success");
-                    result.setSuccess(true);
-                }
-            } else {
-                result.setSuccess(false);
-                result.setErrorMessage("HTTP " + statusCode + ": " + responseBody);
-                logger.error("API request failed: status={}", statusCode);
-            }
+            ReportResult result = toResult(statusCode, responseBody);
 
             // Ensure entity is fully consumed to release connection
             EntityUtils.consume(entity);
+            result.setLatencyNanos(System.nanoTime() - start);
             return result;
 
         } catch (IOException e) {
             logger.error("HTTP request failed: {}", e.getMessage(), e);
-            return ReportResult.failure(0, "Connection error: " + e.getMessage());
+            ReportResult result = ReportResult.failure(0, "Connection error: " + e.getMessage());
+            result.setLatencyNanos(System.nanoTime() - start);
+            return result;
         } finally {
             // Ensure response is closed
             if (response != null) {
@@ -163,6 +415,60 @@ public class HttpClientUtil {
         }
     }
 
+    /**
+     * @param body Request body, only turned into text when debug logging is on
+     */
+    private HttpPost buildPost(String endpoint, HttpEntity entity, Object body) {
+        String url = config.getApiBaseUrl() + endpoint;
+        HttpPost httpPost = new HttpPost(url);
+
+        // Set headers
+        httpPost.setHeader("Content-Type", CONTENT_TYPE);
+        httpPost.setHeader(HEADER_APP_KEY, config.getAppKey());
+
+        // Set body
+        httpPost.setEntity(entity);
+
+        if (logger.isDebugEnabled()) {
+            logger.debug("Sending POST request to: {}", url);
+            logger.debug("Request body: {}", LogSanitizer.sanitizeJson(body.toString()));
+        }
+        return httpPost;
+    }
+
+    /**
+     * Build the ReportResult of an API response
+     */
+    private ReportResult toResult(int statusCode, String responseBody) {
+        logger.debug("Response status: {}, body: {}", statusCode, responseBody);
+
+        ReportResult result = new ReportResult();
+        result.setHttpStatus(statusCode);
+        result.setRawResponse(responseBody);
+
+        if (statusCode == 200) {
+            // Parse success response
+            try {
+                ReportResult parsed = JsonUtil.fromJson(responseBody, ReportResult.class);
+                if (parsed != null) {
+                    result.setSuccessCount(parsed.getSuccessCount());
+                    result.setErrorCount(parsed.getErrorCount());
+                    result.setErrorCode(parsed.getErrorCode());
+                    result.setMessage(parsed.getMessage());
+                }
+                result.setSuccess(true);
+            } catch (Exception e) {
+                logger.warn("Failed to parse response body, treating as success");
+                result.setSuccess(true);
+            }
+        } else {
+            result.setSuccess(false);
+            result.setErrorMessage("HTTP " + statusCode + ": " + responseBody);
+            logger.error("API request failed: status={}", statusCode);
+        }
+        return result;
+    }
+
     /**
      * Close HTTP client
      */
@@ -172,6 +478,13 @@ public class HttpClientUtil {
                 httpClient.close();
                 logger.info("HttpClient closed");
             }
+            if (asyncClient != null) {
+                asyncClient.close();
+                logger.info("HttpAsyncClient closed");
+            }
+            if (blockingExecutor != null) {
+                blockingExecutor.shutdown();
+            }
         } catch (IOException e) {
             logger.error("Failed to close HttpClient", e);
         }
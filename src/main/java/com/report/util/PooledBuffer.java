@@ -0,0 +1,101 @@
+package com.report.util;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Growable byte buffer backed by a shared pool of arrays
+ * Request bodies are written straight into it and handed to the HTTP client as
+ * (array, 0, length) without copying; release() returns the array for reuse
+ * once the request, including retries, is done.
+ */
+public final class PooledBuffer extends OutputStream {
+    private static final int INITIAL_CAPACITY = 16 * 1024;
+    // Arrays grown past this are left to the GC instead of being pooled
+    private static final int MAX_POOLED_CAPACITY = 1024 * 1024;
+    private static final int MAX_POOLED_ARRAYS = 256;
+
+    private static final Queue<byte[]> POOL = new ConcurrentLinkedQueue<>();
+    private static final AtomicInteger POOLED = new AtomicInteger();
+
+    private byte[] buf;
+    private int length;
+
+    private PooledBuffer(byte[] buf) {
+        this.buf = buf;
+    }
+
+    /**
+     * Take an empty buffer, reusing a pooled array when one is available
+     */
+    public static PooledBuffer acquire() {
+        byte[] array = POOL.poll();
+        if (array != null) {
+            POOLED.decrementAndGet();
+            return new PooledBuffer(array);
+        }
+        return new PooledBuffer(new byte[INITIAL_CAPACITY]);
+    }
+
+    @Override
+    public void write(int b) {
+        ensureCapacity(length + 1);
+        buf[length++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        ensureCapacity(length + len);
+        System.arraycopy(b, off, buf, length, len);
+        length += len;
+    }
+
+    private void ensureCapacity(int required) {
+        if (buf == null) {
+            throw new IllegalStateException("Buffer already released");
+        }
+        if (required > buf.length) {
+            buf = Arrays.copyOf(buf, Math.max(required, buf.length * 2));
+        }
+    }
+
+    /**
+     * Backing array; only the first length() bytes are valid
+     */
+    public byte[] array() {
+        return buf;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Return the backing array to the pool; the buffer must not be used afterwards
+     */
+    public void release() {
+        byte[] array = buf;
+        buf = null;
+        length = 0;
+        if (array == null || array.length > MAX_POOLED_CAPACITY) {
+            return;
+        }
+        if (POOLED.incrementAndGet() <= MAX_POOLED_ARRAYS) {
+            POOL.offer(array);
+        } else {
+            POOLED.decrementAndGet();
+        }
+    }
+
+    /**
+     * Content decoded as UTF-8, for logging
+     */
+    @Override
+    public String toString() {
+        return buf == null ? "" : new String(buf, 0, length, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,112 @@
+package com.report.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Lock-free token bucket for outbound requests
+ * Permits are handed out at qps per second, with up to burst permits available at once
+ * after an idle period. The bucket is kept as the time the next permit becomes free
+ * (generic cell rate algorithm), so taking a permit is a single compare-and-set: callers
+ * reserve their slot first and then wait for it, in arrival order, without a lock.
+ * A qps of 0 or less means unlimited.
+ */
+public class RateLimiter {
+    private final double qps;
+    private final int burst;
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final LongSupplier clock;
+
+    // Time at which the next permit is free; lags behind the clock by at most burstNanos
+    private final AtomicLong nextFreeNanos;
+
+    /**
+     * @param qps   Permits per second; 0 or less for unlimited
+     * @param burst Permits that may be taken at once after an idle period (at least 1)
+     */
+    public RateLimiter(double qps, int burst) {
+        this(qps, burst, System::nanoTime);
+    }
+
+    /**
+     * @param clock Source of System.nanoTime() style timestamps
+     */
+    RateLimiter(double qps, int burst, LongSupplier clock) {
+        this.qps = qps;
+        this.burst = Math.max(1, burst);
+        this.intervalNanos = qps > 0 ? Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / qps)) : 0;
+        this.burstNanos = intervalNanos * (this.burst - 1);
+        this.clock = clock;
+        this.nextFreeNanos = new AtomicLong(clock.getAsLong() - burstNanos);
+    }
+
+    /**
+     * Take the next permit without waiting for it
+     *
+     * @return Nanoseconds until the permit may be used; 0 if it may be used now
+     */
+    public long reserve() {
+        if (isUnlimited()) {
+            return 0;
+        }
+        while (true) {
+            long now = clock.getAsLong();
+            long next = nextFreeNanos.get();
+            // Credit saved up while idle is capped at burst permits
+            long slot = Math.max(next, now - burstNanos);
+            if (nextFreeNanos.compareAndSet(next, slot + intervalNanos)) {
+                return Math.max(0, slot - now);
+            }
+        }
+    }
+
+    /**
+     * Take a permit, blocking the calling thread until it may be used
+     */
+    public void acquire() throws InterruptedException {
+        long waitNanos = reserve();
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    /**
+     * Take a permit without blocking
+     *
+     * @param scheduler Completes the future once the permit may be used
+     * @return Future completed once the permit may be used; already completed if it may be used now
+     */
+    public CompletableFuture<Void> acquireAsync(ScheduledExecutorService scheduler) {
+        long waitNanos = reserve();
+        if (waitNanos == 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+        CompletableFuture<Void> permit = new CompletableFuture<>();
+        scheduler.schedule(() -> permit.complete(null), waitNanos, TimeUnit.NANOSECONDS);
+        return permit;
+    }
+
+    public boolean isUnlimited() {
+        return intervalNanos == 0;
+    }
+
+    public double getQps() {
+        return qps;
+    }
+
+    public int getBurst() {
+        return burst;
+    }
+
+    @Override
+    public String toString() {
+        return "RateLimiter{" +
+                "qps=" + (isUnlimited() ? "unlimited" : qps) +
+                ", burst=" + burst +
+                '}';
+    }
+}
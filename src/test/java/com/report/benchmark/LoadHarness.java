@@ -0,0 +1,241 @@
+package com.report.benchmark;
+
+import com.report.config.AppConfig;
+import com.report.config.DataSourceConfig;
+import com.report.config.EventTableConfig;
+import com.report.model.EventRow;
+import com.report.service.MetricsService;
+import com.report.service.ReportService;
+import com.report.util.HttpClientUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end load run of ReportService.processDate against a local mock Volcano endpoint
+ *
+ * Seeds a synthetic dt partition for every EventTableConfig table into an in-memory H2
+ * database (MySQL mode), starts {@link MockVolcanoServer}, reports the partition and prints
+ * records/sec, client-side request latency, heap high-water mark and GC time of the run.
+ * Run it in its own JVM so the heap and GC figures are not mixed with Maven's:
+ * <pre>
+ * mvn -B test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java \
+ *     -Dexec.args="-Xmx512m -Dharness.rows=50000 -Dmock.latencyMs=20 -classpath %classpath com.report.benchmark.LoadHarness"
+ * </pre>
+ * Harness options (system properties):
+ * <ul>
+ *   <li>harness.rows - rows per table (default 20000)</li>
+ *   <li>harness.dt - partition to seed and report (default 2026-01-25)</li>
+ *   <li>harness.port - mock endpoint port (default 18080)</li>
+ *   <li>mock.latencyMs, mock.errorRate, mock.partialRate - see {@link MockVolcanoServer}</li>
+ *   <li>mock.burstIntervalMs, mock.burstDurationMs, mock.burstStatus (default 429)</li>
+ * </ul>
+ * Any service setting can be passed the same way, e.g. -Dhttp.transport=ASYNC or
+ * -Dreport.concurrency.global=32; db.url, volcano.api.baseUrl and event.tables default to the harness,
+ * checkpoint.enabled to false, since the seeded database has no task_progress table, and
+ * cursor.column.* to the seeded id column.
+ */
+public class LoadHarness {
+
+    public static void main(String[] args) throws Exception {
+        int rows = Integer.getInteger("harness.rows", 20000);
+        String dt = System.getProperty("harness.dt", "2026-01-25");
+        int port = Integer.getInteger("harness.port", 18080);
+
+        setIfAbsent("db.url", "jdbc:h2:mem:load_harness;MODE=MySQL;DB_CLOSE_DELAY=-1");
+        setIfAbsent("db.username", "sa");
+        setIfAbsent("db.password", "");
+        setIfAbsent("volcano.api.baseUrl", "http://localhost:" + port);
+        setIfAbsent("volcano.api.appKey", "load-harness");
+        setIfAbsent("event.tables", String.join(",", EventTableConfig.getAllTableNames()));
+        setIfAbsent("checkpoint.enabled", "false");
+        for (String tableName : EventTableConfig.getAllTableNames()) {
+            setIfAbsent("cursor.column." + tableName, "id");
+        }
+
+        MockVolcanoServer server = new MockVolcanoServer(port,
+                Long.getLong("mock.latencyMs", 20),
+                Double.parseDouble(System.getProperty("mock.errorRate", "0")),
+                Double.parseDouble(System.getProperty("mock.partialRate", "0")),
+                Long.getLong("mock.burstIntervalMs", 0),
+                Long.getLong("mock.burstDurationMs", 0),
+                Integer.getInteger("mock.burstStatus", 429));
+
+        try {
+            String[] tables = AppConfig.getInstance().getEventTables();
+            System.out.printf("Seeding %d rows per table into %d tables, dt=%s%n", rows, tables.length, dt);
+            for (String tableName : tables) {
+                seed(EventTableConfig.getByTableName(tableName), dt, rows);
+            }
+            long seeded = (long) rows * tables.length;
+
+            server.start();
+            ReportService reportService = new ReportService();
+
+            System.gc();
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                pool.resetPeakUsage();
+            }
+            long gcCountBefore = gcCount();
+            long gcTimeBefore = gcTime();
+
+            long start = System.nanoTime();
+            reportService.processDate(dt);
+            long elapsedNanos = System.nanoTime() - start;
+
+            printReport(seeded, elapsedNanos, server, gcCount() - gcCountBefore, gcTime() - gcTimeBefore);
+        } finally {
+            server.stop();
+            HttpClientUtil.getInstance().close();
+            DataSourceConfig.getInstance().close();
+        }
+    }
+
+    private static void setIfAbsent(String key, String value) {
+        if (System.getProperty(key) == null) {
+            System.setProperty(key, value);
+        }
+    }
+
+    /**
+     * Create the table with the columns the service reads and insert rows 1..rows for dt
+     */
+    private static void seed(EventTableConfig tableConfig, String dt, int rows) throws SQLException {
+        StringBuilder ddl = new StringBuilder("CREATE TABLE ").append(tableConfig.getTableName())
+                .append(" (id BIGINT PRIMARY KEY, dt VARCHAR(10) NOT NULL, user_unique_id VARCHAR(64)");
+        StringBuilder insert = new StringBuilder("INSERT INTO ").append(tableConfig.getTableName())
+                .append(" (id, dt, user_unique_id");
+        if (tableConfig.hasEtField()) {
+            ddl.append(", et BIGINT");
+            insert.append(", et");
+        }
+        for (String column : tableConfig.getParamFields()) {
+            ddl.append(", ").append(column).append(' ').append(sqlType(SyntheticRows.value(column, 1)));
+            insert.append(", ").append(column);
+        }
+        ddl.append(", report_status INT DEFAULT 0, retry_count INT DEFAULT 0, error_msg VARCHAR(500)")
+                .append(", updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+
+        int columns = 3 + (tableConfig.hasEtField() ? 1 : 0) + tableConfig.getParamFields().size();
+        insert.append(") VALUES (?");
+        for (int i = 1; i < columns; i++) {
+            insert.append(", ?");
+        }
+        insert.append(')');
+
+        try (Connection connection = DataSourceConfig.getInstance().getConnection()) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("DROP TABLE IF EXISTS " + tableConfig.getTableName());
+                statement.execute(ddl.toString());
+                statement.execute("CREATE INDEX idx_" + tableConfig.getTableName() + "_dt_id ON "
+                        + tableConfig.getTableName() + " (dt, id)");
+            }
+            try (PreparedStatement ps = connection.prepareStatement(insert.toString())) {
+                for (int seq = 1; seq <= rows; seq++) {
+                    EventRow row = SyntheticRows.row(tableConfig, seq);
+                    int index = 1;
+                    ps.setLong(index++, seq);
+                    ps.setString(index++, dt);
+                    ps.setString(index++, row.getUserUniqueId());
+                    if (tableConfig.hasEtField()) {
+                        ps.setLong(index++, row.getEt());
+                    }
+                    for (int i = 0; i < tableConfig.getParamFields().size(); i++) {
+                        ps.setObject(index++, row.getParam(i));
+                    }
+                    ps.addBatch();
+                    if (seq % 1000 == 0) {
+                        ps.executeBatch();
+                    }
+                }
+                ps.executeBatch();
+            }
+        }
+    }
+
+    private static String sqlType(Object sample) {
+        if (sample instanceof BigDecimal) {
+            return "DECIMAL(12,2)";
+        }
+        if (sample instanceof Long) {
+            return "BIGINT";
+        }
+        if (sample instanceof Integer) {
+            return "INT";
+        }
+        return "VARCHAR(128)";
+    }
+
+    /**
+     * Sum of a counter over all its table, mode and endpoint tags
+     */
+    private static double total(MeterRegistry registry, String name) {
+        double total = 0;
+        for (Counter counter : registry.find(name).counters()) {
+            total += counter.count();
+        }
+        return total;
+    }
+
+    private static void printReport(long seeded, long elapsedNanos, MockVolcanoServer server,
+                                    long gcCount, long gcTimeMs) {
+        MeterRegistry registry = MetricsService.getInstance().getRegistry();
+        double success = total(registry, "volcano.records.success");
+        double failed = total(registry, "volcano.records.failed");
+        double elapsedSeconds = elapsedNanos / 1e9;
+
+        long heapPeak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.getPeakUsage() != null) {
+                heapPeak += pool.getPeakUsage().getUsed();
+            }
+        }
+
+        System.out.println("========== Load Harness ==========");
+        System.out.printf("Records seeded:       %d%n", seeded);
+        System.out.printf("Records success/fail: %.0f / %.0f%n", success, failed);
+        System.out.printf("Elapsed:              %.2f s%n", elapsedSeconds);
+        System.out.printf("Throughput:           %.0f records/s%n", seeded / elapsedSeconds);
+        System.out.printf("Requests:             %d (failed %d)%n", server.getRequests(), server.getFailedRequests());
+        System.out.printf("Events accepted:      %d (rejected %d)%n", server.getAcceptedEvents(), server.getRejectedEvents());
+        for (Timer requestTimer : registry.find("volcano.api.request.time").timers()) {
+            System.out.printf("Request latency [%s %s]%n", requestTimer.getId().getTag("table"),
+                    requestTimer.getId().getTag("endpoint"));
+            for (ValueAtPercentile percentile : requestTimer.takeSnapshot().percentileValues()) {
+                System.out.printf("  p%-5s %.1f ms%n", percentile.percentile() * 100,
+                        percentile.value(TimeUnit.MILLISECONDS));
+            }
+        }
+        System.out.printf("Heap high-water mark: %.1f MB (sum of heap pool peaks)%n", heapPeak / (1024.0 * 1024.0));
+        System.out.printf("GC:                   %d collections, %d ms%n", gcCount, gcTimeMs);
+        System.out.println("==================================");
+    }
+
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gc.getCollectionCount());
+        }
+        return count;
+    }
+
+    private static long gcTime() {
+        long time = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            time += Math.max(0, gc.getCollectionTime());
+        }
+        return time;
+    }
+}
@@ -0,0 +1,152 @@
+package com.report.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.report.util.JsonUtil;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local stand-in for the Volcano /v2/event/json and /v2/event/list endpoints
+ *
+ * Every request is held for the configured latency, then answered with one of:
+ * <ul>
+ *   <li>a burst status (e.g. 429 or 503) while inside a burst window</li>
+ *   <li>HTTP 500 with probability errorRate</li>
+ *   <li>a partial 200 ({@code sc} &lt; payloads, {@code ec} &gt; 0) with probability partialRate, list endpoint only</li>
+ *   <li>a full 200 with {@code sc} = payloads</li>
+ * </ul>
+ * Bursts start every burstIntervalMs and last burstDurationMs (0 disables them).
+ */
+public class MockVolcanoServer {
+    static {
+        // Without it small responses wait on Nagle + delayed ACK and every request takes ~40 ms
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final long latencyMs;
+    private final double errorRate;
+    private final double partialRate;
+    private final long burstIntervalMs;
+    private final long burstDurationMs;
+    private final int burstStatus;
+    private final long startedAt = System.currentTimeMillis();
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong failedRequests = new AtomicLong();
+    private final AtomicLong acceptedEvents = new AtomicLong();
+    private final AtomicLong rejectedEvents = new AtomicLong();
+
+    public MockVolcanoServer(int port, long latencyMs, double errorRate, double partialRate,
+                             long burstIntervalMs, long burstDurationMs, int burstStatus) throws IOException {
+        this.latencyMs = latencyMs;
+        this.errorRate = errorRate;
+        this.partialRate = partialRate;
+        this.burstIntervalMs = burstIntervalMs;
+        this.burstDurationMs = burstDurationMs;
+        this.burstStatus = burstStatus;
+
+        this.server = HttpServer.create(new InetSocketAddress("localhost", port), 1024);
+        // Handlers sleep for the latency, so requests in flight need a thread each
+        this.executor = Executors.newFixedThreadPool(256);
+        server.setExecutor(executor);
+        server.createContext("/v2/event/json", exchange -> handle(exchange, false));
+        server.createContext("/v2/event/list", exchange -> handle(exchange, true));
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    public long getRequests() {
+        return requests.get();
+    }
+
+    public long getFailedRequests() {
+        return failedRequests.get();
+    }
+
+    public long getAcceptedEvents() {
+        return acceptedEvents.get();
+    }
+
+    public long getRejectedEvents() {
+        return rejectedEvents.get();
+    }
+
+    private void handle(HttpExchange exchange, boolean list) throws IOException {
+        try {
+            requests.incrementAndGet();
+            int payloads = countPayloads(exchange.getRequestBody(), list);
+
+            if (latencyMs > 0) {
+                Thread.sleep(latencyMs);
+            }
+
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            if (inBurst()) {
+                failedRequests.incrementAndGet();
+                respond(exchange, burstStatus, "{\"e\":" + burstStatus + ",\"message\":\"burst\"}");
+            } else if (random.nextDouble() < errorRate) {
+                failedRequests.incrementAndGet();
+                respond(exchange, 500, "{\"e\":500,\"message\":\"internal error\"}");
+            } else if (list && payloads > 1 && random.nextDouble() < partialRate) {
+                int rejected = 1 + random.nextInt(payloads / 2);
+                acceptedEvents.addAndGet(payloads - rejected);
+                rejectedEvents.addAndGet(rejected);
+                respond(exchange, 200, "{\"e\":0,\"message\":\"partial\",\"sc\":" + (payloads - rejected)
+                        + ",\"ec\":" + rejected + "}");
+            } else {
+                acceptedEvents.addAndGet(payloads);
+                respond(exchange, 200, "{\"e\":0,\"message\":\"success\",\"sc\":" + payloads + ",\"ec\":0}");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            exchange.close();
+        } catch (IOException e) {
+            failedRequests.incrementAndGet();
+            respond(exchange, 400, "{\"e\":400,\"message\":\"bad request\"}");
+        }
+    }
+
+    private boolean inBurst() {
+        if (burstIntervalMs <= 0 || burstDurationMs <= 0) {
+            return false;
+        }
+        long elapsed = System.currentTimeMillis() - startedAt;
+        return elapsed % burstIntervalMs >= burstIntervalMs - burstDurationMs;
+    }
+
+    private static int countPayloads(InputStream body, boolean list) throws IOException {
+        JsonNode node = JsonUtil.getObjectMapper().readTree(body);
+        if (node == null || (list ? !node.isArray() : !node.isObject())) {
+            throw new IOException("Unexpected request body");
+        }
+        return list ? node.size() : 1;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
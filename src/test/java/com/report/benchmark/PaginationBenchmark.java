@@ -0,0 +1,81 @@
+package com.report.benchmark;
+
+import com.report.config.DataSourceConfig;
+import com.report.repository.EventDataRepository;
+import com.report.repository.KeysetPage;
+
+/**
+ * Per-page latency benchmark: LIMIT/OFFSET vs keyset pagination
+ *
+ * Walks a date partition page by page with keyset pagination and, at every sampled page,
+ * issues the equivalent LIMIT/OFFSET query at the same depth. Offset latency grows with
+ * the depth into the partition, keyset latency should stay flat.
+ *
+ * Runs against the database configured in application.properties:
+ * <pre>
+ * mvn -B test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.report.benchmark.PaginationBenchmark \
+ *     -Dexec.args="page_vidw 2026-01-25 1000 50"
+ * </pre>
+ * Arguments: table, dt, page size (default 1000), sample every N pages (default 50)
+ */
+public class PaginationBenchmark {
+
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.out.println("Usage: PaginationBenchmark <table> <dt> [pageSize] [sampleEvery]");
+            return;
+        }
+
+        String tableName = args[0];
+        String dt = args[1];
+        int pageSize = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+        int sampleEvery = args.length > 3 ? Integer.parseInt(args[3]) : 50;
+
+        EventDataRepository repository = new EventDataRepository();
+
+        System.out.printf("Pagination benchmark: table=%s, dt=%s, pageSize=%d%n", tableName, dt, pageSize);
+        System.out.printf("%8s %12s %12s %12s%n", "page", "offset", "offset_ms", "keyset_ms");
+
+        try {
+            long afterKey = EventDataRepository.START_KEY;
+            int page = 0;
+            long keysetTotalNanos = 0;
+
+            while (true) {
+                long start = System.nanoTime();
+                KeysetPage keysetPage = repository.queryAfterKey(tableName, dt, afterKey, pageSize);
+                long keysetNanos = System.nanoTime() - start;
+                keysetTotalNanos += keysetNanos;
+
+                if (keysetPage.isEmpty()) {
+                    break;
+                }
+
+                if (page % sampleEvery == 0) {
+                    int offset = page * pageSize;
+                    start = System.nanoTime();
+                    repository.queryWithOffset(tableName, dt, pageSize, offset);
+                    long offsetNanos = System.nanoTime() - start;
+
+                    System.out.printf("%8d %12d %12.2f %12.2f%n",
+                            page, offset, offsetNanos / 1_000_000.0, keysetNanos / 1_000_000.0);
+                }
+
+                afterKey = keysetPage.getLastKey();
+                page++;
+
+                if (keysetPage.size() < pageSize) {
+                    break;
+                }
+            }
+
+            if (page > 0) {
+                System.out.printf("Keyset: %d pages, avg %.2f ms/page%n",
+                        page, keysetTotalNanos / 1_000_000.0 / page);
+            }
+        } finally {
+            DataSourceConfig.getInstance().close();
+        }
+    }
+}
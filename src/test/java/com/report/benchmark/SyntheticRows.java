@@ -0,0 +1,63 @@
+package com.report.benchmark;
+
+import com.report.config.EventTableConfig;
+import com.report.model.EventRow;
+import com.report.model.RowSchema;
+
+import java.math.BigDecimal;
+
+/**
+ * Deterministic synthetic rows for benchmarks and load runs
+ * Values are typed by column name the way the Hive export tables are: amounts as
+ * DECIMAL, *_time columns as epoch millis, flags and counters as INT, the rest as short strings.
+ */
+public final class SyntheticRows {
+    private static final long BASE_TIME = 1769356800000L; // 2026-01-26 00:00:00 +08:00
+
+    private SyntheticRows() {
+    }
+
+    /**
+     * Row number seq of a table, with the et column set when the table has one
+     */
+    public static EventRow row(EventTableConfig tableConfig, long seq) {
+        RowSchema schema = tableConfig.getRowSchema();
+        Object[] params = new Object[schema.getParamCount()];
+        for (int i = 0; i < params.length; i++) {
+            params[i] = value(schema.getParamName(i), seq);
+        }
+        return new EventRow(schema, seq, userUniqueId(seq), BASE_TIME + seq * 37, schema.hasEt(), params);
+    }
+
+    /**
+     * User of row seq; about 100k distinct users, so users repeat across a partition
+     */
+    public static String userUniqueId(long seq) {
+        return String.format("u%015d", (seq * 7919) % 100_000);
+    }
+
+    /**
+     * Sample value of a param column for row seq
+     */
+    public static Object value(String column, long seq) {
+        if (column.contains("amount")) {
+            return BigDecimal.valueOf(seq % 50_000 + 90, 2);
+        }
+        if (column.endsWith("_time")) {
+            return BASE_TIME - (seq % 1_000) * 86_400_000L;
+        }
+        if (column.startsWith("is_") || column.endsWith("_cnt") || column.endsWith("_day") || column.equals("sd_card")) {
+            return (int) (seq % 5);
+        }
+        switch (column) {
+            case "pay_result":
+                return seq % 10 == 0 ? "fail" : "success";
+            case "pay_type":
+                return seq % 2 == 0 ? "wechat" : "alipay";
+            case "package_name":
+                return "云存储月卡-" + (seq % 8);
+            default:
+                return column + "_" + (seq % 1_000);
+        }
+    }
+}
@@ -64,7 +64,7 @@ public class EventTableConfigTest {
         EventTableConfig config = EventTableConfig.PAY;
         String query = config.buildPendingQuery();
         assertNotNull(query);
-        assertTrue(query.contains("SELECT"));
+        assertTrue(query.startsWith("SELECT id, user_unique_id"));
         assertTrue(query.contains("FROM pay"));
         assertTrue(query.contains("WHERE id > ?"));
         assertTrue(query.contains("report_status = 0"));
@@ -72,6 +72,66 @@ public class EventTableConfigTest {
         assertTrue(query.contains("LIMIT ?"));
     }
 
+    @Test
+    public void testBuildUpdateStatusQuery_FixedInList() {
+        String query = EventTableConfig.PAY.buildUpdateStatusQuery(4);
+        assertEquals("UPDATE pay SET report_status = ?, updated_at = NOW() WHERE id IN (?,?,?,?)", query);
+    }
+
+    @Test
+    public void testBuildFailedQuery_Pay() {
+        String query = EventTableConfig.PAY.buildFailedQuery();
+        assertTrue(query.startsWith("SELECT id, user_unique_id"));
+        assertTrue(query.contains("FROM pay"));
+        assertTrue(query.contains("WHERE id > ? AND report_status = 3 AND retry_count < ?"));
+        assertTrue(query.endsWith("ORDER BY id LIMIT ?"));
+    }
+
+    @Test
+    public void testBuildKeysetQuery_PageView() {
+        String query = EventTableConfig.PAGE_VIEW.buildKeysetQuery();
+        assertTrue(query.startsWith("SELECT id, user_unique_id"));
+        assertTrue(query.contains("FROM page_vidw"));
+        assertTrue(query.contains("WHERE dt = ? AND id > ?"));
+        assertTrue(query.contains("ORDER BY id LIMIT ?"));
+        assertFalse(query.contains("OFFSET"));
+    }
+
+    @Test
+    public void testBuildShardedKeysetQuery_PageView() {
+        String query = EventTableConfig.PAGE_VIEW.buildKeysetQuery(false, true);
+        assertTrue(query.startsWith("SELECT id, user_unique_id"));
+        assertTrue(query.contains("WHERE dt = ? AND id > ? AND CRC32(COALESCE(user_unique_id, '')) % ? = ?"));
+        assertTrue(query.contains("ORDER BY id LIMIT ?"));
+    }
+
+    @Test
+    public void testBuildShardedKeysetQuery_NullUserIdHashedAsEmpty() {
+        // CRC32(NULL) is NULL and matches no shard, so rows without a user id would never be read
+        String query = EventTableConfig.PAY.buildKeysetQuery(true, true);
+        assertTrue(query.contains("AND id <= ? AND CRC32(COALESCE(user_unique_id, '')) % ? = ?"));
+        assertFalse(query.contains("CRC32(user_unique_id)"));
+    }
+
+    @Test
+    public void testCursorColumnOverride() {
+        try {
+            EventTableConfig.setCursorColumnOverride("page_vidw", "event_id");
+            assertEquals("event_id", EventTableConfig.PAGE_VIEW.getCursorColumn());
+            assertTrue(EventTableConfig.PAGE_VIEW.buildKeysetQuery().contains("ORDER BY event_id"));
+            assertEquals(EventTableConfig.DEFAULT_CURSOR_COLUMN, EventTableConfig.PAY.getCursorColumn());
+            assertTrue(EventTableConfig.PAGE_VIEW.hasCursorColumn());
+            assertFalse(EventTableConfig.PAY.hasCursorColumn());
+        } finally {
+            EventTableConfig.clearCursorColumnOverrides();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCursorColumnOverride_RejectsNonIdentifier() {
+        EventTableConfig.setCursorColumnOverride("page_vidw", "id; DROP TABLE page_vidw");
+    }
+
     @Test
     public void testBuildPendingCountQuery_UserInfo() {
         EventTableConfig config = EventTableConfig.USER_INFO;
@@ -0,0 +1,64 @@
+package com.report.model;
+
+import com.report.config.EventTableConfig;
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for RowSchema and EventRow
+ */
+public class RowSchemaTest {
+
+    @Test
+    public void testPageViewLayout() {
+        RowSchema schema = EventTableConfig.PAGE_VIEW.getRowSchema();
+        assertEquals(4, schema.getColumnCount());
+        assertEquals(0, schema.getUserUniqueIdIndex());
+        assertEquals(1, schema.getEtIndex());
+        assertTrue(schema.hasEt());
+        assertEquals(2, schema.getParamCount());
+        assertEquals("refer_page_id", schema.getParamName(0));
+        assertEquals(2, schema.getParamIndex(0));
+        assertEquals(3, schema.getParamIndex(1));
+    }
+
+    @Test
+    public void testUserInfoLayout_NoEt() {
+        RowSchema schema = EventTableConfig.USER_INFO.getRowSchema();
+        assertFalse(schema.hasEt());
+        assertEquals(-1, schema.getEtIndex());
+        assertEquals(1, schema.getParamIndex(0));
+    }
+
+    @Test
+    public void testSchemaMatchesSelectFieldsForAllTables() {
+        for (EventTableConfig config : EventTableConfig.values()) {
+            RowSchema schema = config.getRowSchema();
+            assertEquals(config.getParamFields().size(), schema.getParamCount());
+            assertEquals(config.hasEtField(), schema.hasEt());
+            assertEquals(config.buildSelectFields(), String.join(", ", schema.getColumns()));
+        }
+    }
+
+    @Test
+    public void testEventRowToMap() {
+        RowSchema schema = EventTableConfig.PAGE_VIEW.getRowSchema();
+        EventRow row = new EventRow(schema, 42L, "user_001", 1700000000000L, true, new Object[]{"home", null});
+
+        Map<String, Object> map = row.toMap();
+        assertEquals("user_001", map.get("user_unique_id"));
+        assertEquals(1700000000000L, map.get("et"));
+        assertEquals("home", map.get("refer_page_id"));
+        assertTrue(map.containsKey("page_id"));
+        assertNull(map.get("page_id"));
+        assertEquals(42L, row.getKey());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMissingUserUniqueId() {
+        new RowSchema("broken", "et, page_id", java.util.Collections.singletonList("page_id"));
+    }
+}
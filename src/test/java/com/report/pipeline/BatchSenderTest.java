@@ -0,0 +1,116 @@
+package com.report.pipeline;
+
+import com.report.model.ReportBatch;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for BatchSender
+ */
+public class BatchSenderTest {
+
+    private final ExecutorService transport = Executors.newCachedThreadPool();
+
+    @After
+    public void tearDown() {
+        transport.shutdownNow();
+    }
+
+    private static void pause() {
+        try {
+            Thread.sleep(2);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static ReportBatch batch() {
+        return new ReportBatch("test_table", "2026-01-01", "/v2/event/list", Collections.emptyList());
+    }
+
+    @Test
+    public void testInFlightNeverExceedsLimitAndAllBatchesComplete() {
+        AtomicInteger current = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        AtomicInteger sent = new AtomicInteger();
+
+        BatchSender sender = new BatchSender("test_table", 3, new Semaphore(10), batch -> CompletableFuture.runAsync(() -> {
+            int now = current.incrementAndGet();
+            peak.accumulateAndGet(now, Math::max);
+            pause();
+            current.decrementAndGet();
+            sent.incrementAndGet();
+        }, transport));
+
+        for (int i = 0; i < 60; i++) {
+            sender.submit(batch());
+        }
+        sender.close();
+
+        assertEquals(60, sent.get());
+        assertTrue("peak in flight was " + peak.get(), peak.get() <= 3);
+        assertTrue(peak.get() > 1);
+        assertEquals(0, sender.getInFlight());
+    }
+
+    @Test
+    public void testSendersShareGlobalBudget() {
+        Semaphore global = new Semaphore(2);
+        AtomicInteger current = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        Function<ReportBatch, CompletableFuture<Void>> send = batch -> CompletableFuture.runAsync(() -> {
+            int now = current.incrementAndGet();
+            peak.accumulateAndGet(now, Math::max);
+            pause();
+            current.decrementAndGet();
+        }, transport);
+
+        BatchSender first = new BatchSender("table_a", 4, global, send);
+        BatchSender second = new BatchSender("table_b", 4, global, send);
+        for (int i = 0; i < 30; i++) {
+            first.submit(batch());
+            second.submit(batch());
+        }
+        first.close();
+        second.close();
+
+        assertTrue("peak in flight was " + peak.get(), peak.get() <= 2);
+        assertEquals(2, global.availablePermits());
+    }
+
+    @Test
+    public void testSendErrorReleasesSlot() {
+        AtomicInteger sent = new AtomicInteger();
+        BatchSender sender = new BatchSender("test_table", 1, new Semaphore(10), batch -> {
+            int count = sent.incrementAndGet();
+            if (count % 4 == 0) {
+                throw new IllegalStateException("boom");
+            }
+            CompletableFuture<Void> future = new CompletableFuture<>();
+            if (count % 2 == 0) {
+                future.completeExceptionally(new IllegalStateException("boom"));
+            } else {
+                future.complete(null);
+            }
+            return future;
+        });
+
+        for (int i = 0; i < 10; i++) {
+            sender.submit(batch());
+        }
+        sender.close();
+
+        assertEquals(10, sent.get());
+        assertEquals(0, sender.getInFlight());
+    }
+}
@@ -0,0 +1,87 @@
+package com.report.pipeline;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for BatchSizer
+ */
+public class BatchSizerTest {
+
+    private static final long TARGET_MS = 1000;
+    private static final int MAX_BYTES = 64 * 1024;
+
+    private final AtomicInteger gauge = new AtomicInteger();
+
+    private BatchSizer sizer(int initial) {
+        return new BatchSizer(initial, true, TARGET_MS, MAX_BYTES, gauge);
+    }
+
+    private static long ms(long millis) {
+        return TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    @Test
+    public void testSizeGrowsToApiMaximumWhileRequestsAreFast() {
+        BatchSizer sizer = sizer(20);
+        for (int i = 0; i < 50; i++) {
+            sizer.onResponse(sizer.size(), sizer.size() * 100, ms(50));
+        }
+        assertEquals(BatchSizer.API_MAX_BATCH_SIZE, sizer.size());
+        assertEquals(BatchSizer.API_MAX_BATCH_SIZE, gauge.get());
+    }
+
+    @Test
+    public void testSizeShrinksWhenRequestsGetSlow() {
+        BatchSizer sizer = sizer(40);
+        for (int i = 0; i < 50; i++) {
+            sizer.onResponse(sizer.size(), sizer.size() * 100, ms(5000));
+        }
+        assertEquals(1, sizer.size());
+    }
+
+    @Test
+    public void testWideRowsAreCappedByMaxBytes() {
+        BatchSizer wide = sizer(50);
+        BatchSizer narrow = sizer(50);
+        for (int i = 0; i < 20; i++) {
+            wide.onResponse(10, 10 * 8 * 1024, ms(50));
+            narrow.onResponse(10, 10 * 200, ms(50));
+        }
+        assertEquals(8, wide.size());
+        assertEquals(BatchSizer.API_MAX_BATCH_SIZE, narrow.size());
+    }
+
+    @Test
+    public void testTooLargeHalvesTheSize() {
+        BatchSizer sizer = sizer(40);
+        sizer.onTooLarge(40);
+        assertEquals(20, sizer.size());
+        sizer.onTooLarge(1);
+        assertEquals(1, sizer.size());
+    }
+
+    @Test
+    public void testOverloadShrinksTheSize() {
+        BatchSizer sizer = sizer(40);
+        for (int i = 0; i < 5; i++) {
+            sizer.onOverloaded();
+        }
+        assertEquals(23, sizer.size());
+        assertEquals(23, gauge.get());
+    }
+
+    @Test
+    public void testFixedSizerIgnoresFeedback() {
+        BatchSizer sizer = new BatchSizer(20, false, TARGET_MS, MAX_BYTES, gauge);
+        sizer.onResponse(20, 20 * 8 * 1024, ms(5000));
+        sizer.onTooLarge(20);
+        sizer.onOverloaded();
+        assertEquals(20, sizer.size());
+        assertEquals(20, gauge.get());
+    }
+}
@@ -0,0 +1,68 @@
+package com.report.pipeline;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for PipelineStage
+ */
+public class PipelineStageTest {
+
+    @Test
+    public void testAllItemsHandledBeforeFinishReturns() {
+        Set<Integer> handled = Collections.synchronizedSet(new HashSet<>());
+        PipelineStage<Integer> stage = new PipelineStage<>("test", "test", 4, 2,
+                handled::add, new AtomicInteger());
+
+        stage.start();
+        for (int i = 0; i < 1000; i++) {
+            stage.put(i);
+        }
+        stage.finish();
+
+        assertEquals(1000, handled.size());
+        assertEquals(1000, stage.getProcessed());
+        assertEquals(0, stage.getErrors());
+        assertTrue(stage.getMaxDepth() <= 2);
+    }
+
+    @Test
+    public void testHandlerErrorsAreCountedAndDoNotStopWorkers() {
+        AtomicInteger handled = new AtomicInteger();
+        PipelineStage<Integer> stage = new PipelineStage<>("test", "test", 2, 4, item -> {
+            if (item % 10 == 0) {
+                throw new IllegalStateException("boom");
+            }
+            handled.incrementAndGet();
+        }, new AtomicInteger());
+
+        stage.start();
+        for (int i = 0; i < 100; i++) {
+            stage.put(i);
+        }
+        stage.finish();
+
+        assertEquals(90, handled.get());
+        assertEquals(10, stage.getErrors());
+    }
+
+    @Test
+    public void testDepthGaugeResetOnFinish() {
+        AtomicInteger gauge = new AtomicInteger();
+        PipelineStage<Integer> stage = new PipelineStage<>("test", "test", 1, 8, item -> { }, gauge);
+
+        stage.start();
+        for (int i = 0; i < 50; i++) {
+            stage.put(i);
+        }
+        stage.finish();
+
+        assertEquals(0, gauge.get());
+    }
+}
@@ -0,0 +1,49 @@
+package com.report.pipeline;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for PollInterval
+ */
+public class PollIntervalTest {
+
+    @Test
+    public void testFullPagePollsAgainRightAway() {
+        PollInterval interval = new PollInterval(200, 5000);
+
+        assertEquals(0, interval.next(1000, 1000));
+        assertEquals(200, interval.next(10, 1000));
+    }
+
+    @Test
+    public void testEmptyPollsBackOffUpToMax() {
+        PollInterval interval = new PollInterval(200, 1000);
+
+        assertEquals(200, interval.next(0, 1000));
+        assertEquals(400, interval.next(0, 1000));
+        assertEquals(800, interval.next(0, 1000));
+        assertEquals(1000, interval.next(0, 1000));
+        assertEquals(1000, interval.next(0, 1000));
+    }
+
+    @Test
+    public void testRecordsResetBackOff() {
+        PollInterval interval = new PollInterval(200, 5000);
+        interval.next(0, 1000);
+        interval.next(0, 1000);
+
+        assertEquals(200, interval.next(1, 1000));
+        assertEquals(200, interval.next(0, 1000));
+    }
+
+    @Test
+    public void testFailedPollWaitsMax() {
+        PollInterval interval = new PollInterval(200, 5000);
+
+        assertEquals(5000, interval.failed());
+        assertEquals(5000, interval.next(0, 1000));
+        assertEquals(200, interval.next(5, 1000));
+    }
+}
@@ -0,0 +1,109 @@
+package com.report.pipeline;
+
+import com.report.model.EventRow;
+import com.report.model.RowSchema;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for ProgressTracker
+ */
+public class ProgressTrackerTest {
+
+    private static final RowSchema SCHEMA =
+            new RowSchema("test", "user_unique_id", Collections.<String>emptyList());
+
+    private static EventRow row(long key) {
+        return new EventRow(SCHEMA, key, "u" + key, 0, false, new Object[0]);
+    }
+
+    private static List<EventRow> rows(long from, long to) {
+        List<EventRow> rows = new ArrayList<>();
+        for (long key = from; key <= to; key++) {
+            rows.add(row(key));
+        }
+        return rows;
+    }
+
+    @Test
+    public void testWatermarkStartsAtStartKey() {
+        ProgressTracker tracker = new ProgressTracker(42);
+        tracker.pageRead(50, 8);
+        assertEquals(42, tracker.getWatermark());
+        assertTrue(tracker.hasPending());
+    }
+
+    @Test
+    public void testWatermarkWaitsForEarlierPages() {
+        ProgressTracker tracker = new ProgressTracker(0);
+        tracker.pageRead(10, 10);
+        tracker.pageRead(20, 10);
+
+        tracker.resolved(rows(11, 20));
+        assertEquals(0, tracker.getWatermark());
+
+        tracker.resolved(rows(1, 9));
+        assertEquals(0, tracker.getWatermark());
+
+        tracker.resolved(row(10));
+        assertEquals(20, tracker.getWatermark());
+        assertEquals(20, tracker.getResolved());
+        assertFalse(tracker.hasPending());
+    }
+
+    @Test
+    public void testRowsResolvedOutOfOrderAcrossPages() {
+        ProgressTracker tracker = new ProgressTracker(0);
+        tracker.pageRead(3, 3);
+        tracker.pageRead(6, 3);
+        tracker.pageRead(9, 3);
+
+        // A re-packed retry batch mixing rows of several pages
+        tracker.resolved(Arrays.asList(row(2), row(5), row(8)));
+        tracker.resolved(Arrays.asList(row(1), row(3)));
+        assertEquals(3, tracker.getWatermark());
+
+        tracker.resolved(Arrays.asList(row(4), row(6), row(7), row(9)));
+        assertEquals(9, tracker.getWatermark());
+    }
+
+    @Test
+    public void testEmptyPageIsIgnored() {
+        ProgressTracker tracker = new ProgressTracker(5);
+        tracker.pageRead(5, 0);
+        assertFalse(tracker.hasPending());
+        assertEquals(5, tracker.getWatermark());
+    }
+
+    @Test
+    public void testUnreadRangeHoldsWatermarkBack() {
+        ProgressTracker tracker = new ProgressTracker(0);
+        Object low = new Object();
+        Object high = new Object();
+        tracker.rangeStarted(low, 0);
+        tracker.rangeStarted(high, 50);
+
+        // The upper range is read and resolved before the lower one has read anything
+        tracker.pageRead(high, 60, 10);
+        tracker.resolved(rows(51, 60));
+        tracker.rangeFinished(high);
+        assertEquals(0, tracker.getWatermark());
+
+        tracker.pageRead(low, 10, 10);
+        tracker.resolved(rows(1, 9));
+        assertEquals(0, tracker.getWatermark());
+
+        tracker.resolved(row(10));
+        assertEquals(10, tracker.getWatermark());
+
+        tracker.rangeFinished(low);
+        assertEquals(60, tracker.getWatermark());
+        assertFalse(tracker.hasPending());
+    }
+}
@@ -0,0 +1,47 @@
+package com.report.pipeline;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for RetryPolicy
+ */
+public class RetryPolicyTest {
+
+    @Test
+    public void testMaxRetriesCountsRetriesAfterFirstAttempt() {
+        RetryPolicy policy = new RetryPolicy(3, 1000, 30000);
+
+        assertTrue(policy.canRetry(1));
+        assertTrue(policy.canRetry(3));
+        assertFalse(policy.canRetry(4));
+        assertEquals(4, policy.getMaxAttempts());
+        assertFalse(new RetryPolicy(0, 1000, 30000).canRetry(1));
+    }
+
+    @Test
+    public void testDelayDoublesWithJitter() {
+        RetryPolicy policy = new RetryPolicy(10, 1000, 30000);
+
+        for (int i = 0; i < 100; i++) {
+            assertInRange(policy.delayMs(1), 500, 1000);
+            assertInRange(policy.delayMs(2), 1000, 2000);
+            assertInRange(policy.delayMs(3), 2000, 4000);
+        }
+    }
+
+    @Test
+    public void testDelayIsCapped() {
+        RetryPolicy policy = new RetryPolicy(10, 1000, 5000);
+
+        for (int i = 0; i < 100; i++) {
+            assertInRange(policy.delayMs(10), 2500, 5000);
+        }
+        assertEquals(0, new RetryPolicy(3, 0, 0).delayMs(3));
+    }
+
+    private static void assertInRange(long value, long min, long max) {
+        assertTrue(value + " not in [" + min + ", " + max + "]", value >= min && value <= max);
+    }
+}
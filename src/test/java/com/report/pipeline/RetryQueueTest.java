@@ -0,0 +1,137 @@
+package com.report.pipeline;
+
+import com.report.config.EventTableConfig;
+import com.report.model.EventRow;
+import com.report.model.ReportBatch;
+import com.report.service.MetricsService;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for RetryQueue
+ */
+public class RetryQueueTest {
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    @After
+    public void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    private static ReportBatch batch(int firstKey, int size, int attempt) {
+        List<EventRow> rows = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            rows.add(new EventRow(EventTableConfig.PAGE_VIEW.getRowSchema(), firstKey + i, "u" + (firstKey + i),
+                    0L, false, new Object[]{"refer", "page"}));
+        }
+        return new ReportBatch("page_vidw", "2026-01-25", "/v2/event/list", rows, attempt);
+    }
+
+    @Test
+    public void testFailedRowsArePackedIntoFullBatches() throws Exception {
+        RetryQueue queue = new RetryQueue("page_vidw", 4, 60_000, scheduler);
+        List<ReportBatch> dispatched = Collections.synchronizedList(new ArrayList<>());
+        queue.dispatchTo(batch -> {
+            dispatched.add(batch);
+            queue.end();
+        });
+
+        ReportBatch first = batch(1, 3, 1);
+        ReportBatch second = batch(10, 3, 1);
+        queue.retry(first, first.getRows(), 0);
+        queue.retry(second, second.getRows(), 0);
+        queue.awaitSettled();
+
+        assertEquals(1, dispatched.size());
+        assertEquals(4, dispatched.get(0).size());
+        assertEquals(2, dispatched.get(0).getAttempt());
+        assertEquals("/v2/event/list", dispatched.get(0).getEndpoint());
+        assertEquals(2, queue.getPendingRows());
+
+        queue.flush();
+        queue.awaitSettled();
+        assertEquals(2, dispatched.size());
+        assertEquals(2, dispatched.get(1).size());
+        assertEquals(0, queue.getPendingRows());
+        assertFalse(queue.flush());
+    }
+
+    @Test
+    public void testRowsOfDifferentAttemptsAreNotMixed() throws Exception {
+        RetryQueue queue = new RetryQueue("page_vidw", 4, 60_000, scheduler);
+        List<ReportBatch> dispatched = Collections.synchronizedList(new ArrayList<>());
+        queue.dispatchTo(batch -> {
+            dispatched.add(batch);
+            queue.end();
+        });
+
+        ReportBatch first = batch(1, 2, 1);
+        ReportBatch second = batch(10, 2, 2);
+        queue.retry(first, first.getRows(), 0);
+        queue.retry(second, second.getRows(), 0);
+        queue.awaitSettled();
+        assertTrue(dispatched.isEmpty());
+
+        queue.flush();
+        queue.awaitSettled();
+        assertEquals(2, dispatched.size());
+        assertEquals(2, dispatched.get(0).getAttempt());
+        assertEquals(3, dispatched.get(1).getAttempt());
+        assertEquals(2, dispatched.get(0).size());
+        assertEquals(2, dispatched.get(1).size());
+    }
+
+    @Test
+    public void testRowsShortOfABatchGoOutAfterLinger() throws Exception {
+        RetryQueue queue = new RetryQueue("page_vidw", 4, 50, scheduler);
+        CountDownLatch sent = new CountDownLatch(1);
+        List<ReportBatch> dispatched = Collections.synchronizedList(new ArrayList<>());
+        queue.dispatchTo(batch -> {
+            dispatched.add(batch);
+            queue.end();
+            sent.countDown();
+        });
+
+        ReportBatch failed = batch(1, 3, 1);
+        queue.retry(failed, failed.getRows(), 0);
+
+        assertTrue(sent.await(2, TimeUnit.SECONDS));
+        assertEquals(3, dispatched.get(0).size());
+        assertEquals(0, queue.getPendingRows());
+        assertEquals(0, MetricsService.getInstance().retryDepth("page_vidw").get());
+        assertTrue(MetricsService.getInstance().retryAge("page_vidw").count() >= 3);
+    }
+
+    @Test
+    public void testAwaitSettledWaitsForBatchesInFlight() throws Exception {
+        RetryQueue queue = new RetryQueue("page_vidw", 4, 60_000, scheduler);
+        queue.dispatchTo(batch -> queue.end());
+
+        queue.begin();
+        Thread waiter = new Thread(() -> {
+            try {
+                queue.awaitSettled();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        waiter.start();
+        waiter.join(100);
+        assertTrue(waiter.isAlive());
+
+        queue.end();
+        waiter.join(1000);
+        assertFalse(waiter.isAlive());
+    }
+}
@@ -0,0 +1,64 @@
+package com.report.pipeline;
+
+import com.report.config.EventTableConfig;
+import com.report.model.EventRow;
+import com.report.model.ReportBatch;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for StripedSender
+ */
+public class StripedSenderTest {
+
+    private static ReportBatch batch(String userUniqueId, long key) {
+        EventRow row = new EventRow(EventTableConfig.PAY.getRowSchema(), key, userUniqueId,
+                0L, false, new Object[EventTableConfig.PAY.getRowSchema().getParamCount()]);
+        return new ReportBatch("pay", "2026-01-01", "/v2/event/json", Collections.singletonList(row));
+    }
+
+    @Test
+    public void testRecordsOfOneUserStayInOrder() {
+        Map<String, List<Long>> sentByUser = new ConcurrentHashMap<>();
+        AtomicInteger sent = new AtomicInteger();
+
+        StripedSender sender = new StripedSender("pay", 4, 8, new Semaphore(10), batch -> {
+            EventRow row = batch.getRows().get(0);
+            sentByUser.computeIfAbsent(row.getUserUniqueId(), key -> Collections.synchronizedList(new ArrayList<>()))
+                    .add(row.getKey());
+            sent.incrementAndGet();
+            return CompletableFuture.completedFuture(null);
+        });
+
+        for (long key = 0; key < 400; key++) {
+            sender.submit(batch("user-" + (key % 13), key));
+        }
+        sender.close();
+
+        assertEquals(400, sent.get());
+        assertEquals(13, sentByUser.size());
+        for (List<Long> keys : sentByUser.values()) {
+            for (int i = 1; i < keys.size(); i++) {
+                assertTrue(keys.get(i - 1) < keys.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void testLaneOfIsStableAndInRange() {
+        int lane = StripedSender.laneOf(batch("user-42", 1), 8);
+        assertTrue(lane >= 0 && lane < 8);
+        assertEquals(lane, StripedSender.laneOf(batch("user-42", 2), 8));
+        assertEquals(0, StripedSender.laneOf(batch(null, 3), 8));
+    }
+}
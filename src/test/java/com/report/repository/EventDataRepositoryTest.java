@@ -0,0 +1,40 @@
+package com.report.repository;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for EventDataRepository status update sizing and et parsing
+ */
+public class EventDataRepositoryTest {
+
+    @Test
+    public void testShortListIsPaddedToNextSize() {
+        assertEquals(1, EventDataRepository.inListSize(1));
+        assertEquals(4, EventDataRepository.inListSize(2));
+        assertEquals(16, EventDataRepository.inListSize(16));
+        assertEquals(64, EventDataRepository.inListSize(17));
+        assertEquals(256, EventDataRepository.inListSize(200));
+    }
+
+    @Test
+    public void testLongListUsesLargestSize() {
+        assertEquals(256, EventDataRepository.inListSize(257));
+        assertEquals(256, EventDataRepository.inListSize(100000));
+    }
+
+    @Test
+    public void testEtParsedFromNumberOrString() {
+        assertEquals(Long.valueOf(1700000000000L), EventDataRepository.parseEt(1700000000000L));
+        assertEquals(Long.valueOf(1700000000L), EventDataRepository.parseEt(1700000000));
+        assertEquals(Long.valueOf(1700000000000L), EventDataRepository.parseEt(" 1700000000000 "));
+    }
+
+    @Test
+    public void testUnparsableEtIsMissing() {
+        assertNull(EventDataRepository.parseEt(null));
+        assertNull(EventDataRepository.parseEt(""));
+        assertNull(EventDataRepository.parseEt("2026-01-25 10:00:00"));
+    }
+}
@@ -0,0 +1,149 @@
+package com.report.repository;
+
+import com.report.model.EventRow;
+import com.report.model.RowSchema;
+import com.report.pipeline.ProgressTracker;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for ParallelRangeReader
+ */
+public class ParallelRangeReaderTest {
+
+    private static final RowSchema SCHEMA =
+            new RowSchema("test", "user_unique_id", Collections.<String>emptyList());
+
+    /**
+     * In-memory partition; pages of keys at or above slowFrom take a while to read
+     */
+    private static class MemorySource implements ParallelRangeReader.PageSource {
+        final NavigableMap<Long, EventRow> rows = new TreeMap<>();
+        long slowFrom = Long.MAX_VALUE;
+
+        void add(long from, long to) {
+            for (long key = from; key <= to; key++) {
+                rows.put(key, new EventRow(SCHEMA, key, "u" + key, 0, false, new Object[0]));
+            }
+        }
+
+        @Override
+        public long[] bounds(long afterKey) {
+            NavigableMap<Long, EventRow> tail = rows.tailMap(afterKey, false);
+            return tail.isEmpty() ? null : new long[]{tail.firstKey(), tail.lastKey()};
+        }
+
+        @Override
+        public KeysetPage page(long afterKey, long endKey, int limit) {
+            List<EventRow> page = new ArrayList<>();
+            for (EventRow row : rows.subMap(afterKey, false, endKey, true).values()) {
+                if (page.size() == limit) {
+                    break;
+                }
+                page.add(row);
+            }
+            if (!page.isEmpty() && page.get(0).getKey() >= slowFrom) {
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return new KeysetPage(page, page.isEmpty() ? afterKey : page.get(page.size() - 1).getKey());
+        }
+    }
+
+    private static ParallelRangeReader.Listener track(ProgressTracker tracker) {
+        return new ParallelRangeReader.Listener() {
+            @Override
+            public void rangeStarted(KeyRange range, long afterKey) {
+                tracker.rangeStarted(range, afterKey);
+            }
+
+            @Override
+            public void pageRead(KeyRange range, long lastKey, int rows) {
+                tracker.pageRead(range, lastKey, rows);
+            }
+
+            @Override
+            public void rangeFinished(KeyRange range) {
+                tracker.rangeFinished(range);
+            }
+        };
+    }
+
+    private static Map<Long, Integer> readAll(MemorySource source, long afterKey, ProgressTracker tracker) {
+        Map<Long, Integer> seen = new ConcurrentHashMap<>();
+        ParallelRangeReader reader = new ParallelRangeReader("test", "2026-01-20", source, 4, 2, 10);
+        long read = reader.read(afterKey, track(tracker), rows -> {
+            for (EventRow row : rows) {
+                seen.merge(row.getKey(), 1, Integer::sum);
+            }
+            tracker.resolved(rows);
+        });
+        assertEquals(seen.size(), read);
+        return seen;
+    }
+
+    @Test
+    public void testSkewedPartitionIsReadExactlyOnce() {
+        MemorySource source = new MemorySource();
+        // Most rows sit at the top of the key span and read slowly, so readers steal from them
+        source.add(1, 5);
+        source.add(900, 1400);
+        source.slowFrom = 900;
+
+        ProgressTracker tracker = new ProgressTracker(EventDataRepository.START_KEY);
+        Map<Long, Integer> seen = readAll(source, EventDataRepository.START_KEY, tracker);
+
+        assertEquals(source.rows.keySet(), seen.keySet());
+        for (int count : seen.values()) {
+            assertEquals(1, count);
+        }
+        assertFalse(tracker.hasPending());
+        assertEquals(1400, tracker.getWatermark());
+    }
+
+    @Test
+    public void testReadStartsAfterKey() {
+        MemorySource source = new MemorySource();
+        source.add(1, 100);
+
+        ProgressTracker tracker = new ProgressTracker(60);
+        Map<Long, Integer> seen = readAll(source, 60, tracker);
+
+        assertEquals(40, seen.size());
+        assertFalse(seen.containsKey(60L));
+        assertTrue(seen.containsKey(61L));
+        assertEquals(100, tracker.getWatermark());
+    }
+
+    @Test
+    public void testEmptyPartition() {
+        ProgressTracker tracker = new ProgressTracker(EventDataRepository.START_KEY);
+        assertTrue(readAll(new MemorySource(), EventDataRepository.START_KEY, tracker).isEmpty());
+        assertFalse(tracker.hasPending());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testReaderFailureIsThrown() {
+        MemorySource source = new MemorySource() {
+            @Override
+            public KeysetPage page(long afterKey, long endKey, int limit) {
+                throw new IllegalStateException("connection lost");
+            }
+        };
+        source.add(1, 100);
+        new ParallelRangeReader("test", "2026-01-20", source, 2, 2, 10)
+                .read(EventDataRepository.START_KEY, track(new ProgressTracker(0)), rows -> { });
+    }
+}
@@ -0,0 +1,65 @@
+package com.report.service;
+
+import io.micrometer.core.instrument.Timer;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for MetricsService
+ */
+public class MetricsServiceTest {
+
+    private static final String PROMETHEUS = "text/plain; version=0.0.4; charset=utf-8";
+    private static final String OPENMETRICS = "application/openmetrics-text; version=1.0.0; charset=utf-8";
+
+    @Test
+    public void testReportMetersAreTaggedPerTableModeAndEndpoint() {
+        MetricsService metrics = MetricsService.getInstance();
+        MetricsService.ReportMeters batch = metrics.reportMeters("metrics_pay", "BATCH", "/v2/event/list");
+        MetricsService.ReportMeters single = metrics.reportMeters("metrics_login", "SINGLE", "/v2/event/json");
+        assertSame(batch, metrics.reportMeters("metrics_pay", "BATCH", "/v2/event/list"));
+
+        batch.recordProcessed(5);
+        batch.recordSuccess(4);
+        batch.recordFailed(1);
+        batch.recordBatch(true, TimeUnit.MILLISECONDS.toNanos(20));
+        single.recordBatch(false, 0);
+
+        String scrape = metrics.scrape(PROMETHEUS);
+        assertTrue(scrape, scrape.contains(
+                "volcano_records_success_total{endpoint=\"/v2/event/list\",mode=\"BATCH\",table=\"metrics_pay\"} 4.0"));
+        assertTrue(scrape, scrape.contains(
+                "volcano_api_batches_failed_total{endpoint=\"/v2/event/json\",mode=\"SINGLE\",table=\"metrics_login\"} 1.0"));
+        assertTrue(scrape, scrape.contains(
+                "volcano_api_request_time_seconds_count{endpoint=\"/v2/event/list\",mode=\"BATCH\",table=\"metrics_pay\"} 1"));
+        assertTrue(scrape, scrape.contains("volcano_api_request_time_seconds_bucket{"));
+    }
+
+    @Test
+    public void testDatabaseQueryTimerHasPercentileHistogram() {
+        MetricsService metrics = MetricsService.getInstance();
+        Timer timer = metrics.databaseQuery("metrics_pay", "keyset_page");
+        assertSame(timer, metrics.databaseQuery("metrics_pay", "keyset_page"));
+        timer.record(3, TimeUnit.MILLISECONDS);
+
+        String scrape = metrics.scrape(PROMETHEUS);
+        assertTrue(scrape, scrape.contains(
+                "volcano_database_query_time_seconds_count{operation=\"keyset_page\",table=\"metrics_pay\"} 1"));
+        assertTrue(scrape, scrape.contains("volcano_database_query_time_seconds_bucket{"));
+        assertEquals(4, timer.takeSnapshot().percentileValues().length);
+        assertEquals(0.999, timer.takeSnapshot().percentileValues()[3].percentile(), 0);
+    }
+
+    @Test
+    public void testOpenMetricsScrape() {
+        MetricsService metrics = MetricsService.getInstance();
+        metrics.reportMeters("metrics_open", "BATCH", "/v2/event/list").recordSuccess(2);
+
+        String scrape = metrics.scrape(OPENMETRICS);
+        assertTrue(scrape, scrape.contains("# TYPE volcano_records_success counter"));
+        assertTrue(scrape, scrape.trim().endsWith("# EOF"));
+    }
+}
@@ -0,0 +1,98 @@
+package com.report.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.report.config.EventTableConfig;
+import com.report.model.EventRow;
+import com.report.model.ReportPayload;
+import com.report.model.RowSchema;
+import com.report.util.JsonUtil;
+import com.report.util.PooledBuffer;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for ReportBodyWriter
+ */
+public class ReportBodyWriterTest {
+
+    private final DataTransformService transformService = new DataTransformService();
+
+    private static EventRow payRow(String userUniqueId, Object payType) {
+        RowSchema schema = EventTableConfig.PAY.getRowSchema();
+        return new EventRow(schema, 1, userUniqueId, 1700000000000L, true,
+                new Object[]{payType, new BigDecimal("9.90"), null, 5, "né \"vip\"", 1});
+    }
+
+    private static JsonNode parse(PooledBuffer body) {
+        try {
+            return JsonUtil.getObjectMapper().readTree(body.array(), 0, body.length());
+        } catch (Exception e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    @Test
+    public void testBatchBodyMatchesPayloadModel() {
+        EventRow row = payRow("u\"1", "wx");
+        ReportPayload expected = transformService.transform("pay", row);
+
+        ReportBodyWriter writer = transformService.newBodyWriter("pay", false);
+        writer.add(row);
+        writer.add(row);
+        PooledBuffer body = writer.finish();
+
+        JsonNode array = parse(body);
+        assertTrue(array.isArray());
+        assertEquals(2, array.size());
+
+        JsonNode payload = array.get(0);
+        assertEquals("u\"1", payload.get("user").get("user_unique_id").asText());
+        assertEquals(0, payload.get("header").size());
+        JsonNode event = payload.get("events").get(0);
+        assertEquals(expected.getEvents().get(0).getEvent(), event.get("event").asText());
+        assertEquals(expected.getEvents().get(0).getParams(), event.get("params").asText());
+        assertEquals(1700000000000L, event.get("local_time_ms").asLong());
+        body.release();
+    }
+
+    @Test
+    public void testSingleBodyIsOneObject() {
+        ReportBodyWriter writer = transformService.newBodyWriter("pay", true);
+        writer.add(payRow("u1", "wx"));
+        PooledBuffer body = writer.finish();
+
+        JsonNode payload = parse(body);
+        assertTrue(payload.isObject());
+        assertEquals("u1", payload.get("user").get("user_unique_id").asText());
+        body.release();
+    }
+
+    @Test
+    public void testUnserializableRowIsSkipped() {
+        Object broken = new Object() {
+            public String getValue() {
+                throw new IllegalStateException("boom");
+            }
+        };
+
+        ReportBodyWriter writer = transformService.newBodyWriter("pay", false);
+        writer.add(payRow("u1", "wx"));
+        try {
+            writer.add(payRow("u2", broken));
+            fail("Expected serialization failure");
+        } catch (RuntimeException expected) {
+            // row skipped
+        }
+        writer.add(payRow("u3", "wx"));
+        PooledBuffer body = writer.finish();
+
+        JsonNode array = parse(body);
+        assertEquals(2, writer.size());
+        assertEquals(2, array.size());
+        assertEquals("u3", array.get(1).get("user").get("user_unique_id").asText());
+        body.release();
+    }
+}
@@ -0,0 +1,36 @@
+package com.report.service;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the backfill date range of ReportService
+ */
+public class ReportServiceDateRangeTest {
+
+    @Test
+    public void testRangeIsInclusive() {
+        List<String> dates = ReportService.dateRange("2026-01-30", "2026-02-02");
+        assertEquals(Arrays.asList("2026-01-30", "2026-01-31", "2026-02-01", "2026-02-02"), dates);
+    }
+
+    @Test
+    public void testSingleDay() {
+        assertEquals(Collections.singletonList("2026-01-20"), ReportService.dateRange("2026-01-20", "2026-01-20"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEndBeforeStartIsRejected() {
+        ReportService.dateRange("2026-01-20", "2026-01-19");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMalformedDateIsRejected() {
+        ReportService.dateRange("2026/01/20", "2026-01-21");
+    }
+}
@@ -0,0 +1,140 @@
+package com.report.service;
+
+import com.report.model.EventRow;
+import com.report.model.RowSchema;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for StatusWriter
+ */
+public class StatusWriterTest {
+
+    private static final RowSchema SCHEMA =
+            new RowSchema("test", "user_unique_id", Collections.<String>emptyList());
+
+    /**
+     * Records every write
+     */
+    private static class RecordingStore implements StatusWriter.Store {
+        final List<String> writes = Collections.synchronizedList(new ArrayList<>());
+        volatile boolean fail;
+
+        @Override
+        public void markAsProcessing(String tableName, List<Long> ids) {
+            write(tableName + " processing " + ids);
+        }
+
+        @Override
+        public void markAsSuccess(String tableName, List<Long> ids) {
+            write(tableName + " success " + ids);
+        }
+
+        @Override
+        public void markAsFailed(String tableName, Map<Long, String> errors) {
+            write(tableName + " failed " + errors);
+        }
+
+        private void write(String entry) {
+            if (fail) {
+                throw new IllegalStateException("connection lost");
+            }
+            writes.add(entry);
+        }
+    }
+
+    private final RecordingStore store = new RecordingStore();
+    private StatusWriter writer;
+
+    @After
+    public void tearDown() {
+        if (writer != null) {
+            writer.close();
+        }
+    }
+
+    private static List<EventRow> rows(long... ids) {
+        List<EventRow> rows = new ArrayList<>();
+        for (long id : ids) {
+            rows.add(new EventRow(SCHEMA, id, "u" + id, 0, false, new Object[0]));
+        }
+        return rows;
+    }
+
+    @Test
+    public void testLaterTransitionReplacesBufferedOne() throws InterruptedException {
+        writer = new StatusWriter(store, 1000, 60000);
+        writer.processing("pay", rows(1, 2, 3, 4));
+        writer.succeeded("pay", rows(1, 2));
+        writer.failed("pay", rows(3), "Max retries exceeded");
+        writer.processing("user_info", rows(5));
+        writer.flush();
+
+        assertEquals(Arrays.asList(
+                "pay processing [4]",
+                "pay success [1, 2]",
+                "pay failed {3=Max retries exceeded}",
+                "user_info processing [5]"), store.writes);
+        assertEquals(2, writer.getSucceeded());
+        assertEquals(1, writer.getFailed());
+    }
+
+    @Test
+    public void testFullBufferIsWrittenWithoutFlush() throws InterruptedException {
+        writer = new StatusWriter(store, 3, 60000);
+        writer.processing("pay", rows(1, 2));
+        writer.succeeded("pay", rows(3));
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (store.writes.size() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(Arrays.asList("pay processing [1, 2]", "pay success [3]"), store.writes);
+    }
+
+    @Test
+    public void testOldBufferIsWrittenAfterInterval() throws InterruptedException {
+        writer = new StatusWriter(store, 1000, 20);
+        writer.succeeded("pay", rows(1));
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (store.writes.isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(Collections.singletonList("pay success [1]"), store.writes);
+    }
+
+    @Test
+    public void testFailedWriteIsNotCounted() throws InterruptedException {
+        writer = new StatusWriter(store, 1000, 60000);
+        store.fail = true;
+        writer.succeeded("pay", rows(1, 2));
+        writer.flush();
+
+        assertTrue(store.writes.isEmpty());
+        assertEquals(0, writer.getSucceeded());
+
+        store.fail = false;
+        writer.failed("pay", rows(3), null);
+        writer.flush();
+        assertEquals(Collections.singletonList("pay failed {3=Unknown error}"), store.writes);
+    }
+
+    @Test
+    public void testCloseWritesWhatIsBuffered() {
+        writer = new StatusWriter(store, 1000, 60000);
+        writer.succeeded("pay", rows(1));
+        writer.close();
+        writer = null;
+
+        assertEquals(Collections.singletonList("pay success [1]"), store.writes);
+    }
+}
@@ -0,0 +1,123 @@
+package com.report.spool;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for FailedRecordSpool and SpoolReader
+ */
+public class FailedRecordSpoolTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private FailedRecordSpool spool;
+
+    @Before
+    public void setUp() {
+        spool = new FailedRecordSpool(folder.getRoot().toPath(), 1024 * 1024, 1000);
+    }
+
+    @After
+    public void tearDown() {
+        spool.close();
+    }
+
+    private static SpoolRecord record(String dt, int rows) {
+        String body = "[{\"user\":{\"user_unique_id\":\"u" + rows + "\"}}]";
+        return new SpoolRecord("page_vidw", dt, "/v2/event/list", rows, 1700000000000L,
+                body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<SpoolRecord> readAll(Path segment, SpoolReader.Result[] result) throws IOException {
+        List<SpoolRecord> records = new ArrayList<>();
+        result[0] = SpoolReader.read(segment, records::add);
+        return records;
+    }
+
+    @Test
+    public void testRecordsRoundTripInAppendOrder() throws IOException {
+        assertTrue(spool.append(record("2026-01-20", 1)));
+        assertTrue(spool.append(record("2026-01-21", 2)));
+
+        List<Path> segments = spool.roll();
+        assertEquals(1, segments.size());
+
+        SpoolReader.Result[] result = new SpoolReader.Result[1];
+        List<SpoolRecord> records = readAll(segments.get(0), result);
+        assertEquals(2, result[0].getRecords());
+        assertEquals(0, result[0].getCorrupt());
+        assertEquals("2026-01-20", records.get(0).getDt());
+        assertEquals(2, records.get(1).getRows());
+        assertEquals("/v2/event/list", records.get(1).getEndpoint());
+        assertArrayEquals(record("2026-01-21", 2).getBody(), records.get(1).getBody());
+    }
+
+    @Test
+    public void testAppendAfterRollStartsNewSegment() throws IOException {
+        spool.append(record("2026-01-20", 1));
+        List<Path> first = spool.roll();
+        spool.append(record("2026-01-20", 2));
+        List<Path> all = spool.roll();
+
+        assertEquals(1, first.size());
+        assertEquals(2, all.size());
+        assertEquals(first.get(0), all.get(0));
+    }
+
+    @Test
+    public void testRecordWithBadCrcIsSkipped() throws IOException {
+        spool.append(record("2026-01-20", 1));
+        spool.append(record("2026-01-20", 2));
+        Path segment = spool.roll().get(0);
+
+        // Flip a body byte of the first record
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            long offset = FailedRecordSpool.SEGMENT_HEADER_BYTES + FailedRecordSpool.RECORD_HEADER_BYTES + 2;
+            file.seek(offset);
+            int b = file.read();
+            file.seek(offset);
+            file.write(b ^ 0xff);
+        }
+
+        SpoolReader.Result[] result = new SpoolReader.Result[1];
+        List<SpoolRecord> records = readAll(segment, result);
+        assertEquals(1, result[0].getRecords());
+        assertEquals(1, result[0].getCorrupt());
+        assertEquals(2, records.get(0).getRows());
+    }
+
+    @Test
+    public void testTornTailKeepsEarlierRecords() throws IOException {
+        spool.append(record("2026-01-20", 1));
+        spool.append(record("2026-01-20", 2));
+        Path segment = spool.roll().get(0);
+
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            file.setLength(file.length() - 5);
+        }
+
+        SpoolReader.Result[] result = new SpoolReader.Result[1];
+        List<SpoolRecord> records = readAll(segment, result);
+        assertEquals(1, result[0].getRecords());
+        assertEquals(1, result[0].getCorrupt());
+        assertEquals(1, records.get(0).getRows());
+    }
+
+    @Test
+    public void testEmptySpoolHasNoSegments() throws IOException {
+        assertTrue(spool.roll().isEmpty());
+    }
+}
@@ -0,0 +1,118 @@
+package com.report.util;
+
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for AdaptiveLimiter
+ */
+public class AdaptiveLimiterTest {
+
+    private static final long LATENCY = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final AtomicInteger limitGauge = new AtomicInteger();
+    private final AtomicInteger inFlightGauge = new AtomicInteger();
+    private final AtomicInteger rejected = new AtomicInteger();
+
+    private AdaptiveLimiter limiter(int initial, int min, int max, int maxQueue) {
+        return new AdaptiveLimiter(initial, min, max, 2.0, maxQueue, limitGauge, inFlightGauge,
+                rejected::incrementAndGet);
+    }
+
+    @Test
+    public void testRequestsOverTheLimitWaitForASlot() {
+        AdaptiveLimiter limiter = limiter(2, 1, 2, 10);
+        assertTrue(limiter.acquire().isDone());
+        assertTrue(limiter.acquire().isDone());
+        CompletableFuture<Void> third = limiter.acquire();
+        assertFalse(third.isDone());
+        assertEquals(2, inFlightGauge.get());
+        assertEquals(1, limiter.getWaiting());
+
+        limiter.onSuccess(LATENCY);
+        assertTrue(third.isDone());
+        assertEquals(2, limiter.getInFlight());
+        assertEquals(0, limiter.getWaiting());
+    }
+
+    @Test
+    public void testRequestsAreRejectedWhenTheQueueIsFull() throws Exception {
+        AdaptiveLimiter limiter = limiter(1, 1, 1, 1);
+        limiter.acquire();
+        limiter.acquire();
+        CompletableFuture<Void> overflow = limiter.acquire();
+        try {
+            overflow.get();
+            fail("Expected the request to be rejected");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof RejectedExecutionException);
+        }
+        assertEquals(1, limiter.getRejected());
+        assertEquals(1, rejected.get());
+    }
+
+    @Test
+    public void testLimitGrowsWhileLatencyStaysFlat() {
+        AdaptiveLimiter limiter = limiter(4, 1, 8, 10);
+        for (int i = 0; i < 200; i++) {
+            for (int j = 0; j < limiter.getLimit(); j++) {
+                limiter.acquire();
+            }
+            while (limiter.getInFlight() > 0) {
+                limiter.onSuccess(LATENCY);
+            }
+        }
+        assertEquals(8, limiter.getLimit());
+        assertEquals(8, limitGauge.get());
+    }
+
+    @Test
+    public void testLimitDoesNotGrowWhenUnused() {
+        AdaptiveLimiter limiter = limiter(8, 1, 16, 10);
+        for (int i = 0; i < 100; i++) {
+            limiter.acquire();
+            limiter.onSuccess(LATENCY);
+        }
+        assertEquals(8, limiter.getLimit());
+    }
+
+    @Test
+    public void testLimitBacksOffOnRisingLatencyAndDrops() {
+        AdaptiveLimiter limiter = limiter(10, 2, 10, 10);
+        limiter.acquire();
+        limiter.onSuccess(LATENCY);
+        limiter.acquire();
+        limiter.onSuccess(LATENCY * 5);
+        assertEquals(9, limiter.getLimit());
+
+        for (int i = 0; i < 50; i++) {
+            limiter.acquire();
+            limiter.onDropped();
+        }
+        assertEquals(2, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    public void testWaitersAreNotStartedBeyondAShrunkLimit() {
+        AdaptiveLimiter limiter = limiter(2, 1, 2, 10);
+        limiter.acquire();
+        limiter.acquire();
+        CompletableFuture<Void> waiting = limiter.acquire();
+
+        limiter.onDropped();
+        assertEquals(1, limiter.getLimit());
+        assertFalse(waiting.isDone());
+
+        limiter.release();
+        assertTrue(waiting.isDone());
+        assertEquals(1, limiter.getInFlight());
+    }
+}
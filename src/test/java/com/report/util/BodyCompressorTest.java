@@ -0,0 +1,84 @@
+package com.report.util;
+
+import com.report.config.HttpCompression;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for BodyCompressor
+ */
+public class BodyCompressorTest {
+
+    private static byte[] body(int events) {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < events; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append("{\"user\":{\"user_unique_id\":\"u").append(i).append("\"},\"header\":{},")
+                    .append("\"events\":[{\"event\":\"page_vidw\",\"params\":\"{\\\"report_type\\\":\\\"poc_v1\\\"}\",")
+                    .append("\"local_time_ms\":").append(1769400000000L + i).append("}]}");
+        }
+        return sb.append(']').toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] decode(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] chunk = new byte[4096];
+        int n;
+        while ((n = in.read(chunk)) > 0) {
+            out.write(chunk, 0, n);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] bytes(PooledBuffer buffer) {
+        byte[] copy = new byte[buffer.length()];
+        System.arraycopy(buffer.array(), 0, copy, 0, buffer.length());
+        return copy;
+    }
+
+    @Test
+    public void testGzipRoundTrip() throws IOException {
+        BodyCompressor compressor = new BodyCompressor(HttpCompression.GZIP, 6, 1024);
+        byte[] body = body(50);
+
+        // Twice, so the reused per-thread Deflater is reset between bodies
+        for (int i = 0; i < 2; i++) {
+            PooledBuffer compressed = compressor.compress(body, 0, body.length);
+            assertTrue(compressed.length() < body.length / 4);
+            assertArrayEquals(body, decode(new GZIPInputStream(new ByteArrayInputStream(bytes(compressed)))));
+            compressed.release();
+        }
+    }
+
+    @Test
+    public void testDeflateRoundTrip() throws IOException {
+        BodyCompressor compressor = new BodyCompressor(HttpCompression.DEFLATE, 1, 1024);
+        byte[] body = body(20);
+
+        PooledBuffer compressed = compressor.compress(body, 0, body.length);
+        assertArrayEquals(body, decode(new InflaterInputStream(new ByteArrayInputStream(bytes(compressed)))));
+        compressed.release();
+    }
+
+    @Test
+    public void testSmallBodiesAndNoneAreLeftAlone() {
+        byte[] body = body(1);
+        assertTrue(body.length < 1024);
+
+        assertNull(new BodyCompressor(HttpCompression.GZIP, 6, 1024).compress(body, 0, body.length));
+        assertNull(new BodyCompressor(HttpCompression.NONE, 6, 0).compress(body, 0, body.length));
+        assertEquals("gzip", HttpCompression.GZIP.getContentEncoding());
+        assertEquals(HttpCompression.NONE, HttpCompression.fromString("brotli"));
+    }
+}
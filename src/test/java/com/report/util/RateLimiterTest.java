@@ -0,0 +1,78 @@
+package com.report.util;
+
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for RateLimiter
+ */
+public class RateLimiterTest {
+
+    private static final long INTERVAL = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final AtomicLong now = new AtomicLong(TimeUnit.SECONDS.toNanos(1000));
+
+    @Test
+    public void testPermitsArePacedAtQps() {
+        RateLimiter limiter = new RateLimiter(10, 1, now::get);
+
+        assertEquals(0, limiter.reserve());
+        assertEquals(INTERVAL, limiter.reserve());
+        assertEquals(2 * INTERVAL, limiter.reserve());
+
+        now.addAndGet(2 * INTERVAL);
+        assertEquals(INTERVAL, limiter.reserve());
+    }
+
+    @Test
+    public void testBurstIsAvailableAfterIdle() {
+        RateLimiter limiter = new RateLimiter(10, 3, now::get);
+
+        assertEquals(0, limiter.reserve());
+        assertEquals(0, limiter.reserve());
+        assertEquals(0, limiter.reserve());
+        assertEquals(INTERVAL, limiter.reserve());
+
+        // Idle credit never exceeds the burst
+        now.addAndGet(TimeUnit.SECONDS.toNanos(60));
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limiter.reserve());
+        }
+        assertEquals(INTERVAL, limiter.reserve());
+    }
+
+    @Test
+    public void testUnlimitedNeverWaits() {
+        RateLimiter limiter = new RateLimiter(0, 1, now::get);
+
+        assertTrue(limiter.isUnlimited());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(0, limiter.reserve());
+        }
+    }
+
+    @Test
+    public void testAsyncPermitCompletesAfterItsSlot() throws Exception {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        try {
+            RateLimiter limiter = new RateLimiter(20, 1);
+
+            assertTrue(limiter.acquireAsync(scheduler).isDone());
+            long start = System.nanoTime();
+            CompletableFuture<Void> second = limiter.acquireAsync(scheduler);
+            assertFalse(second.isDone());
+
+            second.get(5, TimeUnit.SECONDS);
+            assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(40));
+        } finally {
+            scheduler.shutdownNow();
+        }
+    }
+}
@@ -41,14 +41,17 @@ fi
 MODE=${1:-schedule}
 
 # 验证运行模式
-if [[ ! "$MODE" =~ ^(schedule|once|retry|stats)$ ]]; then
+if [[ ! "$MODE" =~ ^(schedule|stream|once|retry|replay|backfill|stats)$ ]]; then
     echo -e "${RED}Invalid mode: $MODE${NC}"
-    echo "Usage: $0 [schedule|once|retry|stats]"
+    echo "Usage: $0 [schedule|stream|once|retry|replay|backfill <from> <to>|stats]"
     echo ""
     echo "Modes:"
     echo "  schedule  - Run continuously with scheduler (default)"
+    echo "  stream    - Report pending records continuously"
     echo "  once      - Process all pending records and exit"
-    echo "  retry     - Retry failed records and exit"
+    echo "  retry     - Reprocess a date from the start and exit"
+    echo "  replay    - Re-send spooled failed requests and exit"
+    echo "  backfill  - Process every date from <from> to <to> and exit"
     echo "  stats     - Show statistics and exit"
     exit 1
 fi
@@ -60,14 +63,25 @@ echo -e "${GREEN}========================================${NC}"
 # JVM参数
 JVM_OPTS="-Xms1g -Xmx2g -XX:+UseG1GC -XX:MaxGCPauseMillis=200"
 
+# backfill模式需要起止日期，前台运行
+if [ "$MODE" = "backfill" ]; then
+    if [ $# -lt 3 ]; then
+        echo -e "${RED}Usage: $0 backfill <from> <to>${NC}"
+        exit 1
+    fi
+    echo -e "${GREEN}Running in foreground mode...${NC}"
+    java $JVM_OPTS -jar $JAR_FILE $MODE "$2" "$3"
+    exit $?
+fi
+
 # 如果是stats或once模式，前台运行
-if [ "$MODE" = "stats" ] || [ "$MODE" = "once" ] || [ "$MODE" = "retry" ]; then
+if [ "$MODE" = "stats" ] || [ "$MODE" = "once" ] || [ "$MODE" = "retry" ] || [ "$MODE" = "replay" ]; then
     echo -e "${GREEN}Running in foreground mode...${NC}"
     java $JVM_OPTS -jar $JAR_FILE $MODE
     exit $?
 fi
 
-# schedule模式，后台运行
+# schedule和stream模式，后台运行
 echo "Starting in background mode..."
 nohup java $JVM_OPTS -jar $JAR_FILE $MODE >> $LOG_FILE 2>&1 &
 